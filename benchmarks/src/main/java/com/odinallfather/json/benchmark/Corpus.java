@@ -0,0 +1,235 @@
+package com.odinallfather.json.benchmark;
+
+import java.util.Random;
+
+/**
+ * Deterministically generated documents modelled after the usual JSON benchmark files, so that no large files have
+ * to be checked in.
+ */
+public enum Corpus {
+
+    /**
+     * Search results like twitter.json: medium sized objects with many string fields, unicode and escapes
+     */
+    TWITTER {
+        @Override
+        void generate(StringBuilder out, Random random) {
+            out.append("{\"statuses\":[");
+            for (int i = 0; i < 100; i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                long id = 505874924095815681L + random.nextInt(1_000_000);
+                out.append("{\"metadata\":{\"result_type\":\"recent\",\"iso_language_code\":\"ja\"},");
+                out.append("\"created_at\":\"Sun Aug 31 00:29:15 +0000 2014\",\"id\":").append(id);
+                out.append(",\"id_str\":\"").append(id).append("\",\"text\":");
+                string(out, random, 40 + random.nextInt(100), true);
+                out.append(",\"source\":\"<a href=\\\"https://mobile.twitter.com\\\" rel=\\\"nofollow\\\">Mobile Web</a>\"");
+                out.append(",\"truncated\":false,\"in_reply_to_status_id\":null,\"user\":{\"id\":").append(random.nextInt(1 << 30));
+                out.append(",\"name\":");
+                string(out, random, 12, true);
+                out.append(",\"screen_name\":");
+                string(out, random, 10, false);
+                out.append(",\"location\":\"\",\"description\":");
+                string(out, random, 80, true);
+                out.append(",\"url\":null,\"protected\":false,\"followers_count\":").append(random.nextInt(5000));
+                out.append(",\"friends_count\":").append(random.nextInt(5000));
+                out.append(",\"listed_count\":").append(random.nextInt(50));
+                out.append(",\"favourites_count\":").append(random.nextInt(5000));
+                out.append(",\"utc_offset\":null,\"time_zone\":null,\"geo_enabled\":false,\"verified\":false");
+                out.append(",\"statuses_count\":").append(random.nextInt(50000));
+                out.append(",\"lang\":\"ja\",\"profile_background_color\":\"C0DEED\",\"profile_image_url\":");
+                out.append("\"http://pbs.twimg.com/profile_images/").append(random.nextInt(1 << 30)).append("/normal.jpeg\"");
+                out.append(",\"default_profile\":true},\"geo\":null,\"coordinates\":null,\"place\":null");
+                out.append(",\"retweet_count\":").append(random.nextInt(100));
+                out.append(",\"favorite_count\":").append(random.nextInt(100));
+                out.append(",\"entities\":{\"hashtags\":[");
+                int hashtags = random.nextInt(3);
+                for (int h = 0; h < hashtags; h++) {
+                    if (h > 0) {
+                        out.append(',');
+                    }
+                    out.append("{\"text\":");
+                    string(out, random, 8, false);
+                    out.append(",\"indices\":[").append(h * 10).append(',').append(h * 10 + 8).append("]}");
+                }
+                out.append("],\"symbols\":[],\"urls\":[],\"user_mentions\":[]},\"favorited\":false,\"retweeted\":false,\"lang\":\"ja\"}");
+            }
+            out.append("],\"search_metadata\":{\"completed_in\":0.087,\"max_id\":505874924095815681,");
+            out.append("\"query\":\"%E4%B8%80\",\"refresh_url\":\"?since_id=505874924095815681&q=%E4%B8%80&include_entities=1\",");
+            out.append("\"count\":100,\"since_id\":0}}");
+        }
+    },
+
+    /**
+     * Event catalog like citm_catalog.json: many small objects, integer ids and short integer arrays
+     */
+    CITM {
+        @Override
+        void generate(StringBuilder out, Random random) {
+            out.append("{\"areaNames\":{");
+            for (int i = 0; i < 200; i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                out.append('"').append(205705993 + i).append("\":");
+                string(out, random, 20, false);
+            }
+            out.append("},\"events\":{");
+            for (int i = 0; i < 400; i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                int id = 138586341 + i;
+                out.append('"').append(id).append("\":{\"description\":null,\"id\":").append(id);
+                out.append(",\"logo\":null,\"name\":");
+                string(out, random, 30, false);
+                out.append(",\"subTopicIds\":[337184269,337184283],\"subjectCode\":null,\"subtitle\":null,\"topicIds\":[324846099,107888604]}");
+            }
+            out.append("},\"performances\":[");
+            for (int i = 0; i < 400; i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                out.append("{\"eventId\":").append(138586341 + random.nextInt(400)).append(",\"id\":").append(339887544 + i);
+                out.append(",\"logo\":\"/images/UE0AAAAACEKo6QAAAAZDSVRN\",\"name\":null,\"prices\":[");
+                for (int p = 0; p < 3; p++) {
+                    if (p > 0) {
+                        out.append(',');
+                    }
+                    out.append("{\"amount\":").append(9000 + random.nextInt(90000)).append(",\"audienceSubCategoryId\":337100890");
+                    out.append(",\"seatCategoryId\":").append(338937295 + p).append('}');
+                }
+                out.append("],\"seatCategories\":[{\"areas\":[{\"areaId\":205705999,\"blockIds\":[]},{\"areaId\":205705998,\"blockIds\":[]}],");
+                out.append("\"seatCategoryId\":338937295}],\"seatMapImage\":null,\"start\":").append(1372615200000L + i * 86400000L);
+                out.append(",\"venueCode\":\"PLEYEL_PLEYEL\"}");
+            }
+            out.append("],\"venueNames\":{\"PLEYEL_PLEYEL\":\"Salle Pleyel\"}}");
+        }
+    },
+
+    /**
+     * GeoJSON like canada.json: one polygon with long arrays of coordinate pairs with many decimals
+     */
+    CANADA {
+        @Override
+        void generate(StringBuilder out, Random random) {
+            out.append("{\"type\":\"FeatureCollection\",\"features\":[{\"type\":\"Feature\",\"properties\":{\"name\":\"Canada\"},");
+            out.append("\"geometry\":{\"type\":\"Polygon\",\"coordinates\":[");
+            for (int ring = 0; ring < 50; ring++) {
+                if (ring > 0) {
+                    out.append(',');
+                }
+                out.append('[');
+                for (int i = 0; i < 1000; i++) {
+                    if (i > 0) {
+                        out.append(',');
+                    }
+                    out.append('[').append(-65 - random.nextDouble() * 75).append(',').append(42 + random.nextDouble() * 40).append(']');
+                }
+                out.append(']');
+            }
+            out.append("]}}]}");
+        }
+    },
+
+    /**
+     * Objects and arrays nested 256 levels deep
+     */
+    NESTED {
+        @Override
+        void generate(StringBuilder out, Random random) {
+            for (int i = 0; i < 256; i++) {
+                out.append(i % 2 == 0 ? "{\"level\":" : "[").append(i).append(i % 2 == 0 ? ",\"child\":" : ",");
+            }
+            out.append("null");
+            for (int i = 255; i >= 0; i--) {
+                out.append(i % 2 == 0 ? '}' : ']');
+            }
+        }
+    },
+
+    /**
+     * A flat array of integers and doubles
+     */
+    NUMBERS {
+        @Override
+        void generate(StringBuilder out, Random random) {
+            out.append('[');
+            for (int i = 0; i < 50_000; i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                if (i % 2 == 0) {
+                    out.append(random.nextInt());
+                } else {
+                    out.append(random.nextDouble() * 1e6);
+                }
+            }
+            out.append(']');
+        }
+    },
+
+    /**
+     * An array of strings made mostly of escape sequences and non-ASCII characters
+     */
+    ESCAPES {
+        @Override
+        void generate(StringBuilder out, Random random) {
+            out.append('[');
+            for (int i = 0; i < 2_000; i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                out.append('"');
+                for (int c = 0; c < 50; c++) {
+                    switch (random.nextInt(6)) {
+                        // @formatter:off
+                        case 0: out.append("\\n"); break;
+                        case 1: out.append("\\\""); break;
+                        case 2: out.append("\\\\"); break;
+                        case 3: out.append("\\u00e9"); break;
+                        case 4: out.append('一'); break;
+                        default: out.append((char) ('a' + random.nextInt(26))); break;
+                        // @formatter:on
+                    }
+                }
+                out.append('"');
+            }
+            out.append(']');
+        }
+    };
+
+    private static final String CHARACTERS = "abcdefghijklmnopqrstuvwxyz ABCDEFGHIJKLMNOPQRSTUVWXYZ 0123456789 "
+            + "一二三あいうéü";
+
+    private String json;
+
+    abstract void generate(StringBuilder out, Random random);
+
+    /**
+     * @return the generated document, the same on every call and in every run
+     */
+    public synchronized String json() {
+        if (json == null) {
+            StringBuilder out = new StringBuilder(1 << 16);
+            generate(out, new Random(ordinal()));
+            json = out.toString();
+        }
+
+        return json;
+    }
+
+    private static void string(StringBuilder out, Random random, int length, boolean escapes) {
+        out.append('"');
+        for (int i = 0; i < length; i++) {
+            if (escapes && random.nextInt(20) == 0) {
+                out.append(random.nextBoolean() ? "\\n" : "\\\"");
+            } else {
+                out.append(CHARACTERS.charAt(random.nextInt(CHARACTERS.length())));
+            }
+        }
+        out.append('"');
+    }
+
+}
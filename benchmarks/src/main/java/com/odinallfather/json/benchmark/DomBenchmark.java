@@ -0,0 +1,72 @@
+package com.odinallfather.json.benchmark;
+
+import com.odinallfather.json.JsonObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DomBenchmark {
+
+    @Param({"8", "64"})
+    public int size;
+
+    private String[] keys;
+    private JsonObject odinJson;
+    private com.google.gson.JsonObject gson;
+
+    @Setup
+    public void setup() {
+        keys = new String[size];
+        odinJson = new JsonObject();
+        gson = new com.google.gson.JsonObject();
+
+        for (int i = 0; i < size; i++) {
+            keys[i] = "property_" + i;
+            odinJson.put(keys[i], i);
+            gson.addProperty(keys[i], i);
+        }
+    }
+
+    @Benchmark
+    public long odinJsonGet() {
+        long sum = 0;
+        for (String key : keys) {
+            sum += odinJson.getInt(key);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long gsonGet() {
+        long sum = 0;
+        for (String key : keys) {
+            sum += gson.get(key).getAsInt();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public JsonObject odinJsonPut() {
+        JsonObject object = new JsonObject();
+        for (int i = 0; i < keys.length; i++) {
+            object.put(keys[i], i);
+        }
+        return object;
+    }
+
+    @Benchmark
+    public com.google.gson.JsonObject gsonPut() {
+        com.google.gson.JsonObject object = new com.google.gson.JsonObject();
+        for (int i = 0; i < keys.length; i++) {
+            object.addProperty(keys[i], i);
+        }
+        return object;
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.odinallfather.json.benchmark;
+
+import com.google.gson.JsonElement;
+import com.odinallfather.json.JsonParser;
+import com.odinallfather.json.JsonValue;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParseBenchmark {
+
+    @Param({"TWITTER", "CITM", "CANADA", "NESTED", "NUMBERS", "ESCAPES"})
+    public Corpus corpus;
+
+    private String json;
+    private byte[] bytes;
+
+    @Setup
+    public void setup() {
+        json = corpus.json();
+        bytes = json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public JsonValue odinJsonString() throws IOException {
+        return JsonParser.parse(json);
+    }
+
+    @Benchmark
+    public JsonValue odinJsonBytes() throws IOException {
+        return JsonParser.parse(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public JsonElement gsonString() {
+        return com.google.gson.JsonParser.parseString(json);
+    }
+
+    @Benchmark
+    public JsonElement gsonBytes() {
+        return com.google.gson.JsonParser.parseReader(new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,89 @@
+package com.odinallfather.json.benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.odinallfather.json.JsonParser;
+import com.odinallfather.json.JsonPrinter;
+import com.odinallfather.json.JsonValue;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PrintBenchmark {
+
+    @Param({"TWITTER", "CITM", "CANADA", "NESTED", "NUMBERS", "ESCAPES"})
+    public Corpus corpus;
+
+    @Param({"false", "true"})
+    public boolean pretty;
+
+    private JsonValue odinJson;
+    private JsonElement gsonTree;
+    private Gson gson;
+
+    @Setup
+    public void setup() throws IOException {
+        odinJson = JsonParser.parse(corpus.json());
+        gsonTree = com.google.gson.JsonParser.parseString(corpus.json());
+
+        GsonBuilder builder = new GsonBuilder().disableHtmlEscaping();
+        gson = pretty ? builder.setPrettyPrinting().create() : builder.create();
+    }
+
+    @Benchmark
+    public long odinJson() throws IOException {
+        CountingWriter out = new CountingWriter();
+        JsonPrinter printer = new JsonPrinter(out, pretty);
+        printer.print(odinJson);
+        printer.close();
+        return out.count;
+    }
+
+    @Benchmark
+    public long gson() {
+        CountingWriter out = new CountingWriter();
+        gson.toJson(gsonTree, out);
+        return out.count;
+    }
+
+    /**
+     * Discards the output, so that only the printer is measured
+     */
+    static final class CountingWriter extends Writer {
+
+        long count;
+
+        @Override
+        public void write(int c) {
+            count++;
+        }
+
+        @Override
+        public void write(char[] buf, int off, int len) {
+            count += len;
+        }
+
+        @Override
+        public void write(String str, int off, int len) {
+            count += len;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+}
@@ -0,0 +1,41 @@
+package com.odinallfather.json.benchmark;
+
+import com.google.gson.JsonElement;
+import com.odinallfather.json.JsonParser;
+import com.odinallfather.json.JsonValue;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ToStringBenchmark {
+
+    @Param({"TWITTER", "CITM", "CANADA", "NESTED", "NUMBERS", "ESCAPES"})
+    public Corpus corpus;
+
+    private JsonValue odinJson;
+    private JsonElement gson;
+
+    @Setup
+    public void setup() throws IOException {
+        odinJson = JsonParser.parse(corpus.json());
+        gson = com.google.gson.JsonParser.parseString(corpus.json());
+    }
+
+    @Benchmark
+    public String odinJson() {
+        return odinJson.toString();
+    }
+
+    @Benchmark
+    public String gson() {
+        return gson.toString();
+    }
+
+}
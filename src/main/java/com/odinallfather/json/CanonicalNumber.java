@@ -0,0 +1,166 @@
+package com.odinallfather.json;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * Formats numbers like ECMAScript's Number.prototype.toString, as required by the JSON Canonicalization Scheme
+ * (RFC 8785): the shortest digits that read back as the same double, without exponent from 1e-6 up to 1e21.
+ */
+final class CanonicalNumber {
+
+    private static final double MAX_EXACT_INTEGER = 1L << 53;
+
+    private CanonicalNumber() {
+    }
+
+    /**
+     * @throws JsonException if the number is NaN or infinite
+     */
+    static String format(double value) throws JsonException {
+        if (!Double.isFinite(value)) {
+            throw new JsonException("Canonical JSON cannot represent " + value);
+        }
+        if (value == 0) {
+            return "0"; // Also -0
+        }
+        if (value == (long) value && Math.abs(value) < MAX_EXACT_INTEGER) {
+            return Long.toString((long) value);
+        }
+
+        String fast = formatFast(value);
+        if (fast != null) {
+            return fast;
+        }
+
+        BigDecimal shortest = shortest(value);
+        String digits = shortest.unscaledValue().abs().toString();
+        return format(value < 0, digits, digits.length() - shortest.scale());
+    }
+
+    /**
+     * @param exponent the value is 0.digits times ten to the power of the exponent
+     */
+    private static String format(boolean negative, String digits, int exponent) {
+        StringBuilder out = new StringBuilder(24);
+        if (negative) {
+            out.append('-');
+        }
+
+        int length = digits.length();
+        if (length <= exponent && exponent <= 21) {
+            out.append(digits);
+            for (int i = length; i < exponent; i++) {
+                out.append('0');
+            }
+        } else if (0 < exponent && exponent <= 21) {
+            out.append(digits, 0, exponent).append('.').append(digits, exponent, length);
+        } else if (-6 < exponent && exponent <= 0) {
+            out.append("0.");
+            for (int i = exponent; i < 0; i++) {
+                out.append('0');
+            }
+            out.append(digits);
+        } else {
+            out.append(digits.charAt(0));
+            if (length > 1) {
+                out.append('.').append(digits, 1, length);
+            }
+            out.append('e').append(exponent > 0 ? '+' : '-').append(Math.abs(exponent - 1));
+        }
+
+        return out.toString();
+    }
+
+    /**
+     * Takes the digits of {@link Double#toString(double)}, which are usually but not always the shortest, and verifies
+     * them: they must read back as the value and one digit less must not. If other decimals with as many digits read
+     * back as well, the closest one is taken.
+     *
+     * @return the formatted value, or null if Double.toString has more digits than necessary
+     */
+    private static String formatFast(double value) {
+        double magnitude = Math.abs(value);
+        String string = Double.toString(magnitude);
+        long fraction = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean point = false;
+        int exponent = 0;
+
+        for (int i = 0; i < string.length(); i++) {
+            char chr = string.charAt(i);
+            if (chr == '.') {
+                point = true;
+            } else if (chr == 'E') {
+                exponent = Integer.parseInt(string.substring(i + 1));
+                break;
+            } else {
+                if (digits == 18) {
+                    return null;
+                }
+                fraction = fraction * 10 + (chr - '0');
+                if (fraction != 0) {
+                    digits++;
+                }
+                if (point) {
+                    fractionDigits++;
+                }
+            }
+        }
+
+        int scale = exponent - fractionDigits;
+        while (fraction % 10 == 0) {
+            fraction /= 10;
+            scale++;
+            digits--;
+        }
+
+        if (!readsBack(fraction, scale, magnitude)
+                || readsBack(fraction / 10, scale + 1, magnitude) || readsBack(fraction / 10 + 1, scale + 1, magnitude)) {
+            return null;
+        }
+        // With up to 15 digits, decimals are further apart than doubles, so no other one reads back as the value
+        if (digits > 15 && (readsBack(fraction - 1, scale, magnitude) || readsBack(fraction + 1, scale, magnitude))) {
+            // There are no fewer digits, so take the closest decimal with as many if it reads back
+            BigDecimal nearest = new BigDecimal(magnitude).round(new MathContext(digits, RoundingMode.HALF_EVEN));
+            if (nearest.doubleValue() == magnitude) {
+                nearest = nearest.stripTrailingZeros();
+                String nearestDigits = nearest.unscaledValue().toString();
+                return format(value < 0, nearestDigits, nearestDigits.length() - nearest.scale());
+            }
+        }
+
+        return format(value < 0, Long.toString(fraction), digits + scale);
+    }
+
+    private static boolean readsBack(long fraction, int scale, double value) {
+        return JsonParser.toDouble(fraction, scale) == value;
+    }
+
+    /**
+     * @return the decimal with the fewest digits that reads back as the value, the closest one if there are several,
+     * without trailing zeros
+     */
+    private static BigDecimal shortest(double value) {
+        BigDecimal exact = new BigDecimal(value);
+
+        for (int precision = 1; precision < 17; precision++) {
+            BigDecimal nearest = exact.round(new MathContext(precision, RoundingMode.HALF_EVEN));
+            if (nearest.doubleValue() == value) {
+                return nearest.stripTrailingZeros();
+            }
+
+            // Near powers of two the values reading back as the value are not centered around it
+            BigDecimal ulp = nearest.ulp();
+            BigDecimal other = nearest.compareTo(exact) < 0 ? nearest.add(ulp) : nearest.subtract(ulp);
+            if (other.doubleValue() == value) {
+                return other.stripTrailingZeros();
+            }
+        }
+
+        return exact.round(new MathContext(17, RoundingMode.HALF_EVEN)).stripTrailingZeros();
+    }
+
+}
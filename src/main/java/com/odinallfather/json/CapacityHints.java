@@ -0,0 +1,202 @@
+package com.odinallfather.json;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The sizes of objects and arrays by their path in a document, which {@link JsonParser#setCapacityHints(CapacityHints)
+ * parsers} use to create them with the capacity they need, instead of growing them while they are read.
+ * <p>
+ * Hints are given by paths like {@code $.items} for the array of the field items or {@code $.items[*]} for the objects
+ * in it. A learning instance also updates them with an average of the sizes parsed, so documents with the same
+ * structure are read with fitting capacities after a few parses. Learned sizes are limited, so that a single huge
+ * document does not make all later ones allocate as much. Hints are thread-safe and can be shared by parsers.
+ */
+public final class CapacityHints {
+
+    private static final int MAX_LEARNED_SIZE = 1 << 16;
+    // Documents with names that are not fixed, like ids as keys, would otherwise add paths forever
+    private static final int MAX_NODES = 4096;
+
+    private final Node root = new Node();
+    private final AtomicInteger nodeCount = new AtomicInteger(1);
+    private final boolean learning;
+
+    public CapacityHints() {
+        this(true);
+    }
+
+    /**
+     * @param learning false to only use the sizes given by {@link #hint(String, int)}
+     */
+    public CapacityHints(boolean learning) {
+        this.learning = learning;
+    }
+
+    public boolean isLearning() {
+        return learning;
+    }
+
+    /**
+     * Sets the size of the object or array at the path, which is not changed by learning.
+     *
+     * @param path {@code $} followed by {@code .name} for fields and {@code [*]} for elements
+     */
+    public CapacityHints hint(String path, int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("size may not be negative");
+        }
+
+        Node node = find(path, true);
+        node.fixed = true;
+        node.size = size;
+
+        return this;
+    }
+
+    /**
+     * @return the size used for the object or array at the path, -1 if there is none
+     */
+    public int getHint(String path) {
+        Node node = find(path, false);
+
+        return node == null ? -1 : node.size;
+    }
+
+    private Node find(String path, boolean create) {
+        if (!path.startsWith("$")) {
+            throw new IllegalArgumentException("The path must start with $: " + path);
+        }
+
+        Node node = root;
+        int i = 1;
+        while (i < path.length() && node != null) {
+            if (path.startsWith("[*]", i)) {
+                node = create ? node.elements(true) : node.elements;
+                i += 3;
+            } else if (path.charAt(i) == '.') {
+                int end = i + 1;
+                while (end < path.length() && path.charAt(end) != '.' && path.charAt(end) != '[') {
+                    end++;
+                }
+                if (end == i + 1) {
+                    throw new IllegalArgumentException("Missing name at index " + i + ": " + path);
+                }
+
+                String name = path.substring(i + 1, end);
+                node = create ? node.field(name, true) : node.fields == null ? null : node.fields.get(name);
+                i = end;
+            } else {
+                throw new IllegalArgumentException("Expected . or [*] at index " + i + ": " + path);
+            }
+        }
+
+        return node;
+    }
+
+    Node root() {
+        return root;
+    }
+
+    /**
+     * @return the node of the field of an object at the node, null if it has none and no more nodes are learned
+     */
+    Node field(Node node, String name) {
+        return node.field(name, learning && nodeCount.get() < MAX_NODES);
+    }
+
+    /**
+     * @return the node of the elements of an array at the node, null if it has none and no more nodes are learned
+     */
+    Node elements(Node node) {
+        return node.elements(learning && nodeCount.get() < MAX_NODES);
+    }
+
+    void record(Node node, int size) {
+        if (learning && !node.fixed) {
+            // Updated without synchronization, concurrent parses may lose an update or see an older size
+            float average = node.size == -1 ? size : node.average + (size - node.average) / 8;
+            node.average = average;
+
+            int learned = (int) Math.min(Math.ceil(average), MAX_LEARNED_SIZE);
+            if (node.size != learned) {
+                node.size = learned;
+            }
+        }
+    }
+
+    /**
+     * Trims the capacity of the object or array and all objects and arrays in it to their sizes.
+     */
+    static void trimToSize(Object root) {
+        ArrayDeque<Object> pending = new ArrayDeque<>();
+        pending.push(root);
+
+        while (!pending.isEmpty()) {
+            Object container = pending.pop();
+            Iterable<JsonValue> values;
+
+            if (container instanceof JsonObject) {
+                JsonObject object = (JsonObject) container;
+                object.trim();
+                values = object.values();
+            } else {
+                JsonArray array = (JsonArray) container;
+                array.trim();
+                values = array;
+            }
+
+            for (JsonValue value : values) {
+                if (value != null && (value.isObject() || value.isArray()) && value.getValue() != null) {
+                    pending.push(value.getValue());
+                }
+            }
+        }
+    }
+
+    final class Node {
+
+        private volatile ConcurrentHashMap<String, Node> fields;
+        private volatile Node elements;
+        // The size to create objects and arrays with, -1 if unknown
+        int size = -1;
+        private float average;
+        private boolean fixed;
+
+        private Node field(String name, boolean create) {
+            ConcurrentHashMap<String, Node> fields = this.fields;
+            Node node = fields == null ? null : fields.get(name);
+            if (node != null || !create) {
+                return node;
+            }
+
+            synchronized (this) {
+                if ((fields = this.fields) == null) {
+                    this.fields = fields = new ConcurrentHashMap<>();
+                }
+            }
+            return fields.computeIfAbsent(name, key -> newNode());
+        }
+
+        private Node elements(boolean create) {
+            Node node = elements;
+            if (node != null || !create) {
+                return node;
+            }
+
+            synchronized (this) {
+                if (elements == null) {
+                    elements = newNode();
+                }
+                return elements;
+            }
+        }
+
+        private Node newNode() {
+            nodeCount.incrementAndGet();
+            return new Node();
+        }
+    }
+
+}
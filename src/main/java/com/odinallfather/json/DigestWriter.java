@@ -0,0 +1,118 @@
+package com.odinallfather.json;
+
+import java.io.Writer;
+import java.security.MessageDigest;
+import java.util.Objects;
+
+/**
+ * A writer that encodes the characters as UTF-8 and passes the bytes to a message digest, e.g. to hash a document
+ * while it is printed instead of printing it into a string first. Unpaired surrogates are encoded as '?'.
+ */
+public class DigestWriter extends Writer {
+
+    private final MessageDigest digest;
+    private final byte[] buffer = new byte[1024];
+    private int length;
+    // A high surrogate whose low surrogate is the next character, or 0
+    private char highSurrogate;
+
+    public DigestWriter(MessageDigest digest) {
+        this.digest = Objects.requireNonNull(digest, "digest may not be null");
+    }
+
+    public MessageDigest getDigest() {
+        return digest;
+    }
+
+    @Override
+    public void write(int c) {
+        encode((char) c);
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) {
+        for (int i = off; i < off + len; i++) {
+            encode(cbuf[i]);
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) {
+        for (int i = off; i < off + len; i++) {
+            encode(str.charAt(i));
+        }
+    }
+
+    private void encode(char chr) {
+        if (length > buffer.length - 4) {
+            flushBuffer();
+        }
+
+        if (highSurrogate != 0) {
+            char high = highSurrogate;
+            highSurrogate = 0;
+
+            if (Character.isLowSurrogate(chr)) {
+                int codePoint = Character.toCodePoint(high, chr);
+                buffer[length++] = (byte) (0xF0 | codePoint >> 18);
+                buffer[length++] = (byte) (0x80 | (codePoint >> 12 & 0x3F));
+                buffer[length++] = (byte) (0x80 | (codePoint >> 6 & 0x3F));
+                buffer[length++] = (byte) (0x80 | (codePoint & 0x3F));
+                return;
+            }
+
+            buffer[length++] = '?';
+            encode(chr);
+            return;
+        }
+
+        if (chr < 0x80) {
+            buffer[length++] = (byte) chr;
+        } else if (chr < 0x800) {
+            buffer[length++] = (byte) (0xC0 | chr >> 6);
+            buffer[length++] = (byte) (0x80 | (chr & 0x3F));
+        } else if (Character.isHighSurrogate(chr)) {
+            highSurrogate = chr;
+        } else if (Character.isLowSurrogate(chr)) {
+            buffer[length++] = '?';
+        } else {
+            buffer[length++] = (byte) (0xE0 | chr >> 12);
+            buffer[length++] = (byte) (0x80 | (chr >> 6 & 0x3F));
+            buffer[length++] = (byte) (0x80 | (chr & 0x3F));
+        }
+    }
+
+    private void flushBuffer() {
+        digest.update(buffer, 0, length);
+        length = 0;
+    }
+
+    /**
+     * Passes the buffered bytes to the digest. A trailing high surrogate is kept until the next character is written.
+     */
+    @Override
+    public void flush() {
+        flushBuffer();
+    }
+
+    /**
+     * Flushes the writer and completes the digest, which is reset afterwards.
+     *
+     * @return the hash of all characters written
+     */
+    public byte[] digest() {
+        if (highSurrogate != 0) {
+            highSurrogate = 0;
+            encode('?');
+        }
+        flushBuffer();
+
+        return digest.digest();
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+
+}
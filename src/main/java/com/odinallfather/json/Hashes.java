@@ -0,0 +1,158 @@
+package com.odinallfather.json;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Support for the hash codes {@link JsonObject} and {@link JsonArray} cache.
+ * <p>
+ * A cached hash code is stored together with the epoch it was computed in, and it is only valid in that epoch. A value
+ * cannot tell which containers hold it, so when a value or container that was hashed is changed, the epoch is advanced
+ * and all cached hash codes become invalid. Values that were never hashed are changed without touching the epoch, so
+ * building and parsing documents is not affected.
+ */
+final class Hashes {
+
+    // 64 bits, so the epoch does not wrap around and make stale hash codes valid again
+    private static final AtomicLong EPOCH = new AtomicLong();
+
+    private static final long MAX_EXACT_INTEGER = 1L << 53;
+
+    private Hashes() {
+    }
+
+    static long epoch() {
+        return EPOCH.get();
+    }
+
+    /**
+     * Invalidates all cached hash codes.
+     */
+    static void invalidate() {
+        EPOCH.incrementAndGet();
+    }
+
+    /**
+     * @return true if the cached hash code is valid
+     */
+    static boolean isValid(Cached cached, long epoch) {
+        return cached != null && cached.epoch == epoch;
+    }
+
+    /**
+     * @return true if both cached hash codes are valid and differ, so the values cannot be equal
+     */
+    static boolean differ(Cached a, Cached b) {
+        long epoch = EPOCH.get();
+        return isValid(a, epoch) && isValid(b, epoch) && a.hash != b.hash;
+    }
+
+    /**
+     * Compares numbers by their exact value, so 1 equals 1.0, but 0.1f does not equal 0.1, as the float is not
+     * exactly 0.1.
+     */
+    static boolean equal(Number a, Number b) {
+        if (isIntegral(a) && isIntegral(b)) {
+            return a.longValue() == b.longValue();
+        }
+        if (isFloating(a) && isFloating(b)) {
+            return equal(a.doubleValue(), b.doubleValue());
+        }
+
+        BigDecimal x = exact(a);
+        BigDecimal y = exact(b);
+        if (x == null || y == null) {
+            return x == y && equal(a.doubleValue(), b.doubleValue());
+        }
+
+        return x.compareTo(y) == 0;
+    }
+
+    private static boolean equal(double x, double y) {
+        return x == y || Double.isNaN(x) && Double.isNaN(y);
+    }
+
+    private static boolean isIntegral(Number number) {
+        return number instanceof Long || number instanceof Integer || number instanceof Short || number instanceof Byte;
+    }
+
+    private static boolean isFloating(Number number) {
+        return number instanceof Double || number instanceof Float;
+    }
+
+    /**
+     * @return the exact value of the number, or null if it is NaN or infinite
+     */
+    private static BigDecimal exact(Number number) {
+        if (number instanceof BigDecimal) {
+            return (BigDecimal) number;
+        }
+        if (isIntegral(number)) {
+            return BigDecimal.valueOf(number.longValue());
+        }
+        if (number instanceof BigInteger) {
+            return new BigDecimal((BigInteger) number);
+        }
+        if (!isFloating(number)) {
+            try {
+                return new BigDecimal(number.toString());
+            } catch (NumberFormatException ignored) {
+                // Not a decimal, use the double value
+            }
+        }
+
+        double value = number.doubleValue();
+        return Double.isFinite(value) ? new BigDecimal(value) : null;
+    }
+
+    /**
+     * @return a hash code consistent with {@link #equal(Number, Number)}
+     */
+    static int hash(Number number) {
+        // Values that are exactly a double are hashed as the double, other values as their exact decimal
+        if (isFloating(number)) {
+            return hash(number.doubleValue());
+        }
+        if (isIntegral(number)) {
+            long value = number.longValue();
+            if (-MAX_EXACT_INTEGER <= value && value <= MAX_EXACT_INTEGER) {
+                return hash((double) value);
+            }
+        }
+
+        BigDecimal exact = exact(number);
+        if (exact == null) {
+            return Double.hashCode(number.doubleValue());
+        }
+
+        double value = exact.doubleValue();
+        if (Double.isFinite(value) && new BigDecimal(value).compareTo(exact) == 0) {
+            return hash(value);
+        }
+        return exact.stripTrailingZeros().hashCode();
+    }
+
+    private static int hash(double value) {
+        // All NaNs are equal
+        if (Double.isNaN(value)) {
+            return Double.hashCode(Double.NaN);
+        }
+        return value == (long) value ? Long.hashCode((long) value) : Double.hashCode(value);
+    }
+
+    /**
+     * A hash code and the epoch it was computed in, immutable so that both are always read together.
+     */
+    static final class Cached {
+
+        final int hash;
+        final long epoch;
+
+        Cached(int hash, long epoch) {
+            this.hash = hash;
+            this.epoch = epoch;
+        }
+    }
+
+}
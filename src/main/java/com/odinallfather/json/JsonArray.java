@@ -5,10 +5,13 @@ import java.io.InputStream;
 import java.io.Reader;
 import java.nio.charset.Charset;
 import java.util.*;
+import java.util.function.Consumer;
 
 public class JsonArray implements List<JsonValue> {
 
     private List<JsonValue> data;
+    // The cached hash code and its epoch, see Hashes
+    private volatile Hashes.Cached hash;
 
     public JsonArray() {
         this(16);
@@ -18,6 +21,13 @@ public class JsonArray implements List<JsonValue> {
         data = new ArrayList<>(initialSize);
     }
 
+    /**
+     * Creates an array backed by the given list, for subclasses that store their elements differently.
+     */
+    protected JsonArray(List<JsonValue> data) {
+        this.data = Objects.requireNonNull(data, "data may not be null");
+    }
+
     @SuppressWarnings("resource")
     public JsonArray(String in) throws IOException {
         this();
@@ -84,7 +94,7 @@ public class JsonArray implements List<JsonValue> {
 
     @Override
     public Iterator<JsonValue> iterator() {
-        return data.iterator();
+        return TrackedViews.iterator(data.iterator(), this::changed);
     }
 
     @Override
@@ -99,11 +109,13 @@ public class JsonArray implements List<JsonValue> {
 
     @Override
     public boolean add(JsonValue e) {
+        changed();
         return data.add(e == null ? new JsonValue() : e);
     }
 
     @Override
     public boolean remove(Object o) {
+        changed();
         return data.remove(o);
     }
 
@@ -114,6 +126,7 @@ public class JsonArray implements List<JsonValue> {
 
     @Override
     public boolean addAll(Collection<? extends JsonValue> c) {
+        changed();
         for (JsonValue element : c) {
             data.add(element == null ? new JsonValue() : element);
         }
@@ -123,6 +136,7 @@ public class JsonArray implements List<JsonValue> {
 
     @Override
     public boolean addAll(int index, Collection<? extends JsonValue> c) {
+        changed();
         for (JsonValue element : c) {
             data.add(index++, element == null ? new JsonValue() : element);
         }
@@ -132,16 +146,19 @@ public class JsonArray implements List<JsonValue> {
 
     @Override
     public boolean removeAll(Collection<?> c) {
+        changed();
         return data.removeAll(c);
     }
 
     @Override
     public boolean retainAll(Collection<?> c) {
+        changed();
         return data.retainAll(c);
     }
 
     @Override
     public void clear() {
+        changed();
         data.clear();
     }
 
@@ -152,16 +169,19 @@ public class JsonArray implements List<JsonValue> {
 
     @Override
     public JsonValue set(int index, JsonValue element) {
+        changed();
         return data.set(index, element == null ? new JsonValue() : element);
     }
 
     @Override
     public void add(int index, JsonValue element) {
+        changed();
         data.add(index, element == null ? new JsonValue() : element);
     }
 
     @Override
     public JsonValue remove(int index) {
+        changed();
         return data.remove(index);
     }
 
@@ -177,17 +197,43 @@ public class JsonArray implements List<JsonValue> {
 
     @Override
     public ListIterator<JsonValue> listIterator() {
-        return data.listIterator();
+        return TrackedViews.listIterator(data.listIterator(), this::changed);
     }
 
     @Override
     public ListIterator<JsonValue> listIterator(int index) {
-        return data.listIterator(index);
+        return TrackedViews.listIterator(data.listIterator(index), this::changed);
     }
 
     @Override
     public List<JsonValue> subList(int fromIndex, int toIndex) {
-        return data.subList(fromIndex, toIndex);
+        return TrackedViews.list(data.subList(fromIndex, toIndex), this::changed);
+    }
+
+    @Override
+    public void forEach(Consumer<? super JsonValue> action) {
+        data.forEach(action);
+    }
+
+    private void changed() {
+        if (hash != null) {
+            hash = null;
+            Hashes.invalidate();
+        }
+    }
+
+    /**
+     * Trims the capacity of this array and all objects and arrays in it to their sizes, e.g. for values that are
+     * kept for a long time.
+     */
+    public void trimToSize() {
+        CapacityHints.trimToSize(this);
+    }
+
+    void trim() {
+        if (data instanceof ArrayList) {
+            ((ArrayList<JsonValue>) data).trimToSize();
+        }
     }
 
     public String getString(int index) {
@@ -231,125 +277,173 @@ public class JsonArray implements List<JsonValue> {
     }
 
     public JsonArray add(String value) {
-        data.add(new JsonValue(value));
+        add(new JsonValue(value));
 
         return this;
     }
 
     public JsonArray add(JsonArray value) {
-        data.add(new JsonValue(value));
+        add(new JsonValue(value));
 
         return this;
     }
 
     public JsonArray add(JsonObject value) {
-        data.add(new JsonValue(value));
+        add(new JsonValue(value));
 
         return this;
     }
 
     public JsonArray add(byte value) {
-        data.add(new JsonValue(value));
+        add(new JsonValue(value));
 
         return this;
     }
 
     public JsonArray add(short value) {
-        data.add(new JsonValue(value));
+        add(new JsonValue(value));
 
         return this;
     }
 
     public JsonArray add(int value) {
-        data.add(new JsonValue(value));
+        add(new JsonValue(value));
 
         return this;
     }
 
     public JsonArray add(long value) {
-        data.add(new JsonValue(value));
+        add(new JsonValue(value));
 
         return this;
     }
 
     public JsonArray add(float value) {
-        data.add(new JsonValue(value));
+        add(new JsonValue(value));
 
         return this;
     }
 
     public JsonArray add(double value) {
-        data.add(new JsonValue(value));
+        add(new JsonValue(value));
 
         return this;
     }
 
     public JsonArray add(boolean value) {
-        data.add(new JsonValue(value));
+        add(new JsonValue(value));
 
         return this;
     }
 
     public JsonArray set(int index, String value) {
-        data.set(index, new JsonValue(value));
+        set(index, new JsonValue(value));
 
         return this;
     }
 
     public JsonArray set(int index, JsonArray value) {
-        data.set(index, new JsonValue(value));
+        set(index, new JsonValue(value));
 
         return this;
     }
 
     public JsonArray set(int index, JsonObject value) {
-        data.set(index, new JsonValue(value));
+        set(index, new JsonValue(value));
 
         return this;
     }
 
     public JsonArray set(int index, byte value) {
-        data.set(index, new JsonValue(value));
+        set(index, new JsonValue(value));
 
         return this;
     }
 
     public JsonArray set(int index, short value) {
-        data.set(index, new JsonValue(value));
+        set(index, new JsonValue(value));
 
         return this;
     }
 
     public JsonArray set(int index, int value) {
-        data.set(index, new JsonValue(value));
+        set(index, new JsonValue(value));
 
         return this;
     }
 
     public JsonArray set(int index, long value) {
-        data.set(index, new JsonValue(value));
+        set(index, new JsonValue(value));
 
         return this;
     }
 
     public JsonArray set(int index, float value) {
-        data.set(index, new JsonValue(value));
+        set(index, new JsonValue(value));
 
         return this;
     }
 
     public JsonArray set(int index, double value) {
-        data.set(index, new JsonValue(value));
+        set(index, new JsonValue(value));
 
         return this;
     }
 
     public JsonArray set(int index, boolean value) {
-        data.set(index, new JsonValue(value));
+        set(index, new JsonValue(value));
 
         return this;
     }
 
+    /**
+     * The hash code is cached until this array or any value in it changes.
+     */
+    @Override
+    public int hashCode() {
+        Hashes.Cached cached = hash;
+        long epoch = Hashes.epoch();
+        if (Hashes.isValid(cached, epoch)) {
+            return cached.hash;
+        }
+
+        int hash = 1;
+        for (JsonValue element : data) {
+            hash = 31 * hash + Objects.hashCode(element);
+        }
+        this.hash = new Hashes.Cached(hash, epoch);
+
+        return hash;
+    }
+
+    /**
+     * Compares the elements deeply, numbers are compared by their value. Arrays whose cached hash codes differ are not
+     * compared further.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof JsonArray)) {
+            return obj instanceof List && data.equals(obj);
+        }
+
+        JsonArray other = (JsonArray) obj;
+        int size = data.size();
+        if (size != other.data.size() || Hashes.differ(hash, other.hash)) {
+            return false;
+        }
+
+        for (int i = 0; i < size; i++) {
+            if (!Objects.equals(data.get(i), other.data.get(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     @Override
     public String toString() {
         StringJoiner joiner = new StringJoiner(",", "[", "]");
@@ -0,0 +1,21 @@
+package com.odinallfather.json;
+
+/**
+ * Receives the {@link JsonMetrics} of each top-level value a {@link JsonParser} reads or a {@link JsonPrinter}
+ * prints. The parser and printer only measure while a listener is set, otherwise they skip all bookkeeping.
+ */
+@FunctionalInterface
+public interface JsonListener {
+
+    /**
+     * Called before the value is read or printed, the metrics are still empty.
+     */
+    default void started(JsonMetrics metrics) {
+    }
+
+    /**
+     * Called after the value was read or printed, or the operation failed.
+     */
+    void finished(JsonMetrics metrics);
+
+}
@@ -0,0 +1,152 @@
+package com.odinallfather.json;
+
+/**
+ * Measurements of parsing or printing one top-level value, passed to a {@link JsonListener}.
+ */
+public final class JsonMetrics {
+
+    public static final byte PARSE = 0;
+    public static final byte PRINT = 1;
+
+    private final byte operation;
+    long startTime;
+    long elapsedTime;
+    long chars;
+    int depth;
+    int maxDepth;
+    long objects;
+    long arrays;
+    long names;
+    long strings;
+    long numbers;
+    long literals;
+    Throwable error;
+    private Object attachment;
+
+    JsonMetrics(byte operation) {
+        this.operation = operation;
+    }
+
+    void enter() {
+        if (++depth > maxDepth) {
+            maxDepth = depth;
+        }
+    }
+
+    void exit() {
+        depth--;
+    }
+
+    /**
+     * Counts a scalar value by its first character.
+     */
+    void scalar(int chr) {
+        if (chr == '\"') {
+            strings++;
+        } else if (chr == 't' || chr == 'f' || chr == 'n') {
+            literals++;
+        } else if (chr == '-' || (chr >= '0' && chr <= '9')) {
+            numbers++;
+        }
+    }
+
+    /**
+     * @return {@link #PARSE} or {@link #PRINT}
+     */
+    public byte getOperation() {
+        return operation;
+    }
+
+    /**
+     * @return the start in the time of {@link System#nanoTime()}
+     */
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * @return the duration in nanoseconds, 0 while the operation runs
+     */
+    public long getElapsedTime() {
+        return elapsedTime;
+    }
+
+    /**
+     * @return the characters read or written, including whitespaces
+     */
+    public long getChars() {
+        return chars;
+    }
+
+    /**
+     * @return the deepest nesting of objects and arrays, 0 for a scalar
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public long getObjectCount() {
+        return objects;
+    }
+
+    public long getArrayCount() {
+        return arrays;
+    }
+
+    /**
+     * @return the number of object entries
+     */
+    public long getNameCount() {
+        return names;
+    }
+
+    public long getStringCount() {
+        return strings;
+    }
+
+    public long getNumberCount() {
+        return numbers;
+    }
+
+    /**
+     * @return the number of true, false and null values
+     */
+    public long getLiteralCount() {
+        return literals;
+    }
+
+    /**
+     * @return the number of values and names
+     */
+    public long getTokenCount() {
+        return objects + arrays + names + strings + numbers + literals;
+    }
+
+    /**
+     * @return the exception the operation failed with or null
+     */
+    public Throwable getError() {
+        return error;
+    }
+
+    /**
+     * @return the object the listener attached or null
+     */
+    public Object getAttachment() {
+        return attachment;
+    }
+
+    /**
+     * Attaches an object, e.g. in {@link JsonListener#started(JsonMetrics)} to use it when the operation finished.
+     */
+    public void setAttachment(Object attachment) {
+        this.attachment = attachment;
+    }
+
+    @Override
+    public String toString() {
+        return (operation == PARSE ? "parse" : "print") + "[chars=" + chars + " tokens=" + getTokenCount() + " maxDepth="
+                + maxDepth + " elapsed=" + elapsedTime + "ns" + (error == null ? "" : " error=" + error) + "]";
+    }
+
+}
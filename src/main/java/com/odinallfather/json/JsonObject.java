@@ -5,34 +5,88 @@ import java.io.InputStream;
 import java.io.Reader;
 import java.nio.charset.Charset;
 import java.util.*;
+import java.util.function.BiConsumer;
 
 public class JsonObject implements Map<String, JsonValue> {
 
-    private Map<String, JsonValue> data = new LinkedHashMap<>();
+    private Map<String, JsonValue> data;
+    // The cached hash code and its epoch, see Hashes
+    private volatile Hashes.Cached hash;
 
     public JsonObject() {
+        data = new LinkedHashMap<>();
+    }
+
+    /**
+     * Creates an object that holds the number of entries without growing.
+     */
+    public JsonObject(int initialSize) {
+        data = new LinkedHashMap<>(capacity(initialSize));
+    }
+
+    private static int capacity(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("initialSize may not be negative");
+        }
+
+        return (int) Math.min(size / 0.75 + 1, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates an object backed by the given map, for subclasses that store their entries differently.
+     */
+    protected JsonObject(Map<String, JsonValue> data) {
+        this.data = Objects.requireNonNull(data, "data may not be null");
     }
 
     @SuppressWarnings("resource")
     public JsonObject(String in) throws IOException {
+        this();
+
         new JsonParser(in).readObject(this);
     }
 
     @SuppressWarnings("resource")
     public JsonObject(Reader in) throws IOException {
+        this();
+
         new JsonParser(in).readObject(this);
     }
 
     @SuppressWarnings("resource")
     public JsonObject(InputStream in) throws IOException {
+        this();
+
         new JsonParser(in).readObject(this);
     }
 
     @SuppressWarnings("resource")
     public JsonObject(InputStream in, Charset charset) throws IOException {
+        this();
+
         new JsonParser(in, charset).readObject(this);
     }
 
+    /**
+     * Creates an object that only stores its values, its keys are shared with all other such objects with the same
+     * keys in the same order. Records with the same fields take a fraction of the memory and look up keys faster.
+     * Objects with more than 64 keys switch to storing their entries like other objects.
+     */
+    public static JsonObject shaped() {
+        return new JsonObject(new ShapedMap());
+    }
+
+    /**
+     * Creates a {@link #shaped()} object that holds the number of entries without growing.
+     */
+    public static JsonObject shaped(int initialSize) {
+        if (initialSize < 0) {
+            throw new IllegalArgumentException("initialSize may not be negative");
+        }
+
+        return new JsonObject(new ShapedMap(initialSize));
+    }
+
     public static JsonObject copyOf(Map<String, ?> map) {
         JsonObject object = new JsonObject();
 
@@ -68,101 +122,150 @@ public class JsonObject implements Map<String, JsonValue> {
 
     @Override
     public JsonValue put(String key, JsonValue value) {
+        changed();
         return data.put(key, value);
     }
 
     @Override
     public JsonValue remove(Object key) {
+        changed();
         return data.remove(key);
     }
 
     @Override
     public void putAll(Map<? extends String, ? extends JsonValue> m) {
+        changed();
         data.putAll(m);
     }
 
     @Override
     public void clear() {
+        changed();
         data.clear();
     }
 
     @Override
     public Set<String> keySet() {
-        return data.keySet();
+        return TrackedViews.set(data.keySet(), this::changed);
     }
 
     @Override
     public Collection<JsonValue> values() {
-        return data.values();
+        return TrackedViews.collection(data.values(), this::changed);
     }
 
     @Override
     public Set<Entry<String, JsonValue>> entrySet() {
+        return TrackedViews.entrySet(data.entrySet(), this::changed);
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super JsonValue> action) {
+        data.forEach(action);
+    }
+
+    /**
+     * @return the shape of the keys if it is a {@link #shaped()} object, otherwise null
+     */
+    Shape shape() {
+        return data instanceof ShapedMap ? ((ShapedMap) data).shape() : null;
+    }
+
+    /**
+     * @return the entries for reading, without tracking changes
+     */
+    Set<Entry<String, JsonValue>> entries() {
         return data.entrySet();
     }
 
+    private void changed() {
+        if (hash != null) {
+            hash = null;
+            Hashes.invalidate();
+        }
+    }
+
+    /**
+     * Trims the capacity of this object and all objects and arrays in it to their sizes, e.g. for values that are
+     * kept for a long time.
+     */
+    public void trimToSize() {
+        CapacityHints.trimToSize(this);
+    }
+
+    void trim() {
+        // Maps of subclasses may not be copied
+        if (data.getClass() == LinkedHashMap.class) {
+            Map<String, JsonValue> trimmed = new LinkedHashMap<>(capacity(data.size()));
+            trimmed.putAll(data);
+            data = trimmed;
+        } else if (data instanceof ShapedMap) {
+            ((ShapedMap) data).trimToSize();
+        }
+    }
+
     public JsonObject put(String key, Object value) {
-        data.put(key, new JsonValue(value));
+        put(key, new JsonValue(value));
 
         return this;
     }
 
     public JsonObject put(String key, String value) {
-        data.put(key, new JsonValue(value));
+        put(key, new JsonValue(value));
 
         return this;
     }
 
     public JsonObject put(String key, JsonArray value) {
-        data.put(key, new JsonValue(value));
+        put(key, new JsonValue(value));
 
         return this;
     }
 
     public JsonObject put(String key, JsonObject value) {
-        data.put(key, new JsonValue(value));
+        put(key, new JsonValue(value));
 
         return this;
     }
 
     public JsonObject put(String key, byte value) {
-        data.put(key, new JsonValue(value));
+        put(key, new JsonValue(value));
 
         return this;
     }
 
     public JsonObject put(String key, short value) {
-        data.put(key, new JsonValue(value));
+        put(key, new JsonValue(value));
 
         return this;
     }
 
     public JsonObject put(String key, int value) {
-        data.put(key, new JsonValue(value));
+        put(key, new JsonValue(value));
 
         return this;
     }
 
     public JsonObject put(String key, long value) {
-        data.put(key, new JsonValue(value));
+        put(key, new JsonValue(value));
 
         return this;
     }
 
     public JsonObject put(String key, float value) {
-        data.put(key, new JsonValue(value));
+        put(key, new JsonValue(value));
 
         return this;
     }
 
     public JsonObject put(String key, double value) {
-        data.put(key, new JsonValue(value));
+        put(key, new JsonValue(value));
 
         return this;
     }
 
     public JsonObject put(String key, boolean value) {
-        data.put(key, new JsonValue(value));
+        put(key, new JsonValue(value));
 
         return this;
     }
@@ -291,6 +394,56 @@ public class JsonObject implements Map<String, JsonValue> {
         return value == null ? fallback : value.asBoolean();
     }
 
+    /**
+     * The hash code is cached until this object or any value in it changes.
+     */
+    @Override
+    public int hashCode() {
+        Hashes.Cached cached = hash;
+        long epoch = Hashes.epoch();
+        if (Hashes.isValid(cached, epoch)) {
+            return cached.hash;
+        }
+
+        int hash = 0;
+        for (Entry<String, JsonValue> entry : data.entrySet()) {
+            hash += entry.getKey().hashCode() ^ Objects.hashCode(entry.getValue());
+        }
+        this.hash = new Hashes.Cached(hash, epoch);
+
+        return hash;
+    }
+
+    /**
+     * Compares the entries deeply, numbers are compared by their value. Objects whose cached hash codes differ are
+     * not compared further.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof JsonObject)) {
+            return obj instanceof Map && data.equals(obj);
+        }
+
+        JsonObject other = (JsonObject) obj;
+        if (data.size() != other.data.size() || Hashes.differ(hash, other.hash)) {
+            return false;
+        }
+
+        for (Entry<String, JsonValue> entry : data.entrySet()) {
+            JsonValue value = entry.getValue();
+            JsonValue otherValue = other.data.get(entry.getKey());
+
+            if (value == null ? otherValue != null || !other.data.containsKey(entry.getKey()) : !value.equals(otherValue)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     @Override
     public String toString() {
         StringJoiner joiner = new StringJoiner(",", "{", "}");
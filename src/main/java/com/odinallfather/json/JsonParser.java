@@ -2,15 +2,62 @@ package com.odinallfather.json;
 
 import java.io.*;
 import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Objects;
 
 public class JsonParser implements Closeable {
 
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    // The largest fraction that is exactly representable as a double
+    private static final long MAX_EXACT_FRACTION = 1L << 53;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static volatile JsonListener defaultListener;
+
     private int peekedCharcode = -1;
     private Reader in;
 
+    private char[] buffer;
+    private int position;
+    // Where scanning stops, before the end of the buffer if the maximum document size is reached
+    private int limit;
+    private int end;
+    // The number of characters before the start of the buffer
+    private long bufferOffset;
+
+    private int maxDepth = Integer.MAX_VALUE;
+    private int maxStringLength = Integer.MAX_VALUE;
+    private int maxNumberLength = Integer.MAX_VALUE;
+    private int maxEntries = Integer.MAX_VALUE;
+    private long maxDocumentSize = Long.MAX_VALUE;
+
+    // The containers enclosing the one being read, skipValue() stores whether they are objects instead
+    private Object[] parents = new Object[16];
+    private int[] parentCounts = new int[16];
+
+    private boolean shapedObjects;
+    private CapacityHints capacityHints;
+    // The hint nodes of the containers being read by depth, including the innermost one
+    private CapacityHints.Node[] parentNodes;
+
+    private JsonListener listener = defaultListener;
+    // Only set while a top-level value is read with a listener
+    private JsonMetrics metrics;
+
+    private char[] chars = new char[64];
+    private long numberFraction;
+    private int numberScale;
+    private boolean numberFloating;
+    // Whether non-zero digits beyond the precision of a long were dropped from the fraction
+    private boolean numberInexact;
+
     public JsonParser(String in) {
         this(new StringReader(in));
     }
@@ -25,6 +72,169 @@ public class JsonParser implements Closeable {
 
     public JsonParser(Reader in) {
         this.in = Objects.requireNonNull(in, "in may not be null");
+        this.buffer = new char[BUFFER_SIZE];
+    }
+
+    /**
+     * Parses the characters of the array directly, without copying them.
+     */
+    public JsonParser(char[] in, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, in.length);
+
+        this.buffer = in;
+        this.position = offset;
+        this.limit = offset + length;
+        this.end = limit;
+        this.bufferOffset = -offset;
+    }
+
+    /**
+     * Sets the listener of parsers created afterwards, e.g. to monitor all parsing in an application.
+     */
+    public static void setDefaultListener(JsonListener listener) {
+        defaultListener = listener;
+    }
+
+    public static JsonListener getDefaultListener() {
+        return defaultListener;
+    }
+
+    /**
+     * Sets the listener that receives the metrics of each value read by {@link #readValue()}, {@link #readObject()}
+     * or {@link #readArray()}, null to stop measuring.
+     */
+    public void setListener(JsonListener listener) {
+        this.listener = listener;
+    }
+
+    public JsonListener getListener() {
+        return listener;
+    }
+
+    /**
+     * Limits how deeply objects and arrays may be nested, the top-level object or array has a depth of one. Nesting
+     * is not limited by the call stack, so without this limit a document may be nested as deeply as memory allows.
+     */
+    public void setMaxDepth(int maxDepth) {
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("maxDepth may not be negative");
+        }
+        this.maxDepth = maxDepth;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Limits the number of characters of strings and names that are read, escape sequences count as one character.
+     */
+    public void setMaxStringLength(int maxStringLength) {
+        if (maxStringLength < 0) {
+            throw new IllegalArgumentException("maxStringLength may not be negative");
+        }
+        this.maxStringLength = maxStringLength;
+    }
+
+    public int getMaxStringLength() {
+        return maxStringLength;
+    }
+
+    /**
+     * Limits the number of characters of numbers that are read, including the sign, decimal point and exponent.
+     */
+    public void setMaxNumberLength(int maxNumberLength) {
+        if (maxNumberLength < 1) {
+            throw new IllegalArgumentException("maxNumberLength must be positive");
+        }
+        this.maxNumberLength = maxNumberLength;
+    }
+
+    public int getMaxNumberLength() {
+        return maxNumberLength;
+    }
+
+    /**
+     * Limits the number of entries of each object and elements of each array that are read.
+     */
+    public void setMaxEntries(int maxEntries) {
+        if (maxEntries < 0) {
+            throw new IllegalArgumentException("maxEntries may not be negative");
+        }
+        this.maxEntries = maxEntries;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Limits the number of characters this parser reads in total, including whitespaces and all values read so far.
+     */
+    public void setMaxDocumentSize(long maxDocumentSize) {
+        if (maxDocumentSize < 0) {
+            throw new IllegalArgumentException("maxDocumentSize may not be negative");
+        }
+        this.maxDocumentSize = maxDocumentSize;
+        updateLimit();
+    }
+
+    public long getMaxDocumentSize() {
+        return maxDocumentSize;
+    }
+
+    /**
+     * Reads objects as {@link JsonObject#shaped() shaped objects}, which share their keys with all objects with the
+     * same keys, e.g. for arrays of records.
+     */
+    public void setShapedObjects(boolean shapedObjects) {
+        this.shapedObjects = shapedObjects;
+    }
+
+    public boolean isShapedObjects() {
+        return shapedObjects;
+    }
+
+    /**
+     * Sets the hints that objects and arrays are created with, null to create them with the default capacity.
+     */
+    public void setCapacityHints(CapacityHints capacityHints) {
+        this.capacityHints = capacityHints;
+        if (capacityHints != null && parentNodes == null) {
+            parentNodes = new CapacityHints.Node[parents.length];
+        }
+    }
+
+    public CapacityHints getCapacityHints() {
+        return capacityHints;
+    }
+
+    private <T> T measure(Operation<T> operation) throws IOException {
+        JsonMetrics metrics = new JsonMetrics(JsonMetrics.PARSE);
+        JsonListener listener = this.listener;
+        long start = getCharOffset();
+
+        listener.started(metrics);
+        metrics.startTime = System.nanoTime();
+        this.metrics = metrics;
+        try {
+            return operation.run();
+        } catch (Throwable exception) {
+            metrics.error = exception;
+            throw exception;
+        } finally {
+            this.metrics = null;
+            metrics.elapsedTime = System.nanoTime() - metrics.startTime;
+            metrics.chars = getCharOffset() - start;
+            listener.finished(metrics);
+        }
+    }
+
+    /**
+     * @return the number of characters read so far
+     */
+    public long getCharOffset() {
+        return bufferOffset + position - (peekedCharcode == -1 ? 0 : 1);
     }
 
     public static JsonValue parse(String in) throws IOException {
@@ -52,17 +262,31 @@ public class JsonParser implements Closeable {
     }
 
     public JsonValue readValue() throws IOException {
+        if (listener != null && metrics == null) {
+            return measure(this::readValue);
+        }
+
         int chr = skipWhitespaces();
+        if (metrics != null) {
+            metrics.scalar(chr);
+        }
 
         switch (chr) {
             // @formatter:off
+            case '{': return new JsonValue(readNested(newObject(capacityHints == null ? null : capacityHints.root())));
+            case '[': return new JsonValue(readNested(newArray(capacityHints == null ? null : capacityHints.root())));
+            default: return readScalar(chr);
+            // @formatter:on
+        }
+    }
+
+    /**
+     * @return the string, number or literal starting with the character, null if no value starts with it
+     */
+    private JsonValue readScalar(int chr) throws IOException {
+        switch (chr) {
             case '\"':
                 return new JsonValue(readRemainingString());
-            case '{':
-                return new JsonValue(readRemainingObject(new JsonObject()));
-            case '[':
-                return new JsonValue(readRemainingArray(new JsonArray()));
-            // @formatter:on
             case 't':
                 readRemainingTrue();
                 return new JsonValue(true);
@@ -98,8 +322,57 @@ public class JsonParser implements Closeable {
         return readRemainingString();
     }
 
+    /**
+     * Reads the next name into the {@link #getNameBuffer() name buffer} instead of creating a String.
+     *
+     * @return the length of the name
+     */
+    public int readRawName() throws IOException {
+        if (skipWhitespaces() != '\"') {
+            throw new JsonException("Invalid string");
+        }
+
+        int length = readRemainingChars();
+
+        if (skipWhitespaces() != ':') {
+            throw new JsonException("Missing colon");
+        }
+
+        return length;
+    }
+
+    /**
+     * Reads the next string into the {@link #getNameBuffer() name buffer} instead of creating a String.
+     *
+     * @return the length of the string
+     */
+    public int readRawString() throws IOException {
+        if (skipWhitespaces() != '\"') {
+            throw new JsonException("Invalid string");
+        }
+
+        return readRemainingChars();
+    }
+
+    /**
+     * @return the buffer holding the name or string read by {@link #readRawName()} or {@link #readRawString()}, which
+     * is only valid until the next string or name is read
+     */
+    public char[] getNameBuffer() {
+        return chars;
+    }
+
     private String readRemainingString() throws IOException {
-        StringBuilder builder = new StringBuilder(64);
+        int length = readRemainingChars(); // Before accessing chars, reading may grow the buffer
+
+        return new String(chars, 0, length);
+    }
+
+    private int readRemainingChars() throws IOException {
+        char[] chars = this.chars;
+        int length = 0;
+        // Growing the buffer and the maximum length are checked at once
+        int bound = Math.min(chars.length, maxStringLength);
 
         int chr;
         while ((chr = next()) != '\"') {
@@ -108,46 +381,148 @@ public class JsonParser implements Closeable {
                     case '\"':
                     case '\\':
                     case '/':
-                        builder.appendCodePoint(chr);
                         break;
                     case 'b':
-                        builder.append('\b');
+                        chr = '\b';
                         break;
                     case 'f':
-                        builder.append('\f');
+                        chr = '\f';
                         break;
                     case 'n':
-                        builder.append('\n');
+                        chr = '\n';
                         break;
                     case 'r':
-                        builder.append('\r');
+                        chr = '\r';
                         break;
                     case 't':
-                        builder.append('\t');
+                        chr = '\t';
                         break;
                     case 'u':
                         int charcode = 0;
                         for (int n = 0; n < 4; n++) {
-                            int digit = hexDigit(chr);
+                            int digit = hexDigit(next());
                             if (digit == -1) {
                                 throw new JsonException("Invalid unicode escape sequence");
                             }
                             charcode = charcode * 16 + digit; // value = value * radix + digit
                         }
-                        builder.appendCodePoint(charcode);
+                        chr = charcode;
                         break;
                     default:
                         throw new JsonException("Invalid escape sequence");
                 }
+            } else if (Character.isISOControl(chr)) {
+                throw new JsonException("Invalid character");
+            }
+
+            if (length == bound) {
+                if (length == maxStringLength) {
+                    throw new JsonException("String exceeds the maximum length of " + maxStringLength);
+                }
+                chars = this.chars = Arrays.copyOf(chars, length << 1);
+                bound = Math.min(chars.length, maxStringLength);
+            }
+            chars[length++] = (char) chr;
+        }
+
+        return length;
+    }
+
+    private void skipRemainingString() throws IOException {
+        int chr;
+        while ((chr = next()) != '\"') {
+            if (chr == '\\') {
+                next(); // The escaped character can't end the string, a unicode escape sequence only has hex digits
+            } else if (Character.isISOControl(chr)) {
+                throw new JsonException("Invalid character");
+            }
+        }
+    }
+
+    /**
+     * Skips the next value without creating any objects for it. Only the depth and size of the document are limited.
+     */
+    public void skipValue() throws IOException {
+        Object[] parents = this.parents;
+        int depth = 0;
+
+        for (; ; ) {
+            int chr = skipWhitespaces();
+
+            if (chr == '{' || chr == '[') {
+                boolean object = chr == '{';
+                if (depth == maxDepth) {
+                    throw new JsonException("Document exceeds the maximum depth of " + maxDepth);
+                }
+
+                if (peekSkipWhitespaces() != (object ? '}' : ']')) {
+                    if (depth == parents.length) {
+                        growParents();
+                        parents = this.parents;
+                    }
+                    parents[depth++] = object ? Boolean.TRUE : Boolean.FALSE;
+
+                    if (object) {
+                        skipName();
+                    }
+                    continue;
+                }
+                nextUnchecked();
             } else {
-                if (Character.isISOControl(chr)) {
-                    throw new JsonException("Invalid character");
+                skipScalar(chr);
+            }
+
+            // Close all containers that end after the value
+            for (; ; ) {
+                if (depth == 0) {
+                    return;
+                }
+
+                if (parents[depth - 1] == Boolean.TRUE) {
+                    if (nextEntry()) {
+                        skipName();
+                        break;
+                    }
+                } else if (nextElement()) {
+                    break;
                 }
-                builder.appendCodePoint(chr);
+
+                parents[--depth] = null;
             }
         }
+    }
 
-        return builder.toString();
+    private void skipName() throws IOException {
+        if (skipWhitespaces() != '\"') {
+            throw new JsonException("Invalid string");
+        }
+        skipRemainingString();
+        if (skipWhitespaces() != ':') {
+            throw new JsonException("Missing colon");
+        }
+    }
+
+    private void skipScalar(int chr) throws IOException {
+        switch (chr) {
+            case '\"':
+                skipRemainingString();
+                break;
+            case 't':
+                readRemainingTrue();
+                break;
+            case 'f':
+                readRemainingFalse();
+                break;
+            case 'n':
+                readRemainingNull();
+                break;
+            default:
+                if (chr == '-' || (chr >= '0' && chr <= '9')) {
+                    scanNumber(chr);
+                    break;
+                }
+                throw new JsonException("Invalid value");
+        }
     }
 
     public JsonObject readObject() throws IOException {
@@ -155,31 +530,51 @@ public class JsonParser implements Closeable {
     }
 
     public <T extends Map<String, JsonValue>> T readObject(T dest) throws IOException {
+        if (listener != null && metrics == null) {
+            return measure(() -> readObject(dest));
+        }
+
         if (skipWhitespaces() != '{') {
             throw new JsonException("Invalid object");
         }
 
-        return readRemainingObject(dest);
+        return readNested(dest);
     }
 
-    private <T extends Map<String, JsonValue>> T readRemainingObject(T object) throws IOException {
+    /**
+     * Reads the opening bracket of an object. The entries are then read with {@link #readName()} followed by a value
+     * and {@link #nextEntry()}.
+     *
+     * @return false if the object is empty and already closed
+     */
+    public boolean beginObject() throws IOException {
+        if (skipWhitespaces() != '{') {
+            throw new JsonException("Invalid object");
+        }
+
         if (peekSkipWhitespaces() == '}') {
             nextUnchecked();
-            return object;
+            return false;
         }
 
-        for (; ; ) {
-            object.put(readName(), readValue());
-            int chr = skipWhitespaces();
-            if (chr == '}') {
-                break;
-            }
-            if (chr != ',') {
-                throw new JsonException("Expected right curly bracket or comma");
-            }
+        return true;
+    }
+
+    /**
+     * Reads the separator after an object entry.
+     *
+     * @return true if another entry follows, false if the object is closed
+     */
+    public boolean nextEntry() throws IOException {
+        int chr = skipWhitespaces();
+        if (chr == ',') {
+            return true;
+        }
+        if (chr != '}') {
+            throw new JsonException("Expected right curly bracket or comma");
         }
 
-        return object;
+        return false;
     }
 
     public JsonArray readArray() throws IOException {
@@ -187,35 +582,231 @@ public class JsonParser implements Closeable {
     }
 
     public <T extends Collection<JsonValue>> T readArray(T dest) throws IOException {
+        if (listener != null && metrics == null) {
+            return measure(() -> readArray(dest));
+        }
+
         if (skipWhitespaces() != '[') {
             throw new JsonException("Invalid array");
         }
 
-        return readRemainingArray(dest);
+        return readNested(dest);
     }
 
-    private <T extends Collection<JsonValue>> T readRemainingArray(T array) throws IOException {
-        if (peekSkipWhitespaces() == ']') {
-            nextUnchecked();
-            return array;
+    /**
+     * Reads the rest of the object or array whose opening bracket was read, with all nested values. The enclosing
+     * containers of nested values are kept in {@link #parents} instead of on the call stack.
+     *
+     * @param root a map for an object or a collection for an array
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T readNested(T root) throws IOException {
+        boolean object = root instanceof Map;
+        if (capacityHints != null) {
+            parentNodes[0] = capacityHints.root();
+        }
+        if (!open(object, 1)) {
+            closed(1, 0);
+            return root;
         }
 
+        Object[] parents = this.parents;
+        int[] parentCounts = this.parentCounts;
+        int depth = 1;
+        Object container = root;
+        int count = 0;
+
         for (; ; ) {
-            array.add(readValue());
+            if (++count > maxEntries) {
+                throw new JsonException((object ? "Object" : "Array") + " exceeds the maximum of " + maxEntries + " entries");
+            }
+
+            String name = null;
+            if (object) {
+                if (metrics != null) {
+                    metrics.names++;
+                }
+                name = readName();
+            }
+
             int chr = skipWhitespaces();
-            if (chr == ']') {
-                break;
+            if (metrics != null) {
+                metrics.scalar(chr);
+            }
+
+            boolean nested = chr == '{' || chr == '[';
+            JsonValue value;
+            if (nested) {
+                value = newNested(chr == '{', object, name, depth);
+            } else if ((value = readScalar(chr)) == null) {
+                throw new JsonException("Invalid value");
+            }
+
+            if (object) {
+                ((Map<String, JsonValue>) container).put(name, value);
+            } else {
+                ((Collection<JsonValue>) container).add(value);
+            }
+
+            if (nested) {
+                if (open(chr == '{', depth + 1)) {
+                    if (depth > parents.length) {
+                        growParents();
+                        parents = this.parents;
+                        parentCounts = this.parentCounts;
+                    }
+                    parents[depth - 1] = container;
+                    parentCounts[depth - 1] = count;
+                    depth++;
+
+                    container = value.getValue();
+                    object = chr == '{';
+                    count = 0;
+                    continue;
+                }
+                closed(depth + 1, 0);
+            }
+
+            // Close all containers that end after the value
+            while (object ? !nextEntry() : !nextElement()) {
+                if (metrics != null) {
+                    metrics.exit();
+                }
+                closed(depth, count);
+                if (--depth == 0) {
+                    return root;
+                }
+
+                container = parents[depth - 1];
+                parents[depth - 1] = null;
+                count = parentCounts[depth - 1];
+                object = container instanceof Map;
+            }
+        }
+    }
+
+    /**
+     * Checks the depth of an object or array whose opening bracket was read.
+     *
+     * @return false if it is empty and already closed
+     */
+    private boolean open(boolean object, int depth) throws IOException {
+        if (depth > maxDepth) {
+            throw new JsonException("Document exceeds the maximum depth of " + maxDepth);
+        }
+
+        if (metrics != null) {
+            if (object) {
+                metrics.objects++;
+            } else {
+                metrics.arrays++;
+            }
+            metrics.enter();
+        }
+
+        if (peekSkipWhitespaces() == (object ? '}' : ']')) {
+            nextUnchecked();
+            if (metrics != null) {
+                metrics.exit();
+            }
+            return false;
+        }
+
+        return true;
+    }
+
+    private void growParents() {
+        parents = Arrays.copyOf(parents, parents.length << 1);
+        parentCounts = Arrays.copyOf(parentCounts, parents.length);
+    }
+
+    /**
+     * Creates an object or array in the current container, with the capacity hinted for its path.
+     */
+    private JsonValue newNested(boolean object, boolean inObject, String name, int depth) {
+        CapacityHints.Node node = null;
+
+        if (capacityHints != null) {
+            CapacityHints.Node parent = parentNodes[depth - 1];
+            if (parent != null) {
+                node = inObject ? capacityHints.field(parent, name) : capacityHints.elements(parent);
             }
-            if (chr != ',') {
-                throw new JsonException("Expected right square bracket or comma");
+
+            if (depth == parentNodes.length) {
+                parentNodes = Arrays.copyOf(parentNodes, depth << 1);
             }
+            parentNodes[depth] = node;
+        }
+
+        return object ? new JsonValue(newObject(node)) : new JsonValue(newArray(node));
+    }
+
+    private JsonObject newObject(CapacityHints.Node node) {
+        int size = node == null ? -1 : node.size;
+
+        if (shapedObjects) {
+            return size == -1 ? JsonObject.shaped() : JsonObject.shaped(size);
         }
+        return size == -1 ? new JsonObject() : new JsonObject(size);
+    }
 
-        return array;
+    private static JsonArray newArray(CapacityHints.Node node) {
+        int size = node == null ? -1 : node.size;
+
+        return size == -1 ? new JsonArray() : new JsonArray(size);
+    }
+
+    /**
+     * Learns the size of an object or array that was read.
+     */
+    private void closed(int depth, int size) {
+        if (capacityHints != null) {
+            CapacityHints.Node node = parentNodes[depth - 1];
+            if (node != null) {
+                capacityHints.record(node, size);
+                parentNodes[depth - 1] = null;
+            }
+        }
+    }
+
+    /**
+     * Reads the opening bracket of an array. The elements are then read as values followed by
+     * {@link #nextElement()}.
+     *
+     * @return false if the array is empty and already closed
+     */
+    public boolean beginArray() throws IOException {
+        if (skipWhitespaces() != '[') {
+            throw new JsonException("Invalid array");
+        }
+
+        if (peekSkipWhitespaces() == ']') {
+            nextUnchecked();
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Reads the separator after an array element.
+     *
+     * @return true if another element follows, false if the array is closed
+     */
+    public boolean nextElement() throws IOException {
+        int chr = skipWhitespaces();
+        if (chr == ',') {
+            return true;
+        }
+        if (chr != ']') {
+            throw new JsonException("Expected right square bracket or comma");
+        }
+
+        return false;
     }
 
     public boolean readBoolean() throws IOException {
-        int chr = next();
+        int chr = skipWhitespaces();
 
         if (chr == 't') {
             readRemainingTrue();
@@ -228,6 +819,14 @@ public class JsonParser implements Closeable {
         throw new JsonException("Invalid boolean");
     }
 
+    public void readNull() throws IOException {
+        if (skipWhitespaces() != 'n') {
+            throw new JsonException("Invalid null");
+        }
+
+        readRemainingNull();
+    }
+
     private void readRemainingTrue() throws IOException {
         if (next() != 'r' || next() != 'u' || next() != 'e') {
             throw new JsonException("Invalid value");
@@ -250,21 +849,88 @@ public class JsonParser implements Closeable {
         return readRemainingNumber(skipWhitespaces());
     }
 
+    /**
+     * Reads the next number without boxing it, fractions are truncated.
+     */
+    public long readLong() throws IOException {
+        scanNumber(skipWhitespaces());
+
+        return numberFloating ? (long) scaledNumber() : numberFraction;
+    }
+
+    /**
+     * Reads the next number without boxing it, like {@link #readLong()} but failing for numbers that are not integers
+     * or out of the range of a long instead of truncating them. Integers written with a fraction or exponent, like
+     * {@code 2.0} or {@code 1e3}, are accepted.
+     */
+    public long readExactLong() throws IOException {
+        scanNumber(skipWhitespaces());
+
+        long fraction = numberFraction;
+        if (!numberFloating || fraction == 0) {
+            return fraction;
+        }
+        if (numberInexact) {
+            // Digits beyond the precision of a long are either fractional or out of its range
+            throw new JsonException("Number cannot be represented exactly as a long");
+        }
+
+        int scale = numberScale;
+        for (; scale < 0; scale++) {
+            if (fraction % 10 != 0) {
+                throw new JsonException("Number is not an integer");
+            }
+            fraction /= 10;
+        }
+        for (; scale > 0; scale--) {
+            if (fraction > Long.MAX_VALUE / 10 || fraction < Long.MIN_VALUE / 10) {
+                throw new JsonException("Number exceeds the range of a long");
+            }
+            fraction *= 10;
+        }
+
+        return fraction;
+    }
+
+    /**
+     * Reads the next number without boxing it.
+     */
+    public double readDouble() throws IOException {
+        scanNumber(skipWhitespaces());
+
+        return numberFloating ? scaledNumber() : numberFraction;
+    }
+
     private Number readRemainingNumber(int chr) throws IOException {
-        boolean negative;
-        double exponent = 0;
-        long fraction;
+        scanNumber(chr);
+
+        // calculate and return final number
+        if (numberFloating) {
+            return scaledNumber();
+        }
+
+        return numberFraction;
+    }
+
+    /**
+     * Scans a number into {@link #numberFraction}, {@link #numberScale} and {@link #numberFloating} without creating
+     * any objects. The number is the fraction times ten to the power of the scale.
+     */
+    private void scanNumber(int chr) throws IOException {
+        long start = getCharOffset() - 1;
+        boolean negative = chr == '-';
+        boolean floating = false;
+        boolean fractionPart = false;
+        boolean inexact = false;
+        int scale = 0;
 
         // parse sign part
-        if (chr == '-') {
-            negative = true;
+        if (negative) {
             chr = next();
-        } else {
-            negative = false;
         }
 
-        // Parse fraction and exponent part
-        fraction = decDigit(chr);
+        // Parse integer and fraction part
+        long fraction = decDigit(chr);
         if (fraction == -1) {
             throw new JsonException("Invalid number");
         }
@@ -273,19 +939,29 @@ public class JsonParser implements Closeable {
             chr = peekUnchecked();
 
             if (chr == '.') {
-                if (exponent == 0) {
-                    exponent = 0.1;
-                } else {
+                if (fractionPart) {
                     throw new JsonException("Invalid number");
                 }
+                fractionPart = floating = true;
             } else {
-                exponent *= 10;
-
                 int digit = decDigit(chr);
                 if (digit == -1) {
                     break;
                 }
-                fraction = fraction * 10 + digit;
+
+                if (fraction >= 0 && (fraction < Long.MAX_VALUE / 10 || (fraction == Long.MAX_VALUE / 10 && digit <= (negative ? 8 : 7)))) {
+                    fraction = fraction * 10 + digit; // Overflows to Long.MIN_VALUE only for it, which stays the same negated
+                    if (fractionPart) {
+                        scale--;
+                    }
+                } else {
+                    // Too many digits for a long, the remaining integer digits only scale the number
+                    floating = true;
+                    inexact |= digit != 0;
+                    if (!fractionPart) {
+                        scale++;
+                    }
+                }
             }
 
             next();
@@ -295,18 +971,13 @@ public class JsonParser implements Closeable {
         chr = peekUnchecked();
         if (chr == 'e' || chr == 'E') {
             next();
+            floating = true;
 
-            boolean expNegative;
-
+            boolean expNegative = false;
             chr = next();
-            if (chr == '+') {
-                expNegative = false;
-                next();
-            } else {
-                expNegative = true;
-                if (chr == '-') {
-                    next();
-                }
+            if (chr == '+' || chr == '-') {
+                expNegative = chr == '-';
+                chr = next();
             }
 
             int expVal = decDigit(chr);
@@ -316,30 +987,39 @@ public class JsonParser implements Closeable {
             int digit;
             while ((digit = decDigit(peekUnchecked())) != -1) {
                 next();
-                expVal = expVal * 10 + digit;
-            }
-
-            if (expNegative) {
-                expVal = -expVal;
+                if (expVal < 100_000) { // Anything above is zero or infinite anyway
+                    expVal = expVal * 10 + digit;
+                }
             }
 
-            if (exponent == 0) {
-                exponent = Math.pow(10, expVal);
-            } else {
-                exponent *= Math.pow(10, expVal);
-            }
+            scale += expNegative ? -expVal : expVal;
         }
 
-        if (negative) {
-            fraction = -fraction;
+        // Scanning creates no objects, so the length only needs to be checked once at the end
+        if (getCharOffset() - start > maxNumberLength) {
+            throw new JsonException("Number exceeds the maximum length of " + maxNumberLength);
         }
 
-        // calculate and return final number
-        if (exponent > 0) {
-            return fraction / exponent;
+        numberFraction = negative ? -fraction : fraction;
+        numberScale = scale;
+        numberFloating = floating;
+        numberInexact = inexact;
+    }
+
+    private double scaledNumber() {
+        return toDouble(numberFraction, numberScale);
+    }
+
+    /**
+     * @return the double closest to the fraction times ten to the power of the scale
+     */
+    static double toDouble(long fraction, int scale) {
+        // Both the fraction and the power of ten are exact doubles, so the result is correctly rounded
+        if (fraction >= -MAX_EXACT_FRACTION && fraction <= MAX_EXACT_FRACTION && scale >= -22 && scale <= 22) {
+            return scale < 0 ? fraction / POWERS_OF_TEN[-scale] : fraction * POWERS_OF_TEN[scale];
         }
 
-        return fraction;
+        return Double.parseDouble(fraction + "E" + scale);
     }
 
     private static int decDigit(int chr) {
@@ -352,9 +1032,9 @@ public class JsonParser implements Closeable {
                 return chr - '0';
             } else if (chr >= 'A') {
                 if (chr <= 'F') {
-                    return chr - 'A';
+                    return chr - 'A' + 10;
                 } else if (chr >= 'a' && chr <= 'f') {
-                    return chr - 'a';
+                    return chr - 'a' + 10;
                 }
             }
         }
@@ -378,7 +1058,41 @@ public class JsonParser implements Closeable {
             return charcode;
         }
 
-        return in.read();
+        if (position == limit && !fill()) {
+            return -1;
+        }
+
+        return buffer[position++];
+    }
+
+    private boolean fill() throws IOException {
+        if (position < end) {
+            throw new JsonException("Document exceeds the maximum size of " + maxDocumentSize + " characters");
+        }
+        if (in == null) {
+            return false;
+        }
+
+        int read = in.read(buffer, 0, buffer.length);
+        if (read <= 0) {
+            return false;
+        }
+
+        bufferOffset += end;
+        position = 0;
+        end = read;
+        updateLimit();
+
+        return true;
+    }
+
+    /**
+     * Stops scanning at the maximum document size, so that it is only checked when the buffer is refilled.
+     */
+    private void updateLimit() {
+        long remaining = Math.max(maxDocumentSize - (bufferOffset + position), 0);
+
+        limit = remaining < end - position ? position + (int) remaining : end;
     }
 
     private int peekUnchecked() throws IOException {
@@ -390,13 +1104,36 @@ public class JsonParser implements Closeable {
     }
 
     private int peekSkipWhitespaces() throws IOException {
-        if (peekedCharcode == -1) {
+        if (peekedCharcode == -1 || Character.isWhitespace(peekedCharcode)) {
             peekedCharcode = skipWhitespaces();
         }
 
         return peekedCharcode;
     }
 
+    /**
+     * Skips whitespaces and checks if there is any input left, e.g. to read a sequence of values.
+     *
+     * @return true if another value follows
+     */
+    public boolean hasNextValue() throws IOException {
+        int chr = peekedCharcode == -1 ? nextUnchecked() : peekedCharcode;
+        while (chr != -1 && Character.isWhitespace(chr)) {
+            peekedCharcode = -1;
+            chr = nextUnchecked();
+        }
+        peekedCharcode = chr;
+
+        return chr != -1;
+    }
+
+    /**
+     * @return the first character of the next value without reading it, e.g. 'n' if the next value is null
+     */
+    public int peek() throws IOException {
+        return peekSkipWhitespaces();
+    }
+
     public int skipWhitespaces() throws IOException {
         int chr;
 
@@ -409,7 +1146,15 @@ public class JsonParser implements Closeable {
 
     @Override
     public void close() throws IOException {
-        in.close();
+        if (in != null) {
+            in.close();
+        }
+    }
+
+    private interface Operation<T> {
+
+        T run() throws IOException;
+
     }
 
-}
\ No newline at end of file
+}
@@ -2,6 +2,8 @@ package com.odinallfather.json;
 
 import java.io.*;
 import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Objects;
@@ -10,7 +12,10 @@ public class JsonPrinter implements Closeable {
 
     private static final char[] NULL_CHARS = new char[]{'n', 'u', 'l', 'l'};
 
+    private static volatile JsonListener defaultListener;
+
     private boolean prettyPrint;
+    private boolean canonical;
     private char indentChar = ' ';
     private Writer out;
 
@@ -18,6 +23,23 @@ public class JsonPrinter implements Closeable {
     private int indent;
     private int indentRecord;
 
+    private JsonListener listener = defaultListener;
+    // Only set while a top-level value is printed with a listener
+    private JsonMetrics metrics;
+
+    private int maxDepth = Integer.MAX_VALUE;
+
+    // The iterators of the containers enclosing the one being printed, whether they are objects, the templates of
+    // their names and the number of entries printed
+    private Iterator<?>[] parents = new Iterator<?>[16];
+    private boolean[] objects = new boolean[16];
+    private NameTemplate[] parentTemplates = new NameTemplate[16];
+    private int[] counts = new int[16];
+
+    // The names of the objects last printed at each depth, and the keys of those that did not match them
+    private NameTemplate[] templates = new NameTemplate[16];
+    private String[][] candidates = new String[16][];
+
     public JsonPrinter(OutputStream out) {
         this(out, Charset.defaultCharset());
     }
@@ -59,6 +81,45 @@ public class JsonPrinter implements Closeable {
         }
     }
 
+    /**
+     * Prints the value in canonical form and passes it to the digest, without building a string.
+     *
+     * @return the hash of the canonical form
+     * @see #setCanonical(boolean)
+     */
+    public static byte[] digest(JsonValue json, MessageDigest digest) throws IOException {
+        DigestWriter out = new DigestWriter(digest);
+
+        JsonPrinter printer = new JsonPrinter(out);
+        printer.setCanonical(true);
+        printer.print(json);
+
+        return out.digest();
+    }
+
+    /**
+     * Sets the listener of printers created afterwards, e.g. to monitor all printing in an application.
+     */
+    public static void setDefaultListener(JsonListener listener) {
+        defaultListener = listener;
+    }
+
+    public static JsonListener getDefaultListener() {
+        return defaultListener;
+    }
+
+    /**
+     * Sets the listener that receives the metrics of each value printed by {@link #print(JsonValue)}, null to stop
+     * measuring.
+     */
+    public void setListener(JsonListener listener) {
+        this.listener = listener;
+    }
+
+    public JsonListener getListener() {
+        return listener;
+    }
+
     public void setPrettyPrint(boolean prettyPrint) {
         this.prettyPrint = prettyPrint;
     }
@@ -67,6 +128,39 @@ public class JsonPrinter implements Closeable {
         return prettyPrint;
     }
 
+    /**
+     * Enables the canonical form of the JSON Canonicalization Scheme (RFC 8785): the entries of objects sorted by
+     * their names, numbers formatted like in ECMAScript, only the necessary characters escaped and no whitespace, so
+     * equal values are printed identically. Pretty printing is ignored, and objects written with
+     * {@link #beginObject()} keep the order of their entries.
+     */
+    public void setCanonical(boolean canonical) {
+        this.canonical = canonical;
+    }
+
+    public boolean isCanonical() {
+        return canonical;
+    }
+
+    /**
+     * Limits how deeply objects and arrays may be nested, e.g. to fail on values that contain themselves instead of
+     * printing forever.
+     */
+    public void setMaxDepth(int maxDepth) {
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("maxDepth may not be negative");
+        }
+        this.maxDepth = maxDepth;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    private boolean isPretty() {
+        return prettyPrint && !canonical;
+    }
+
     private void increaseIndent() {
         if (lineBreakChars == null) {
             lineBreakChars = new char[8];
@@ -93,11 +187,49 @@ public class JsonPrinter implements Closeable {
         assert indent > -1;
     }
 
+    /**
+     * Sets the nesting level of the following output, so that it can be embedded into a pretty printed document.
+     */
+    public void setIndentLevel(int level) {
+        if (level < 0) {
+            throw new IllegalArgumentException("level may not be negative");
+        }
+
+        while (indent < level * 2) {
+            increaseIndent();
+        }
+        while (indent > level * 2) {
+            decreaseIndent();
+        }
+    }
+
+    public int getIndentLevel() {
+        return indent / 2;
+    }
+
     private void lineBreak() throws IOException {
         out.write(lineBreakChars, 0, indent + 1);
     }
 
     public void print(JsonValue value) throws IOException {
+        if (listener != null && metrics == null) {
+            measure(value);
+        } else {
+            printValue(value);
+        }
+    }
+
+    private void printValue(JsonValue value) throws IOException {
+        if (metrics != null && !value.isObject() && !value.isArray()) {
+            switch (value.getType()) {
+                // @formatter:off
+                case JsonValue.TYPE_STRING: metrics.strings++; break;
+                case JsonValue.TYPE_NUMBER: metrics.numbers++; break;
+                default: metrics.literals++; break;
+                // @formatter:on
+            }
+        }
+
         switch (value.getType()) {
             // @formatter:off
             case JsonValue.TYPE_NULL:
@@ -122,6 +254,30 @@ public class JsonPrinter implements Closeable {
         }
     }
 
+    private void measure(JsonValue value) throws IOException {
+        JsonMetrics metrics = new JsonMetrics(JsonMetrics.PRINT);
+        JsonListener listener = this.listener;
+        Writer target = out;
+        CountingWriter counter = new CountingWriter(target);
+
+        listener.started(metrics);
+        metrics.startTime = System.nanoTime();
+        this.metrics = metrics;
+        out = counter;
+        try {
+            print(value);
+        } catch (Throwable exception) {
+            metrics.error = exception;
+            throw exception;
+        } finally {
+            out = target;
+            this.metrics = null;
+            metrics.elapsedTime = System.nanoTime() - metrics.startTime;
+            metrics.chars = counter.count;
+            listener.finished(metrics);
+        }
+    }
+
     public void printNull() throws IOException {
         out.write(NULL_CHARS);
     }
@@ -129,105 +285,284 @@ public class JsonPrinter implements Closeable {
     public void print(JsonObject value) throws IOException {
         if (value == null) {
             printNull();
-        } else if (prettyPrint) {
-            out.write("{");
-            Iterator<Map.Entry<String, JsonValue>> itr = value.entrySet().iterator();
-            if (itr.hasNext()) {
-                increaseIndent();
-                lineBreak();
+        } else {
+            printNested(value);
+        }
+    }
 
-                Map.Entry<String, JsonValue> entry = itr.next();
+    public void print(JsonArray value) throws IOException {
+        if (value == null) {
+            printNull();
+        } else {
+            printNested(value);
+        }
+    }
 
-                // First entry
-                out.write('\"');
-                out.write(escapeString(entry.getKey()));
-                out.write("\": ");
-                print(entry.getValue());
+    /**
+     * Prints the object or array with all nested values. The iterators of the enclosing containers of nested values
+     * are kept in {@link #parents} instead of on the call stack.
+     */
+    private void printNested(Object root) throws IOException {
+        Iterator<?>[] parents = this.parents;
+        int depth = 1;
+        boolean object = root instanceof JsonObject;
+        Iterator<?> itr = open(root, depth);
+        NameTemplate template = object ? template((JsonObject) root, depth) : null;
+        int count = 0;
+
+        for (; ; ) {
+            if (!itr.hasNext()) {
+                if (object) {
+                    endObject(count == 0);
+                } else {
+                    endArray(count == 0);
+                }
+                if (metrics != null) {
+                    metrics.exit();
+                }
+                if (--depth == 0) {
+                    return;
+                }
 
-                // Remaining entries
-                while (itr.hasNext()) {
-                    entry = itr.next();
+                itr = parents[depth - 1];
+                parents[depth - 1] = null;
+                object = objects[depth - 1];
+                template = parentTemplates[depth - 1];
+                parentTemplates[depth - 1] = null;
+                count = counts[depth - 1];
+                continue;
+            }
 
-                    out.write(',');
-                    lineBreak();
-                    out.write('\"');
-                    out.write(escapeString(entry.getKey()));
-                    out.write("\": ");
-                    print(entry.getValue());
+            JsonValue value;
+            if (object) {
+                @SuppressWarnings("unchecked")
+                Map.Entry<String, JsonValue> entry = (Map.Entry<String, JsonValue>) itr.next();
+                if (template == null) {
+                    printName(entry.getKey(), count == 0);
+                } else {
+                    if (template.pretty) {
+                        if (count > 0) {
+                            out.write(',');
+                        }
+                        lineBreak();
+                    }
+                    template.write(out, count);
                 }
+                value = entry.getValue();
+            } else {
+                printElementSeparator(count == 0);
+                value = (JsonValue) itr.next();
+            }
+            count++;
 
-                decreaseIndent();
-                lineBreak();
+            Object child = value.getValue();
+            if (child == null || !(value.isObject() || value.isArray())) {
+                printValue(value);
+                continue;
             }
-            out.write("}");
-        } else {
-            out.write('{');
-
-            Iterator<Map.Entry<String, JsonValue>> itr = value.entrySet().iterator();
-            if (itr.hasNext()) {
-                Map.Entry<String, JsonValue> entry = itr.next();
-
-                // First entry
-                out.write('\"');
-                out.write(escapeString(entry.getKey()));
-                out.write("\":");
-                print(entry.getValue());
-
-                // Remaining entries
-                while (itr.hasNext()) {
-                    entry = itr.next();
-
-                    out.write(",\"");
-                    out.write(escapeString(entry.getKey()));
-                    out.write("\":");
-                    print(entry.getValue());
+
+            if (depth > parents.length) {
+                parents = this.parents = Arrays.copyOf(parents, parents.length << 1);
+                objects = Arrays.copyOf(objects, parents.length);
+                parentTemplates = Arrays.copyOf(parentTemplates, parents.length);
+                counts = Arrays.copyOf(counts, parents.length);
+            }
+            parents[depth - 1] = itr;
+            objects[depth - 1] = object;
+            parentTemplates[depth - 1] = template;
+            counts[depth - 1] = count;
+            depth++;
+
+            object = value.isObject();
+            itr = open(child, depth);
+            template = object ? template((JsonObject) child, depth) : null;
+            count = 0;
+        }
+    }
+
+    /**
+     * Finds the escaped names of the object, so that the names of objects with the same keys are escaped only once.
+     * Shaped objects keep them in their shape. For other objects the names of the last object at the same depth are
+     * kept, which are only escaped once a second object with the same keys follows.
+     *
+     * @return the template with the keys of the object, null to print the names one by one
+     */
+    private NameTemplate template(JsonObject object, int depth) {
+        int size = object.size();
+        if (canonical || size == 0 || size > Shape.MAX_KEYS) {
+            return null;
+        }
+
+        boolean pretty = isPretty();
+        Shape shape = object.shape();
+        NameTemplate template = shape == null ? null : shape.template(pretty);
+        if (template != null) {
+            return template;
+        }
+
+        if (depth > templates.length) {
+            templates = Arrays.copyOf(templates, Math.max(depth, templates.length << 1));
+            candidates = Arrays.copyOf(candidates, templates.length);
+        }
+
+        template = templates[depth - 1];
+        if (template != null && template.pretty == pretty && template.keys.length == size) {
+            String[] keys = template.keys;
+            int i = 0;
+            for (Map.Entry<String, JsonValue> entry : object.entries()) {
+                if (!keys[i].equals(entry.getKey())) {
+                    break;
                 }
+                i++;
+            }
+            if (i == size) {
+                return template;
             }
+        }
 
-            out.write('}');
+        String[] keys = new String[size];
+        int i = 0;
+        for (Map.Entry<String, JsonValue> entry : object.entries()) {
+            keys[i++] = entry.getKey();
+        }
+        if (Arrays.equals(keys, candidates[depth - 1])) {
+            templates[depth - 1] = new NameTemplate(keys, pretty);
+            candidates[depth - 1] = null;
+            return templates[depth - 1];
         }
+
+        candidates[depth - 1] = keys;
+        return null;
     }
 
-    public void print(JsonArray value) throws IOException {
-        if (value == null) {
-            printNull();
-        } else if (prettyPrint) {
-            out.write('[');
+    /**
+     * Writes the opening bracket of the object or array.
+     *
+     * @return an iterator over its entries or elements
+     */
+    private Iterator<?> open(Object value, int depth) throws IOException {
+        if (depth > maxDepth) {
+            throw new JsonException("Value exceeds the maximum depth of " + maxDepth);
+        }
 
-            Iterator<JsonValue> itr = value.iterator();
-            if (itr.hasNext()) {
-                increaseIndent();
-                lineBreak();
-                print(itr.next());
-                while (itr.hasNext()) {
-                    out.write(',');
-                    lineBreak();
-                    print(itr.next());
-                }
-                decreaseIndent();
-                lineBreak();
+        if (value instanceof JsonObject) {
+            JsonObject object = (JsonObject) value;
+            if (metrics != null) {
+                metrics.objects++;
+                metrics.names += object.size();
+                metrics.enter();
             }
+            beginObject();
 
-            out.write(']');
+            if (canonical) {
+                @SuppressWarnings({"unchecked", "rawtypes"})
+                Map.Entry<String, JsonValue>[] entries = object.entries().toArray(new Map.Entry[0]);
+                Arrays.sort(entries, Map.Entry.comparingByKey()); // By UTF-16 code units
+                return Arrays.asList(entries).iterator();
+            }
+            return object.entries().iterator();
+        }
+
+        if (metrics != null) {
+            metrics.arrays++;
+            metrics.enter();
+        }
+        beginArray();
+
+        return ((JsonArray) value).iterator();
+    }
+
+    /**
+     * Writes the opening bracket of an object. Each entry is then written with {@link #printName(String, boolean)}
+     * followed by a value.
+     */
+    public void beginObject() throws IOException {
+        out.write('{');
+        if (isPretty()) {
+            increaseIndent();
+        }
+    }
+
+    /**
+     * Writes the name of an object entry, preceded by a comma unless it is the first entry.
+     */
+    public void printName(String name, boolean first) throws IOException {
+        if (!first) {
+            out.write(',');
+        }
+        if (canonical) {
+            printCanonicalString(name);
+            out.write(':');
+        } else if (isPretty()) {
+            lineBreak();
+            out.write('\"');
+            out.write(escapeString(name));
+            out.write("\": ");
         } else {
-            out.write('[');
-
-            Iterator<JsonValue> itr = value.iterator();
-            if (itr.hasNext()) {
-                print(itr.next());
-                while (itr.hasNext()) {
-                    out.write(',');
-                    print(itr.next());
-                }
+            out.write('\"');
+            out.write(escapeString(name));
+            out.write("\":");
+        }
+    }
+
+    /**
+     * Writes the closing bracket of an object.
+     *
+     * @param empty true if no entry was written
+     */
+    public void endObject(boolean empty) throws IOException {
+        if (isPretty()) {
+            decreaseIndent();
+            if (!empty) {
+                lineBreak();
             }
+        }
+        out.write('}');
+    }
+
+    /**
+     * Writes the opening bracket of an array. Each element is then written with
+     * {@link #printElementSeparator(boolean)} followed by a value.
+     */
+    public void beginArray() throws IOException {
+        out.write('[');
+        if (isPretty()) {
+            increaseIndent();
+        }
+    }
+
+    /**
+     * Writes what precedes an array element, a comma unless it is the first element.
+     */
+    public void printElementSeparator(boolean first) throws IOException {
+        if (!first) {
+            out.write(',');
+        }
+        if (isPretty()) {
+            lineBreak();
+        }
+    }
 
-            out.write(']');
+    /**
+     * Writes the closing bracket of an array.
+     *
+     * @param empty true if no element was written
+     */
+    public void endArray(boolean empty) throws IOException {
+        if (isPretty()) {
+            decreaseIndent();
+            if (!empty) {
+                lineBreak();
+            }
         }
+        out.write(']');
     }
 
     public void print(String value) throws IOException {
         if (value == null) {
             printNull();
+        } else if (canonical) {
+            printCanonicalString(value);
         } else {
             out.write('\"');
             out.write(escapeString(value));
@@ -235,14 +570,70 @@ public class JsonPrinter implements Closeable {
         }
     }
 
+    /**
+     * Writes a string escaping only quotes, backslashes and control characters, without creating a new string.
+     */
+    private void printCanonicalString(String value) throws IOException {
+        out.write('\"');
+
+        int length = value.length();
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            char chr = value.charAt(i);
+            if (chr >= ' ' && chr != '\"' && chr != '\\') {
+                continue;
+            }
+
+            out.write(value, start, i - start);
+            out.write('\\');
+            switch (chr) {
+                // @formatter:off
+                case '\"': out.write('\"'); break;
+                case '\\': out.write('\\'); break;
+                case '\b': out.write('b'); break;
+                case '\f': out.write('f'); break;
+                case '\n': out.write('n'); break;
+                case '\r': out.write('r'); break;
+                case '\t': out.write('t'); break;
+                // @formatter:on
+                default:
+                    out.write("u00");
+                    out.write(Character.forDigit(chr >> 4, 16));
+                    out.write(Character.forDigit(chr & 0xF, 16));
+            }
+            start = i + 1;
+        }
+        out.write(value, start, length - start);
+
+        out.write('\"');
+    }
+
     public void print(Number value) throws IOException {
         if (value == null) {
             printNull();
+        } else if (canonical) {
+            out.write(CanonicalNumber.format(value.doubleValue()));
         } else {
             out.write(value.toString());
         }
     }
 
+    public void print(long value) throws IOException {
+        out.write(canonical ? CanonicalNumber.format(value) : Long.toString(value));
+    }
+
+    public void print(float value) throws IOException {
+        out.write(canonical ? CanonicalNumber.format(value) : Float.toString(value));
+    }
+
+    public void print(double value) throws IOException {
+        out.write(canonical ? CanonicalNumber.format(value) : Double.toString(value));
+    }
+
+    public void print(boolean value) throws IOException {
+        out.write(value ? "true" : "false");
+    }
+
     public void print(Boolean value) throws IOException {
         if (value == null) {
             printNull();
@@ -316,4 +707,45 @@ public class JsonPrinter implements Closeable {
         out.close();
     }
 
+    /**
+     * Counts the characters written while a value is measured.
+     */
+    private static final class CountingWriter extends Writer {
+
+        private final Writer out;
+        long count;
+
+        CountingWriter(Writer out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            count++;
+            out.write(c);
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            count += len;
+            out.write(cbuf, off, len);
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            count += len;
+            out.write(str, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
 }
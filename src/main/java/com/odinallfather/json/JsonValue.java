@@ -13,6 +13,8 @@ public class JsonValue {
 
     private byte type;
     private Object value;
+    // Whether the hash code was computed, possibly as part of a cached hash code of a container
+    private boolean hashed;
 
     public JsonValue() {
         type = TYPE_NULL;
@@ -60,6 +62,7 @@ public class JsonValue {
     }
 
     public void setNull() {
+        changed();
         type = TYPE_NULL;
         value = null;
     }
@@ -77,36 +80,43 @@ public class JsonValue {
     }
 
     public void setValue(byte value) {
+        changed();
         type = TYPE_NUMBER;
         this.value = value;
     }
 
     public void setValue(short value) {
+        changed();
         type = TYPE_NUMBER;
         this.value = value;
     }
 
     public void setValue(int value) {
+        changed();
         type = TYPE_NUMBER;
         this.value = value;
     }
 
     public void setValue(long value) {
+        changed();
         type = TYPE_NUMBER;
         this.value = value;
     }
 
     public void setValue(float value) {
+        changed();
         type = TYPE_NUMBER;
         this.value = value;
     }
 
     public void setValue(double value) {
+        changed();
         type = TYPE_NUMBER;
         this.value = value;
     }
 
     public void setValue(boolean value) {
+        changed();
         type = TYPE_BOOLEAN;
         this.value = value;
     }
@@ -118,11 +128,13 @@ public class JsonValue {
             throw new IllegalArgumentException("Unknown Type: " + (value == null ? "null" : value.getClass().getName()));
         }
 
+        changed();
         this.type = type;
         this.value = value;
     }
 
     private void setTypeAndValue(byte type, Object value) {
+        changed();
         if (value == null) {
             this.type = TYPE_NULL;
             this.value = null;
@@ -253,16 +265,51 @@ public class JsonValue {
         return JsonPrinter.escapeString(asString());
     }
 
+    private void changed() {
+        if (hashed) {
+            hashed = false;
+            Hashes.invalidate();
+        }
+    }
+
+    /**
+     * Consistent with {@link #equals(Object)}, e.g. 1 and 1.0 have the same hash code. The hash codes of objects and
+     * arrays are cached.
+     */
     @Override
     public int hashCode() {
-        return type == TYPE_NULL ? 0 : value.hashCode();
+        hashed = true;
+
+        switch (type) {
+            // @formatter:off
+            case TYPE_NULL: return 0;
+            case TYPE_NUMBER: return Hashes.hash((Number) value);
+            default: return value.hashCode();
+            // @formatter:on
+        }
     }
 
+    /**
+     * Compares values deeply, numbers are compared by their value, so 1 equals 1.0.
+     */
     @Override
     public boolean equals(Object obj) {
         if (obj instanceof JsonValue) {
             JsonValue jsonValue = (JsonValue) obj;
-            return type == jsonValue.type && (type == TYPE_NULL || obj.equals(jsonValue.value));
+            if (jsonValue == this) {
+                return true;
+            }
+            if (type != jsonValue.type) {
+                return false;
+            }
+
+            switch (type) {
+                // @formatter:off
+                case TYPE_NULL: return true;
+                case TYPE_NUMBER: return Hashes.equal((Number) value, (Number) jsonValue.value);
+                default: return value.equals(jsonValue.value);
+                // @formatter:on
+            }
         }
 
         // Ignoring "bad practice" and let e.g. this.equals(5) be true if this.value is also 5
@@ -0,0 +1,44 @@
+package com.odinallfather.json;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * The escaped names of objects with the same keys, which {@link JsonPrinter} writes with one bulk copy per entry
+ * instead of escaping each name of each object again. Immutable.
+ */
+final class NameTemplate {
+
+    final String[] keys;
+    final boolean pretty;
+    // The names with quotes and colons, in compact output each but the first preceded by a comma: "a":,"b":
+    private final char[] chars;
+    private final int[] offsets;
+
+    NameTemplate(String[] keys, boolean pretty) {
+        this.keys = keys;
+        this.pretty = pretty;
+
+        StringBuilder builder = new StringBuilder(keys.length * 8);
+        offsets = new int[keys.length + 1];
+        for (int i = 0; i < keys.length; i++) {
+            offsets[i] = builder.length();
+            if (i > 0 && !pretty) {
+                builder.append(',');
+            }
+            builder.append('\"').append(JsonPrinter.escapeString(keys[i])).append(pretty ? "\": " : "\":");
+        }
+        offsets[keys.length] = builder.length();
+
+        chars = new char[builder.length()];
+        builder.getChars(0, chars.length, chars, 0);
+    }
+
+    /**
+     * Writes the name of the entry at the index, with the comma before it in compact output.
+     */
+    void write(Writer out, int index) throws IOException {
+        out.write(chars, offsets[index], offsets[index + 1] - offsets[index]);
+    }
+
+}
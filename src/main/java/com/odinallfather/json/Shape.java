@@ -0,0 +1,171 @@
+package com.odinallfather.json;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The ordered keys of objects, shared by all objects with the same keys like hidden classes of JavaScript engines.
+ * <p>
+ * Shapes are immutable and form a tree from the empty shape, in which each shape caches the transitions to the shapes
+ * with one more key. Objects built by adding the same keys in the same order therefore end up with the same shape
+ * instance. The number of cached shapes is limited, beyond that shapes are created for each object on its own.
+ */
+final class Shape {
+
+    // Objects with more keys are usually maps rather than records
+    static final int MAX_KEYS = 64;
+    private static final int MAX_SHAPES = 1 << 16;
+    // Shapes with more keys look them up in a hash map instead of comparing all keys
+    private static final int MAX_SCANNED_KEYS = 8;
+
+    private static final AtomicInteger shapeCount = new AtomicInteger();
+
+    static final Shape EMPTY = new Shape(new String[0], true);
+
+    final String[] keys;
+    private final Map<String, Integer> index;
+    private final boolean cached;
+
+    // The last transition taken, which is usually the next one taken as well
+    private volatile Shape lastTransition;
+    private volatile ConcurrentHashMap<String, Shape> transitions;
+
+    private volatile NameTemplate compactTemplate;
+    private volatile NameTemplate prettyTemplate;
+
+    private Shape(String[] keys, boolean cached) {
+        this.keys = keys;
+        this.cached = cached;
+
+        if (keys.length > MAX_SCANNED_KEYS) {
+            index = new HashMap<>(keys.length * 2);
+            for (int i = 0; i < keys.length; i++) {
+                index.put(keys[i], i);
+            }
+        } else {
+            index = null;
+        }
+    }
+
+    int size() {
+        return keys.length;
+    }
+
+    /**
+     * @return the index of the key, -1 if it is not in this shape
+     */
+    int indexOf(Object key) {
+        if (index != null) {
+            Integer i = index.get(key);
+            return i == null ? -1 : i;
+        }
+
+        String[] keys = this.keys;
+        for (int i = 0; i < keys.length; i++) {
+            // Keys of objects with this shape are usually the same instances
+            if (keys[i] == key) {
+                return i;
+            }
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i].equals(key)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * @return the shape with the key added at the end, null if it would have more than {@link #MAX_KEYS} keys
+     */
+    Shape with(String key) {
+        if (keys.length == MAX_KEYS) {
+            return null;
+        }
+
+        Shape last = lastTransition;
+        if (last != null && last.keys[keys.length].equals(key)) {
+            return last;
+        }
+
+        Shape next;
+        if (cached) {
+            ConcurrentHashMap<String, Shape> transitions = this.transitions;
+            if (transitions == null) {
+                synchronized (this) {
+                    if ((transitions = this.transitions) == null) {
+                        this.transitions = transitions = new ConcurrentHashMap<>();
+                    }
+                }
+            }
+
+            next = transitions.get(key);
+            if (next == null) {
+                boolean cache = shapeCount.get() < MAX_SHAPES;
+                Shape created = new Shape(append(key), cache);
+                if (cache) {
+                    next = transitions.putIfAbsent(created.keys[keys.length], created);
+                    if (next == null) {
+                        shapeCount.incrementAndGet();
+                        next = created;
+                    }
+                } else {
+                    next = created;
+                }
+            }
+        } else {
+            next = new Shape(append(key), false);
+        }
+
+        lastTransition = next;
+        return next;
+    }
+
+    private String[] append(String key) {
+        String[] keys = Arrays.copyOf(this.keys, this.keys.length + 1);
+        keys[this.keys.length] = key;
+
+        return keys;
+    }
+
+    /**
+     * @return the names of the keys for printing, null if this shape is not cached and therefore only used by one
+     * object
+     */
+    NameTemplate template(boolean pretty) {
+        if (!cached) {
+            return null;
+        }
+
+        NameTemplate template = pretty ? prettyTemplate : compactTemplate;
+        if (template == null) {
+            template = new NameTemplate(keys, pretty);
+            if (pretty) {
+                prettyTemplate = template;
+            } else {
+                compactTemplate = template;
+            }
+        }
+
+        return template;
+    }
+
+    /**
+     * @return the shape without the key at the index
+     */
+    Shape without(int index) {
+        Shape shape = EMPTY;
+        for (int i = 0; i < keys.length; i++) {
+            if (i != index) {
+                shape = shape.with(keys[i]);
+            }
+        }
+
+        return shape;
+    }
+
+}
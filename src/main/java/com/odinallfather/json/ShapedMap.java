@@ -0,0 +1,279 @@
+package com.odinallfather.json;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * A map that stores only the values of its entries, the keys are held by a {@link Shape} shared with other maps with
+ * the same keys. Maps with more than {@link Shape#MAX_KEYS} keys or a null key switch to a {@link LinkedHashMap}.
+ * Entries are ordered by insertion like in a {@link LinkedHashMap}.
+ */
+final class ShapedMap extends AbstractMap<String, JsonValue> {
+
+    private static final JsonValue[] NO_VALUES = new JsonValue[0];
+
+    private Shape shape = Shape.EMPTY;
+    private JsonValue[] values;
+    private Map<String, JsonValue> dictionary;
+    private int modCount;
+
+    ShapedMap() {
+        values = NO_VALUES;
+    }
+
+    ShapedMap(int initialSize) {
+        values = initialSize == 0 ? NO_VALUES : new JsonValue[initialSize];
+    }
+
+    /**
+     * @return the shape of the keys, null if the entries are stored in a {@link LinkedHashMap}
+     */
+    Shape shape() {
+        return dictionary != null ? null : shape;
+    }
+
+    @Override
+    public int size() {
+        return dictionary != null ? dictionary.size() : shape.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return dictionary != null ? dictionary.containsKey(key) : shape.indexOf(key) != -1;
+    }
+
+    @Override
+    public JsonValue get(Object key) {
+        if (dictionary != null) {
+            return dictionary.get(key);
+        }
+
+        int i = shape.indexOf(key);
+        return i == -1 ? null : values[i];
+    }
+
+    @Override
+    public JsonValue put(String key, JsonValue value) {
+        if (dictionary != null) {
+            return dictionary.put(key, value);
+        }
+
+        int i = shape.indexOf(key);
+        if (i != -1) {
+            JsonValue old = values[i];
+            values[i] = value;
+            return old;
+        }
+
+        Shape next = key == null ? null : shape.with(key);
+        if (next == null) {
+            toDictionary();
+            return dictionary.put(key, value);
+        }
+
+        int size = shape.size();
+        if (size == values.length) {
+            values = Arrays.copyOf(values, Math.max(4, size << 1));
+        }
+        values[size] = value;
+        shape = next;
+        modCount++;
+
+        return null;
+    }
+
+    private void toDictionary() {
+        Map<String, JsonValue> dictionary = new LinkedHashMap<>();
+        String[] keys = shape.keys;
+        for (int i = 0; i < keys.length; i++) {
+            dictionary.put(keys[i], values[i]);
+        }
+
+        this.dictionary = dictionary;
+        shape = Shape.EMPTY;
+        values = NO_VALUES;
+        modCount++;
+    }
+
+    @Override
+    public JsonValue remove(Object key) {
+        if (dictionary != null) {
+            return dictionary.remove(key);
+        }
+
+        int i = shape.indexOf(key);
+        if (i == -1) {
+            return null;
+        }
+
+        JsonValue old = values[i];
+        removeAt(i);
+        return old;
+    }
+
+    private void removeAt(int index) {
+        int size = shape.size();
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        values[size - 1] = null;
+        shape = shape.without(index);
+        modCount++;
+    }
+
+    @Override
+    public void clear() {
+        dictionary = null;
+        shape = Shape.EMPTY;
+        values = NO_VALUES;
+        modCount++;
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super JsonValue> action) {
+        if (dictionary != null) {
+            dictionary.forEach(action);
+            return;
+        }
+
+        String[] keys = shape.keys;
+        JsonValue[] values = this.values;
+        int modCount = this.modCount;
+        for (int i = 0; i < keys.length; i++) {
+            action.accept(keys[i], values[i]);
+        }
+        if (modCount != this.modCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    /**
+     * Trims the capacity of the values to the size.
+     */
+    void trimToSize() {
+        if (dictionary == null && values.length != shape.size()) {
+            values = shape.size() == 0 ? NO_VALUES : Arrays.copyOf(values, shape.size());
+        }
+    }
+
+    @Override
+    public Set<Entry<String, JsonValue>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, JsonValue>> iterator() {
+                return dictionary != null ? dictionary.entrySet().iterator() : new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return ShapedMap.this.size();
+            }
+
+            @Override
+            public void clear() {
+                ShapedMap.this.clear();
+            }
+        };
+    }
+
+    private final class EntryIterator implements Iterator<Entry<String, JsonValue>> {
+
+        private int next;
+        private int last = -1;
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return next < shape.size();
+        }
+
+        @Override
+        public Entry<String, JsonValue> next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next >= shape.size()) {
+                throw new NoSuchElementException();
+            }
+
+            last = next++;
+            return new ShapedEntry(shape.keys[last], last);
+        }
+
+        @Override
+        public void remove() {
+            if (last == -1) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+
+            removeAt(last);
+            next = last;
+            last = -1;
+            expectedModCount = modCount;
+        }
+    }
+
+    /**
+     * An entry that writes through to the map as long as its key was not removed.
+     */
+    private final class ShapedEntry implements Entry<String, JsonValue> {
+
+        private final String key;
+        private final int index;
+        private final Shape entryShape = shape;
+
+        ShapedEntry(String key, int index) {
+            this.key = key;
+            this.index = index;
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public JsonValue getValue() {
+            return shape == entryShape ? values[index] : get(key);
+        }
+
+        @Override
+        public JsonValue setValue(JsonValue value) {
+            if (shape == entryShape) {
+                JsonValue old = values[index];
+                values[index] = value;
+                return old;
+            }
+
+            // Like entries of other maps, entries of removed keys no longer change the map
+            return containsKey(key) ? put(key, value) : null;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Entry)) {
+                return false;
+            }
+
+            Entry<?, ?> entry = (Entry<?, ?>) obj;
+            return key.equals(entry.getKey()) && Objects.equals(getValue(), entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode() ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + getValue();
+        }
+    }
+
+}
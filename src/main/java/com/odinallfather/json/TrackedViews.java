@@ -0,0 +1,289 @@
+package com.odinallfather.json;
+
+import java.util.AbstractCollection;
+import java.util.AbstractList;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Views of the collections behind {@link JsonObject} and {@link JsonArray} that report changes made through them, so
+ * that cached hash codes can be invalidated.
+ */
+final class TrackedViews {
+
+    private TrackedViews() {
+    }
+
+    static <E> Iterator<E> iterator(Iterator<E> iterator, Runnable listener) {
+        return new TrackedIterator<>(iterator, listener);
+    }
+
+    static <E> ListIterator<E> listIterator(ListIterator<E> iterator, Runnable listener) {
+        return new TrackedListIterator<>(iterator, listener);
+    }
+
+    static <E> Collection<E> collection(Collection<E> collection, Runnable listener) {
+        return new TrackedCollection<>(collection, listener);
+    }
+
+    static <E> Set<E> set(Set<E> set, Runnable listener) {
+        return new TrackedSet<>(set, listener);
+    }
+
+    static <K, V> Set<Map.Entry<K, V>> entrySet(Set<Map.Entry<K, V>> set, Runnable listener) {
+        return new TrackedEntrySet<>(set, listener);
+    }
+
+    static <E> List<E> list(List<E> list, Runnable listener) {
+        return new TrackedList<>(list, listener);
+    }
+
+    private static class TrackedIterator<E> implements Iterator<E> {
+
+        final Iterator<E> iterator;
+        final Runnable listener;
+
+        TrackedIterator(Iterator<E> iterator, Runnable listener) {
+            this.iterator = iterator;
+            this.listener = listener;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public E next() {
+            return iterator.next();
+        }
+
+        @Override
+        public void remove() {
+            iterator.remove();
+            listener.run();
+        }
+    }
+
+    private static final class TrackedListIterator<E> extends TrackedIterator<E> implements ListIterator<E> {
+
+        TrackedListIterator(ListIterator<E> iterator, Runnable listener) {
+            super(iterator, listener);
+        }
+
+        private ListIterator<E> iterator() {
+            return (ListIterator<E>) iterator;
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return iterator().hasPrevious();
+        }
+
+        @Override
+        public E previous() {
+            return iterator().previous();
+        }
+
+        @Override
+        public int nextIndex() {
+            return iterator().nextIndex();
+        }
+
+        @Override
+        public int previousIndex() {
+            return iterator().previousIndex();
+        }
+
+        @Override
+        public void set(E e) {
+            iterator().set(e);
+            listener.run();
+        }
+
+        @Override
+        public void add(E e) {
+            iterator().add(e);
+            listener.run();
+        }
+    }
+
+    private static final class TrackedCollection<E> extends AbstractCollection<E> {
+
+        private final Collection<E> collection;
+        private final Runnable listener;
+
+        TrackedCollection(Collection<E> collection, Runnable listener) {
+            this.collection = collection;
+            this.listener = listener;
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return new TrackedIterator<>(collection.iterator(), listener);
+        }
+
+        @Override
+        public int size() {
+            return collection.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return collection.contains(o);
+        }
+    }
+
+    private static class TrackedSet<E> extends AbstractSet<E> {
+
+        final Set<E> set;
+        final Runnable listener;
+
+        TrackedSet(Set<E> set, Runnable listener) {
+            this.set = set;
+            this.listener = listener;
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return new TrackedIterator<>(set.iterator(), listener);
+        }
+
+        @Override
+        public int size() {
+            return set.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return set.contains(o);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (set.remove(o)) {
+                listener.run();
+                return true;
+            }
+
+            return false;
+        }
+    }
+
+    private static final class TrackedEntrySet<K, V> extends TrackedSet<Map.Entry<K, V>> {
+
+        TrackedEntrySet(Set<Map.Entry<K, V>> set, Runnable listener) {
+            super(set, listener);
+        }
+
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+            return new TrackedIterator<>(set.iterator(), listener) {
+
+                @Override
+                public Map.Entry<K, V> next() {
+                    return new TrackedEntry<>(iterator.next(), listener);
+                }
+            };
+        }
+    }
+
+    private static final class TrackedEntry<K, V> implements Map.Entry<K, V> {
+
+        private final Map.Entry<K, V> entry;
+        private final Runnable listener;
+
+        TrackedEntry(Map.Entry<K, V> entry, Runnable listener) {
+            this.entry = entry;
+            this.listener = listener;
+        }
+
+        @Override
+        public K getKey() {
+            return entry.getKey();
+        }
+
+        @Override
+        public V getValue() {
+            return entry.getValue();
+        }
+
+        @Override
+        public V setValue(V value) {
+            V previous = entry.setValue(value);
+            listener.run();
+
+            return previous;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return entry.equals(obj);
+        }
+
+        @Override
+        public int hashCode() {
+            return entry.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return entry.toString();
+        }
+    }
+
+    private static final class TrackedList<E> extends AbstractList<E> {
+
+        private final List<E> list;
+        private final Runnable listener;
+
+        TrackedList(List<E> list, Runnable listener) {
+            this.list = list;
+            this.listener = listener;
+        }
+
+        @Override
+        public E get(int index) {
+            return list.get(index);
+        }
+
+        @Override
+        public int size() {
+            return list.size();
+        }
+
+        @Override
+        public E set(int index, E element) {
+            E previous = list.set(index, element);
+            listener.run();
+
+            return previous;
+        }
+
+        @Override
+        public void add(int index, E element) {
+            list.add(index, element);
+            listener.run();
+        }
+
+        @Override
+        public E remove(int index) {
+            E removed = list.remove(index);
+            listener.run();
+
+            return removed;
+        }
+
+        @Override
+        protected void removeRange(int fromIndex, int toIndex) {
+            list.subList(fromIndex, toIndex).clear();
+            listener.run();
+        }
+    }
+
+}
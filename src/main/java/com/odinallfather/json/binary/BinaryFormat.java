@@ -0,0 +1,52 @@
+package com.odinallfather.json.binary;
+
+/**
+ * The tags of the binary format.
+ * <p>
+ * A document starts with the magic bytes "OJB", the format version and a flags byte, followed by values. Each value
+ * starts with a tag byte. Lengths and counts are unsigned varints, integers are zigzag encoded varints and floating
+ * point numbers are stored in little endian order. Strings are UTF-8 and prefixed with their length in bytes.
+ * <p>
+ * With {@link #FLAG_REFERENCES}, both sides keep tables of the short keys and string values seen so far, so repeated
+ * ones are written as their index. Object keys are written as varint {@code length << 1} followed by the bytes, or
+ * as varint {@code index << 1 | 1} for a reference.
+ */
+final class BinaryFormat {
+
+    static final byte[] MAGIC = {'O', 'J', 'B'};
+    static final byte VERSION = 1;
+
+    static final byte FLAG_REFERENCES = 1;
+
+    // Strings of at most this many bytes are added to the reference tables, until they are full
+    static final int MAX_REFERENCE_LENGTH = 64;
+    static final int MAX_REFERENCES = 1 << 16;
+
+    static final byte NULL = 0x00;
+    static final byte FALSE = 0x01;
+    static final byte TRUE = 0x02;
+    static final byte STRING = 0x03;
+    static final byte STRING_REFERENCE = 0x04;
+    static final byte OBJECT = 0x05;
+    static final byte ARRAY = 0x06;
+    static final byte LONG = 0x07;
+    static final byte INTEGER = 0x08;
+    static final byte SHORT = 0x09;
+    static final byte BYTE = 0x0A;
+    static final byte FLOAT = 0x0B;
+    static final byte DOUBLE = 0x0C;
+    // A double that is exactly representable as a float, stored as one
+    static final byte DOUBLE_AS_FLOAT = 0x0D;
+    static final byte BIG_INTEGER = 0x0E;
+    static final byte BIG_DECIMAL = 0x0F;
+
+    // Longs from -16 to 15 are stored in the tag as SMALL_LONG + value
+    static final byte SMALL_LONG = 0x30;
+    static final int SMALL_LONG_MIN = -16;
+    static final int SMALL_LONG_MAX = 15;
+
+    static boolean isReferenceable(int length) {
+        return length <= MAX_REFERENCE_LENGTH;
+    }
+
+}
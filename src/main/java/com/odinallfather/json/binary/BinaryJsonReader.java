@@ -0,0 +1,374 @@
+package com.odinallfather.json.binary;
+
+import com.odinallfather.json.JsonArray;
+import com.odinallfather.json.JsonException;
+import com.odinallfather.json.JsonObject;
+import com.odinallfather.json.JsonValue;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static com.odinallfather.json.binary.BinaryFormat.*;
+
+/**
+ * Reads {@link JsonValue}s written by a {@link BinaryJsonWriter}.
+ */
+public class BinaryJsonReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int MAX_INITIAL_SIZE = 1 << 16;
+
+    private final InputStream in;
+    private byte[] buffer;
+    private int position;
+    private int limit;
+    private long offset;
+    private boolean headerRead;
+    private boolean references;
+    private int maxDepth = Integer.MAX_VALUE;
+
+    // The containers being read by depth and their remaining entries, excluding the innermost one
+    private Object[] parents = new Object[16];
+    private int[] parentRemaining = new int[16];
+
+    private String[] keys;
+    private int keyCount;
+    private String[] strings;
+    private int stringCount;
+
+    public BinaryJsonReader(InputStream in) {
+        this.in = in;
+        this.buffer = new byte[BUFFER_SIZE];
+    }
+
+    public BinaryJsonReader(byte[] in) {
+        this(in, 0, in.length);
+    }
+
+    public BinaryJsonReader(byte[] in, int offset, int length) {
+        this.in = null;
+        this.buffer = in;
+        this.position = offset;
+        this.limit = offset + length;
+        this.offset = -offset;
+    }
+
+    /**
+     * Limits how deeply objects and arrays may be nested, the top-level object or array has a depth of one. Nesting
+     * is not limited by the call stack, so without this limit a document may be nested as deeply as memory allows.
+     */
+    public void setMaxDepth(int maxDepth) {
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("maxDepth may not be negative");
+        }
+        this.maxDepth = maxDepth;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public static JsonValue fromBytes(byte[] in) throws IOException {
+        JsonValue value = new BinaryJsonReader(in).readValue();
+        if (value == null) {
+            throw new JsonException("Empty input");
+        }
+
+        return value;
+    }
+
+    /**
+     * @return the next value or null at the end of the input
+     */
+    public JsonValue readValue() throws IOException {
+        if (!headerRead) {
+            readHeader();
+        }
+        if (position == limit && !fill(1)) {
+            return null;
+        }
+
+        return readValue(readByte());
+    }
+
+    private void readHeader() throws IOException {
+        require(MAGIC.length + 2);
+        for (byte magic : MAGIC) {
+            if (buffer[position++] != magic) {
+                throw error("Not a binary JSON document");
+            }
+        }
+        if (buffer[position++] != VERSION) {
+            throw error("Unsupported version " + buffer[position - 1]);
+        }
+
+        references = (buffer[position++] & FLAG_REFERENCES) != 0;
+        if (references) {
+            keys = new String[64];
+            strings = new String[64];
+        }
+        headerRead = true;
+    }
+
+    private JsonValue readValue(byte tag) throws IOException {
+        switch (tag) {
+            // @formatter:off
+            case NULL: return new JsonValue();
+            case FALSE: return new JsonValue(false);
+            case TRUE: return new JsonValue(true);
+            case STRING: return new JsonValue(readString());
+            case STRING_REFERENCE: return new JsonValue(reference(strings, stringCount, readVarint()));
+            case OBJECT: case ARRAY: return readNested(tag);
+            case LONG: return new JsonValue(readZigzag());
+            case INTEGER: return new JsonValue((int) readZigzag());
+            case SHORT: return new JsonValue((short) readZigzag());
+            case BYTE: return new JsonValue(readByte());
+            case FLOAT: return new JsonValue(Float.intBitsToFloat(readInt()));
+            case DOUBLE: return new JsonValue(Double.longBitsToDouble(readLong()));
+            case DOUBLE_AS_FLOAT: return new JsonValue((double) Float.intBitsToFloat(readInt()));
+            case BIG_INTEGER: return new JsonValue(new BigInteger(readBytes()));
+            // @formatter:on
+            case BIG_DECIMAL:
+                int scale = (int) readZigzag();
+                return new JsonValue(new BigDecimal(new BigInteger(readBytes()), scale));
+            default:
+                if (tag >= SMALL_LONG + SMALL_LONG_MIN && tag <= SMALL_LONG + SMALL_LONG_MAX) {
+                    return new JsonValue((long) (tag - SMALL_LONG));
+                }
+                throw error("Invalid tag " + tag);
+        }
+    }
+
+    /**
+     * Reads an object or array and everything nested in it without recursion.
+     */
+    private JsonValue readNested(byte tag) throws IOException {
+        int depth = 1;
+        int remaining = open(depth);
+        Object container = newContainer(tag, remaining);
+        JsonValue root = new JsonValue(container);
+
+        for (; ; ) {
+            // Close all containers that end here
+            while (remaining == 0) {
+                if (--depth == 0) {
+                    return root;
+                }
+                container = parents[depth - 1];
+                parents[depth - 1] = null;
+                remaining = parentRemaining[depth - 1];
+            }
+            remaining--;
+
+            String key = container instanceof JsonObject ? readKey() : null;
+            byte valueTag = readByte();
+            boolean nested = valueTag == OBJECT || valueTag == ARRAY;
+            int size = nested ? open(depth + 1) : 0;
+            Object nestedContainer = nested ? newContainer(valueTag, size) : null;
+            JsonValue value = nested ? new JsonValue(nestedContainer) : readValue(valueTag);
+
+            if (key != null) {
+                ((JsonObject) container).put(key, value);
+            } else {
+                ((JsonArray) container).add(value);
+            }
+
+            if (nested) {
+                if (depth > parents.length) {
+                    parents = Arrays.copyOf(parents, parents.length * 2);
+                    parentRemaining = Arrays.copyOf(parentRemaining, parentRemaining.length * 2);
+                }
+                parents[depth - 1] = container;
+                parentRemaining[depth - 1] = remaining;
+                depth++;
+
+                container = nestedContainer;
+                remaining = size;
+            }
+        }
+    }
+
+    /**
+     * Checks the depth of an object or array whose tag was read.
+     *
+     * @return the number of entries
+     */
+    private int open(int depth) throws IOException {
+        if (depth > maxDepth) {
+            throw error("Document exceeds the maximum depth of " + maxDepth);
+        }
+
+        return readLength();
+    }
+
+    private static Object newContainer(byte tag, int size) {
+        // The size is not trusted for the allocation
+        return tag == OBJECT ? new JsonObject(Math.min(size, MAX_INITIAL_SIZE)) : new JsonArray(Math.min(size, MAX_INITIAL_SIZE));
+    }
+
+    private String readKey() throws IOException {
+        long header = readVarint();
+        if ((header & 1) != 0) {
+            return reference(keys, keyCount, header >>> 1);
+        }
+
+        int length = checkLength(header >>> 1);
+        String key = readUtf8(length);
+        if (references && isReferenceable(length) && keyCount < MAX_REFERENCES) {
+            if (keyCount == keys.length) {
+                keys = Arrays.copyOf(keys, keyCount * 2);
+            }
+            keys[keyCount++] = key;
+        }
+
+        return key;
+    }
+
+    private String readString() throws IOException {
+        int length = readLength();
+        String string = readUtf8(length);
+
+        if (references && isReferenceable(length) && stringCount < MAX_REFERENCES) {
+            if (stringCount == strings.length) {
+                strings = Arrays.copyOf(strings, stringCount * 2);
+            }
+            strings[stringCount++] = string;
+        }
+
+        return string;
+    }
+
+    private String reference(String[] table, int count, long index) throws JsonException {
+        if (!references || index >= count) {
+            throw error("Invalid reference " + index);
+        }
+
+        return table[(int) index];
+    }
+
+    private String readUtf8(int length) throws IOException {
+        require(length);
+        String string = new String(buffer, position, length, StandardCharsets.UTF_8);
+        position += length;
+
+        return string;
+    }
+
+    private byte[] readBytes() throws IOException {
+        int length = readLength();
+        require(length);
+        byte[] bytes = Arrays.copyOfRange(buffer, position, position + length);
+        position += length;
+
+        return bytes;
+    }
+
+    private int readLength() throws IOException {
+        return checkLength(readVarint());
+    }
+
+    private int checkLength(long length) throws JsonException {
+        if (length < 0 || length > Integer.MAX_VALUE - 16) {
+            throw error("Invalid length " + length);
+        }
+
+        return (int) length;
+    }
+
+    private byte readByte() throws IOException {
+        if (position == limit) {
+            require(1);
+        }
+
+        return buffer[position++];
+    }
+
+    private long readZigzag() throws IOException {
+        long value = readVarint();
+        return value >>> 1 ^ -(value & 1);
+    }
+
+    private long readVarint() throws IOException {
+        long value = 0;
+
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+
+        throw error("Invalid varint");
+    }
+
+    private int readInt() throws IOException {
+        require(4);
+        int value = (buffer[position] & 0xFF)
+                | (buffer[position + 1] & 0xFF) << 8
+                | (buffer[position + 2] & 0xFF) << 16
+                | buffer[position + 3] << 24;
+        position += 4;
+
+        return value;
+    }
+
+    private long readLong() throws IOException {
+        return (readInt() & 0xFFFFFFFFL) | (long) readInt() << 32;
+    }
+
+    private void require(int length) throws IOException {
+        if (limit - position < length && !fill(length)) {
+            throw error("Unexpected end of input");
+        }
+    }
+
+    /**
+     * Reads until at least the given number of bytes is buffered. The buffer grows only as the bytes arrive, as the
+     * length may come from the input.
+     *
+     * @return false if the input ended before
+     */
+    private boolean fill(int length) throws IOException {
+        if (in == null) {
+            return false;
+        }
+
+        int remaining = limit - position;
+        System.arraycopy(buffer, position, buffer, 0, remaining);
+        offset += position;
+        position = 0;
+        limit = remaining;
+
+        while (limit < length) {
+            if (limit == buffer.length) {
+                buffer = Arrays.copyOf(buffer, (int) Math.min(length, buffer.length * 2L));
+            }
+
+            int read = in.read(buffer, limit, buffer.length - limit);
+            if (read == -1) {
+                return false;
+            }
+            limit += read;
+        }
+
+        return true;
+    }
+
+    private JsonException error(String message) {
+        return new JsonException(message + " at byte offset " + (offset + position));
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (in != null) {
+            in.close();
+        }
+    }
+
+}
@@ -0,0 +1,363 @@
+package com.odinallfather.json.binary;
+
+import com.odinallfather.json.JsonArray;
+import com.odinallfather.json.JsonObject;
+import com.odinallfather.json.JsonValue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAccumulator;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.odinallfather.json.binary.BinaryFormat.*;
+
+/**
+ * Writes {@link JsonValue}s in the binary format described in {@link BinaryFormat}, to be read by a
+ * {@link BinaryJsonReader}. Numbers keep their type, so the values read back print the same text.
+ */
+public class BinaryJsonWriter implements Closeable, Flushable {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final OutputStream out;
+    private final boolean references;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private boolean headerWritten;
+
+    private Map<String, Integer> keys;
+    private Map<String, Integer> strings;
+
+    public BinaryJsonWriter(OutputStream out) {
+        this(out, true);
+    }
+
+    /**
+     * @param references true to write repeated keys and short strings as references to their first occurrence
+     */
+    public BinaryJsonWriter(OutputStream out, boolean references) {
+        this.out = Objects.requireNonNull(out, "out may not be null");
+        this.references = references;
+
+        if (references) {
+            keys = new HashMap<>();
+            strings = new HashMap<>();
+        }
+    }
+
+    public static byte[] toBytes(JsonValue json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try (BinaryJsonWriter writer = new BinaryJsonWriter(out)) {
+            writer.write(json);
+        } catch (IOException exception) {
+            throw new AssertionError(exception); // Cannot happen for a ByteArrayOutputStream
+        }
+
+        return out.toByteArray();
+    }
+
+    public void write(JsonValue value) throws IOException {
+        if (!headerWritten) {
+            ensure(MAGIC.length + 2);
+            System.arraycopy(MAGIC, 0, buffer, position, MAGIC.length);
+            position += MAGIC.length;
+            buffer[position++] = VERSION;
+            buffer[position++] = references ? FLAG_REFERENCES : 0;
+            headerWritten = true;
+        }
+
+        writeValue(value);
+    }
+
+    /**
+     * Writes the value and everything nested in it without recursion.
+     */
+    private void writeValue(JsonValue value) throws IOException {
+        if (!isContainer(value)) {
+            writeScalar(value);
+            return;
+        }
+
+        ArrayDeque<Iterator<?>> parents = new ArrayDeque<>();
+        Iterator<?> current = open(value);
+        for (; ; ) {
+            if (!current.hasNext()) {
+                if (parents.isEmpty()) {
+                    return;
+                }
+                current = parents.pop();
+                continue;
+            }
+
+            Object next = current.next();
+            JsonValue child;
+            if (next instanceof Map.Entry) {
+                Map.Entry<?, ?> entry = (Map.Entry<?, ?>) next;
+                writeKey((String) entry.getKey());
+                child = (JsonValue) entry.getValue();
+            } else {
+                child = (JsonValue) next;
+            }
+
+            if (isContainer(child)) {
+                parents.push(current);
+                current = open(child);
+            } else {
+                writeScalar(child);
+            }
+        }
+    }
+
+    private static boolean isContainer(JsonValue value) {
+        return value.getType() == JsonValue.TYPE_OBJECT || value.getType() == JsonValue.TYPE_ARRAY;
+    }
+
+    /**
+     * Writes the tag and size of an object or array.
+     *
+     * @return the entries or elements to write
+     */
+    private Iterator<?> open(JsonValue value) throws IOException {
+        if (value.getType() == JsonValue.TYPE_OBJECT) {
+            JsonObject object = (JsonObject) value.getValue();
+            writeByte(OBJECT);
+            writeVarint(object.size());
+            return object.entrySet().iterator();
+        }
+
+        JsonArray array = (JsonArray) value.getValue();
+        writeByte(ARRAY);
+        writeVarint(array.size());
+        return array.iterator();
+    }
+
+    private void writeScalar(JsonValue value) throws IOException {
+        switch (value.getType()) {
+            // @formatter:off
+            case JsonValue.TYPE_NULL:
+                writeByte(NULL);
+                break;
+            case JsonValue.TYPE_STRING:
+                writeString((String) value.getValue());
+                break;
+            case JsonValue.TYPE_NUMBER:
+                writeNumber((Number) value.getValue());
+                break;
+            case JsonValue.TYPE_BOOLEAN:
+                writeByte((Boolean) value.getValue() ? TRUE : FALSE);
+                break;
+            // @formatter:on
+        }
+    }
+
+    private void writeKey(String key) throws IOException {
+        Integer index = references ? keys.get(key) : null;
+
+        if (index != null) {
+            writeVarint((long) index << 1 | 1);
+        } else {
+            int length = writeUtf8(key, true);
+            if (references && isReferenceable(length) && keys.size() < MAX_REFERENCES) {
+                keys.put(key, keys.size());
+            }
+        }
+    }
+
+    private void writeString(String string) throws IOException {
+        Integer index = references ? strings.get(string) : null;
+
+        if (index != null) {
+            writeByte(STRING_REFERENCE);
+            writeVarint(index);
+        } else {
+            writeByte(STRING);
+            int length = writeUtf8(string, false);
+            if (references && isReferenceable(length) && strings.size() < MAX_REFERENCES) {
+                strings.put(string, strings.size());
+            }
+        }
+    }
+
+    private void writeNumber(Number number) throws IOException {
+        if (number instanceof Long) {
+            long value = number.longValue();
+            if (value >= SMALL_LONG_MIN && value <= SMALL_LONG_MAX) {
+                writeByte((byte) (SMALL_LONG + value));
+            } else {
+                writeByte(LONG);
+                writeZigzag(value);
+            }
+        } else if (number instanceof Integer) {
+            writeByte(INTEGER);
+            writeZigzag(number.intValue());
+        } else if (number instanceof Double) {
+            double value = number.doubleValue();
+            float floatValue = (float) value;
+            if (floatValue == value) {
+                writeByte(DOUBLE_AS_FLOAT);
+                writeInt(Float.floatToRawIntBits(floatValue));
+            } else {
+                writeByte(DOUBLE);
+                writeLong(Double.doubleToRawLongBits(value));
+            }
+        } else if (number instanceof Float) {
+            writeByte(FLOAT);
+            writeInt(Float.floatToRawIntBits(number.floatValue()));
+        } else if (number instanceof Short) {
+            writeByte(SHORT);
+            writeZigzag(number.shortValue());
+        } else if (number instanceof Byte) {
+            writeByte(BYTE);
+            writeByte(number.byteValue());
+        } else if (number instanceof BigInteger) {
+            writeByte(BIG_INTEGER);
+            writeBytes(((BigInteger) number).toByteArray());
+        } else if (number instanceof BigDecimal) {
+            BigDecimal decimal = (BigDecimal) number;
+            writeByte(BIG_DECIMAL);
+            writeZigzag(decimal.scale());
+            writeBytes(decimal.unscaledValue().toByteArray());
+        } else if (number instanceof AtomicInteger || number instanceof AtomicLong || number instanceof LongAdder || number instanceof LongAccumulator) {
+            writeByte(LONG);
+            writeZigzag(number.longValue()); // Prints the same as a Long
+        } else if (number instanceof DoubleAdder || number instanceof DoubleAccumulator) {
+            writeByte(DOUBLE);
+            writeLong(Double.doubleToRawLongBits(number.doubleValue()));
+        } else {
+            // An unknown type, keep its text
+            writeByte(BIG_DECIMAL);
+            BigDecimal decimal = new BigDecimal(number.toString());
+            writeZigzag(decimal.scale());
+            writeBytes(decimal.unscaledValue().toByteArray());
+        }
+    }
+
+    /**
+     * Writes the length, shifted left by one if it is a key, and the UTF-8 bytes of the string.
+     *
+     * @return the length in bytes
+     */
+    private int writeUtf8(String string, boolean key) throws IOException {
+        int length = string.length();
+
+        // Most strings are ASCII, which can be copied directly as the length is known
+        if (length <= BUFFER_SIZE - 10) {
+            ensure(length + 10);
+            int start = position;
+            writeVarint(key ? (long) length << 1 : length);
+
+            int p = position;
+            for (int i = 0; i < length; i++) {
+                char chr = string.charAt(i);
+                if (chr >= 0x80) {
+                    position = start;
+                    return writeUtf8Bytes(string, key);
+                }
+                buffer[p++] = (byte) chr;
+            }
+            position = p;
+
+            return length;
+        }
+
+        return writeUtf8Bytes(string, key);
+    }
+
+    private int writeUtf8Bytes(String string, boolean key) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+
+        writeVarint(key ? (long) bytes.length << 1 : bytes.length);
+        writeRaw(bytes);
+
+        return bytes.length;
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        writeVarint(bytes.length);
+        writeRaw(bytes);
+    }
+
+    private void writeRaw(byte[] bytes) throws IOException {
+        if (bytes.length > BUFFER_SIZE) {
+            flushBuffer();
+            out.write(bytes);
+        } else {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+    }
+
+    private void writeByte(byte value) throws IOException {
+        ensure(1);
+        buffer[position++] = value;
+    }
+
+    private void writeZigzag(long value) throws IOException {
+        writeVarint(value << 1 ^ value >> 63);
+    }
+
+    private void writeVarint(long value) throws IOException {
+        ensure(10);
+
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) (value | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    private void writeInt(int value) throws IOException {
+        ensure(4);
+
+        buffer[position++] = (byte) value;
+        buffer[position++] = (byte) (value >>> 8);
+        buffer[position++] = (byte) (value >>> 16);
+        buffer[position++] = (byte) (value >>> 24);
+    }
+
+    private void writeLong(long value) throws IOException {
+        writeInt((int) value);
+        writeInt((int) (value >>> 32));
+    }
+
+    private void ensure(int length) throws IOException {
+        if (position + length > BUFFER_SIZE) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flushBuffer();
+        out.close();
+    }
+
+}
@@ -0,0 +1,45 @@
+package com.odinallfather.json.bind;
+
+import com.odinallfather.json.JsonParser;
+import com.odinallfather.json.JsonPrinter;
+import com.odinallfather.json.JsonValue;
+
+import java.io.IOException;
+
+/**
+ * Converts the values of one Java type into OdinJson values and back. Codecs are created once per type by
+ * {@link JsonBinder} and shared between threads.
+ */
+abstract class Codec {
+
+    abstract JsonValue toJson(Object value);
+
+    /**
+     * @param json value to convert, may be null if it is missing
+     */
+    abstract Object fromJson(JsonValue json);
+
+    void write(Object value, JsonPrinter printer) throws IOException {
+        printer.print(toJson(value));
+    }
+
+    /**
+     * Reads the next value of the parser straight into the Java type, without building an OdinJson value where the
+     * codec allows it.
+     */
+    Object read(JsonParser parser) throws IOException {
+        return fromJson(parser.readValue());
+    }
+
+    static RuntimeException rethrow(Throwable throwable) {
+        if (throwable instanceof RuntimeException) {
+            throw (RuntimeException) throwable;
+        }
+        if (throwable instanceof Error) {
+            throw (Error) throwable;
+        }
+
+        return new IllegalStateException(throwable);
+    }
+
+}
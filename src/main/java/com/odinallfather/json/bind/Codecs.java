@@ -0,0 +1,650 @@
+package com.odinallfather.json.bind;
+
+import com.odinallfather.json.JsonArray;
+import com.odinallfather.json.JsonException;
+import com.odinallfather.json.JsonObject;
+import com.odinallfather.json.JsonParser;
+import com.odinallfather.json.JsonPrinter;
+import com.odinallfather.json.JsonValue;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+import java.util.function.Function;
+
+final class Codecs {
+
+    private Codecs() { }
+
+    static Codec create(Type type) {
+        if (type instanceof Class) {
+            return create((Class<?>) type);
+        }
+
+        if (type instanceof ParameterizedType) {
+            ParameterizedType parameterized = (ParameterizedType) type;
+            Class<?> raw = (Class<?>) parameterized.getRawType();
+            Type[] arguments = parameterized.getActualTypeArguments();
+
+            if (Collection.class.isAssignableFrom(raw)) {
+                return new CollectionCodec(raw, JsonBinder.codecFor(arguments[0]));
+            }
+            if (Map.class.isAssignableFrom(raw)) {
+                checkMapKey(arguments[0]);
+                return new MapCodec(raw, JsonBinder.codecFor(arguments[1]));
+            }
+
+            return new ObjectCodec(raw, parameterized);
+        }
+
+        if (type instanceof GenericArrayType) {
+            Type component = ((GenericArrayType) type).getGenericComponentType();
+            return new ArrayCodec(erasure(component), JsonBinder.codecFor(component));
+        }
+
+        return create(erasure(type));
+    }
+
+    private static Codec create(Class<?> type) {
+        // @formatter:off
+        if (type == String.class) return STRING;
+        if (type == boolean.class) return new ScalarCodec(JsonValue::asBoolean, JsonParser::readBoolean, false);
+        if (type == Boolean.class) return new ScalarCodec(JsonValue::asBoolean, JsonParser::readBoolean, null);
+        if (type == byte.class) return new ScalarCodec(JsonValue::asByte, parser -> (byte) parser.readLong(), (byte) 0);
+        if (type == Byte.class) return new ScalarCodec(JsonValue::asByte, parser -> (byte) parser.readLong(), null);
+        if (type == short.class) return new ScalarCodec(JsonValue::asShort, parser -> (short) parser.readLong(), (short) 0);
+        if (type == Short.class) return new ScalarCodec(JsonValue::asShort, parser -> (short) parser.readLong(), null);
+        if (type == int.class) return new ScalarCodec(JsonValue::asInt, parser -> (int) parser.readLong(), 0);
+        if (type == Integer.class) return new ScalarCodec(JsonValue::asInt, parser -> (int) parser.readLong(), null);
+        if (type == long.class) return new ScalarCodec(JsonValue::asLong, JsonParser::readLong, 0L);
+        if (type == Long.class) return new ScalarCodec(JsonValue::asLong, JsonParser::readLong, null);
+        if (type == float.class) return new ScalarCodec(JsonValue::asFloat, parser -> (float) parser.readDouble(), 0f);
+        if (type == Float.class) return new ScalarCodec(JsonValue::asFloat, parser -> (float) parser.readDouble(), null);
+        if (type == double.class) return new ScalarCodec(JsonValue::asDouble, JsonParser::readDouble, 0d);
+        if (type == Double.class) return new ScalarCodec(JsonValue::asDouble, JsonParser::readDouble, null);
+        if (type == BigInteger.class) return new ScalarCodec(json -> toBigDecimal(json).toBigInteger(), null, null);
+        if (type == BigDecimal.class) return new ScalarCodec(Codecs::toBigDecimal, null, null);
+        if (type == Number.class) return new ScalarCodec(Codecs::toNumber, null, null);
+        if (type == char.class) return new CharCodec('\0');
+        if (type == Character.class) return new CharCodec(null);
+        if (type == JsonValue.class) return JSON_VALUE;
+        if (type == JsonObject.class) return new ScalarCodec(JsonValue::asObject, null, null);
+        if (type == JsonArray.class) return new ScalarCodec(JsonValue::asArray, null, null);
+        if (type == Object.class) return DYNAMIC;
+        // @formatter:on
+
+        if (type.isEnum()) {
+            return new EnumCodec(type);
+        }
+        if (type.isArray()) {
+            return new ArrayCodec(type.getComponentType(), JsonBinder.codecFor(type.getComponentType()));
+        }
+        if (Collection.class.isAssignableFrom(type)) {
+            return new CollectionCodec(type, DYNAMIC);
+        }
+        if (Map.class.isAssignableFrom(type)) {
+            return new MapCodec(type, DYNAMIC);
+        }
+
+        return new ObjectCodec(type, null);
+    }
+
+    static Class<?> erasure(Type type) {
+        if (type instanceof Class) {
+            return (Class<?>) type;
+        }
+        if (type instanceof ParameterizedType) {
+            return (Class<?>) ((ParameterizedType) type).getRawType();
+        }
+        if (type instanceof GenericArrayType) {
+            return Array.newInstance(erasure(((GenericArrayType) type).getGenericComponentType()), 0).getClass();
+        }
+        if (type instanceof WildcardType) {
+            return erasure(((WildcardType) type).getUpperBounds()[0]);
+        }
+        if (type instanceof TypeVariable) {
+            return erasure(((TypeVariable<?>) type).getBounds()[0]);
+        }
+
+        throw new IllegalArgumentException("Unknown type: " + type);
+    }
+
+    private static void checkMapKey(Type keyType) {
+        Class<?> key = erasure(keyType);
+        if (key != String.class && key != Object.class) {
+            throw new IllegalArgumentException("Only maps with string keys can be bound, got " + keyType);
+        }
+    }
+
+    private static BigDecimal toBigDecimal(JsonValue json) {
+        Number number = toNumber(json);
+        if (number instanceof BigDecimal) {
+            return (BigDecimal) number;
+        }
+
+        return new BigDecimal(number.toString());
+    }
+
+    private static Number toNumber(JsonValue json) {
+        if (!json.isNumber()) {
+            throw new IllegalStateException("Invalid value type (expected=number current=" + json.getTypeName() + ")");
+        }
+
+        return (Number) json.getValue();
+    }
+
+    /**
+     * Creates a no-arg constructor handle of type ()Object, or returns null if there is none
+     */
+    static MethodHandle findConstructor(Class<?> type) {
+        if (type.isInterface() || Modifier.isAbstract(type.getModifiers())) {
+            return null;
+        }
+
+        try {
+            Constructor<?> constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return MethodHandles.lookup().unreflectConstructor(constructor).asType(MethodType.methodType(Object.class));
+        } catch (NoSuchMethodException exception) {
+            return null;
+        } catch (ReflectiveOperationException | RuntimeException exception) {
+            throw new IllegalArgumentException("Cannot access the constructor of " + type.getName(), exception);
+        }
+    }
+
+    /**
+     * Reads a value straight from a parser
+     */
+    interface ValueReader {
+
+        Object read(JsonParser parser) throws IOException;
+    }
+
+    static final Codec STRING = new ScalarCodec(JsonValue::asString, JsonParser::readString, null);
+
+    static final Codec JSON_VALUE = new Codec() {
+        @Override
+        JsonValue toJson(Object value) {
+            return value == null ? new JsonValue() : (JsonValue) value;
+        }
+
+        @Override
+        Object fromJson(JsonValue json) {
+            return json == null ? new JsonValue() : json;
+        }
+    };
+
+    /**
+     * Codec for values declared as {@link Object}: they are written according to their runtime type and read as the
+     * raw OdinJson value.
+     */
+    static final Codec DYNAMIC = new Codec() {
+        @Override
+        JsonValue toJson(Object value) {
+            if (value == null) {
+                return new JsonValue();
+            }
+            if (value.getClass() == Object.class) {
+                return new JsonValue(new JsonObject());
+            }
+
+            return JsonBinder.codecFor(value.getClass()).toJson(value);
+        }
+
+        @Override
+        Object fromJson(JsonValue json) {
+            return json == null ? null : json.getValue();
+        }
+
+        @Override
+        void write(Object value, JsonPrinter printer) throws IOException {
+            if (value == null) {
+                printer.printNull();
+            } else if (value.getClass() == Object.class) {
+                printer.print(new JsonObject());
+            } else {
+                JsonBinder.codecFor(value.getClass()).write(value, printer);
+            }
+        }
+    };
+
+    /**
+     * Strings, booleans and numbers, which {@link JsonValue} can hold directly
+     */
+    static final class ScalarCodec extends Codec {
+
+        private final Function<JsonValue, Object> reader;
+        private final ValueReader parserReader;
+        private final Object nullValue;
+
+        /**
+         * @param parserReader reads the value straight from the parser, or null to read an OdinJson value first
+         */
+        ScalarCodec(Function<JsonValue, Object> reader, ValueReader parserReader, Object nullValue) {
+            this.reader = reader;
+            this.parserReader = parserReader;
+            this.nullValue = nullValue;
+        }
+
+        @Override
+        Object read(JsonParser parser) throws IOException {
+            if (parserReader == null) {
+                return fromJson(parser.readValue());
+            }
+            if (parser.peek() == 'n') {
+                parser.readNull();
+                return nullValue;
+            }
+
+            return parserReader.read(parser);
+        }
+
+        @Override
+        JsonValue toJson(Object value) {
+            return new JsonValue(value);
+        }
+
+        @Override
+        Object fromJson(JsonValue json) {
+            return json == null || json.isNull() ? nullValue : reader.apply(json);
+        }
+
+        @Override
+        void write(Object value, JsonPrinter printer) throws IOException {
+            if (value == null) {
+                printer.printNull();
+            } else if (value instanceof String) {
+                printer.print((String) value);
+            } else if (value instanceof Number) {
+                printer.print((Number) value);
+            } else if (value instanceof Boolean) {
+                printer.print((Boolean) value);
+            } else {
+                printer.print(toJson(value));
+            }
+        }
+    }
+
+    static final class CharCodec extends Codec {
+
+        private final Object nullValue;
+
+        CharCodec(Object nullValue) {
+            this.nullValue = nullValue;
+        }
+
+        @Override
+        JsonValue toJson(Object value) {
+            return value == null ? new JsonValue() : new JsonValue(value.toString());
+        }
+
+        @Override
+        Object fromJson(JsonValue json) {
+            if (json == null || json.isNull()) {
+                return nullValue;
+            }
+
+            String str = json.asString();
+            if (str.length() != 1) {
+                throw new IllegalStateException("Expected a single character but got \"" + str + "\"");
+            }
+
+            return str.charAt(0);
+        }
+
+        @Override
+        Object read(JsonParser parser) throws IOException {
+            if (parser.peek() == 'n') {
+                parser.readNull();
+                return nullValue;
+            }
+
+            return fromJson(new JsonValue(parser.readString()));
+        }
+    }
+
+    static final class EnumCodec extends Codec {
+
+        private final Map<String, Object> constants = new HashMap<>();
+
+        EnumCodec(Class<?> type) {
+            for (Object constant : type.getEnumConstants()) {
+                constants.put(((Enum<?>) constant).name(), constant);
+            }
+        }
+
+        @Override
+        JsonValue toJson(Object value) {
+            return value == null ? new JsonValue() : new JsonValue(((Enum<?>) value).name());
+        }
+
+        @Override
+        Object fromJson(JsonValue json) {
+            if (json == null || json.isNull()) {
+                return null;
+            }
+
+            Object constant = constants.get(json.asString());
+            if (constant == null) {
+                throw new IllegalStateException("Unknown enum constant " + json);
+            }
+
+            return constant;
+        }
+
+        @Override
+        Object read(JsonParser parser) throws IOException {
+            if (parser.peek() == 'n') {
+                parser.readNull();
+                return null;
+            }
+
+            String name = parser.readString();
+            Object constant = constants.get(name);
+            if (constant == null) {
+                throw new JsonException("Unknown enum constant \"" + name + "\"");
+            }
+
+            return constant;
+        }
+
+        @Override
+        void write(Object value, JsonPrinter printer) throws IOException {
+            printer.print(value == null ? null : ((Enum<?>) value).name());
+        }
+    }
+
+    static final class ArrayCodec extends Codec {
+
+        private final Class<?> componentType;
+        private final Codec component;
+
+        ArrayCodec(Class<?> componentType, Codec component) {
+            this.componentType = componentType;
+            this.component = component;
+        }
+
+        @Override
+        JsonValue toJson(Object value) {
+            if (value == null) {
+                return new JsonValue();
+            }
+
+            int length = Array.getLength(value);
+            JsonArray array = new JsonArray(length);
+            for (int i = 0; i < length; i++) {
+                array.add(component.toJson(Array.get(value, i)));
+            }
+
+            return new JsonValue(array);
+        }
+
+        @Override
+        Object fromJson(JsonValue json) {
+            if (json == null || json.isNull()) {
+                return null;
+            }
+
+            JsonArray array = json.asArray();
+            Object value = Array.newInstance(componentType, array.size());
+            for (int i = 0; i < array.size(); i++) {
+                Array.set(value, i, component.fromJson(array.get(i)));
+            }
+
+            return value;
+        }
+
+        @Override
+        Object read(JsonParser parser) throws IOException {
+            if (parser.peek() == 'n') {
+                parser.readNull();
+                return null;
+            }
+
+            List<Object> items = new ArrayList<>();
+            if (parser.beginArray()) {
+                do {
+                    items.add(component.read(parser));
+                } while (parser.nextElement());
+            }
+
+            Object value = Array.newInstance(componentType, items.size());
+            for (int i = 0; i < items.size(); i++) {
+                Array.set(value, i, items.get(i));
+            }
+
+            return value;
+        }
+
+        @Override
+        void write(Object value, JsonPrinter printer) throws IOException {
+            if (value == null) {
+                printer.printNull();
+                return;
+            }
+
+            int length = Array.getLength(value);
+            printer.beginArray();
+            for (int i = 0; i < length; i++) {
+                printer.printElementSeparator(i == 0);
+                component.write(Array.get(value, i), printer);
+            }
+            printer.endArray(length == 0);
+        }
+    }
+
+    static final class CollectionCodec extends Codec {
+
+        private final MethodHandle constructor;
+        private final Class<?> type;
+        private final Codec element;
+
+        CollectionCodec(Class<?> type, Codec element) {
+            this.type = type;
+            this.element = element;
+
+            if (type.isAssignableFrom(ArrayList.class)) {
+                constructor = findConstructor(ArrayList.class);
+            } else if (type.isAssignableFrom(LinkedHashSet.class)) {
+                constructor = findConstructor(LinkedHashSet.class);
+            } else if (type.isAssignableFrom(TreeSet.class)) {
+                constructor = findConstructor(TreeSet.class);
+            } else if (type.isAssignableFrom(ArrayDeque.class)) {
+                constructor = findConstructor(ArrayDeque.class);
+            } else {
+                constructor = findConstructor(type);
+            }
+        }
+
+        @Override
+        JsonValue toJson(Object value) {
+            if (value == null) {
+                return new JsonValue();
+            }
+
+            Collection<?> collection = (Collection<?>) value;
+            JsonArray array = new JsonArray(collection.size());
+            for (Object item : collection) {
+                array.add(element.toJson(item));
+            }
+
+            return new JsonValue(array);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        Object fromJson(JsonValue json) {
+            if (json == null || json.isNull()) {
+                return null;
+            }
+            if (constructor == null) {
+                throw new IllegalArgumentException("Cannot instantiate " + type.getName());
+            }
+
+            Collection<Object> collection;
+            try {
+                collection = (Collection<Object>) (Object) constructor.invokeExact();
+            } catch (Throwable throwable) {
+                throw rethrow(throwable);
+            }
+
+            for (JsonValue item : json.asArray()) {
+                collection.add(element.fromJson(item));
+            }
+
+            return collection;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        Object read(JsonParser parser) throws IOException {
+            if (parser.peek() == 'n') {
+                parser.readNull();
+                return null;
+            }
+            if (constructor == null) {
+                throw new IllegalArgumentException("Cannot instantiate " + type.getName());
+            }
+
+            Collection<Object> collection;
+            try {
+                collection = (Collection<Object>) (Object) constructor.invokeExact();
+            } catch (Throwable throwable) {
+                throw rethrow(throwable);
+            }
+
+            if (parser.beginArray()) {
+                do {
+                    collection.add(element.read(parser));
+                } while (parser.nextElement());
+            }
+
+            return collection;
+        }
+
+        @Override
+        void write(Object value, JsonPrinter printer) throws IOException {
+            if (value == null) {
+                printer.printNull();
+                return;
+            }
+
+            boolean first = true;
+            printer.beginArray();
+            for (Object item : (Collection<?>) value) {
+                printer.printElementSeparator(first);
+                element.write(item, printer);
+                first = false;
+            }
+            printer.endArray(first);
+        }
+    }
+
+    static final class MapCodec extends Codec {
+
+        private final MethodHandle constructor;
+        private final Class<?> type;
+        private final Codec value;
+
+        MapCodec(Class<?> type, Codec value) {
+            this.type = type;
+            this.value = value;
+
+            if (type.isAssignableFrom(LinkedHashMap.class)) {
+                constructor = findConstructor(LinkedHashMap.class);
+            } else if (type.isAssignableFrom(TreeMap.class)) {
+                constructor = findConstructor(TreeMap.class);
+            } else {
+                constructor = findConstructor(type);
+            }
+        }
+
+        @Override
+        JsonValue toJson(Object value) {
+            if (value == null) {
+                return new JsonValue();
+            }
+
+            JsonObject object = new JsonObject();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                object.put(String.valueOf(entry.getKey()), this.value.toJson(entry.getValue()));
+            }
+
+            return new JsonValue(object);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        Object fromJson(JsonValue json) {
+            if (json == null || json.isNull()) {
+                return null;
+            }
+            if (constructor == null) {
+                throw new IllegalArgumentException("Cannot instantiate " + type.getName());
+            }
+
+            Map<String, Object> map;
+            try {
+                map = (Map<String, Object>) (Object) constructor.invokeExact();
+            } catch (Throwable throwable) {
+                throw rethrow(throwable);
+            }
+
+            for (Map.Entry<String, JsonValue> entry : json.asObject().entrySet()) {
+                map.put(entry.getKey(), value.fromJson(entry.getValue()));
+            }
+
+            return map;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        Object read(JsonParser parser) throws IOException {
+            if (parser.peek() == 'n') {
+                parser.readNull();
+                return null;
+            }
+            if (constructor == null) {
+                throw new IllegalArgumentException("Cannot instantiate " + type.getName());
+            }
+
+            Map<String, Object> map;
+            try {
+                map = (Map<String, Object>) (Object) constructor.invokeExact();
+            } catch (Throwable throwable) {
+                throw rethrow(throwable);
+            }
+
+            if (parser.beginObject()) {
+                do {
+                    map.put(parser.readName(), value.read(parser));
+                } while (parser.nextEntry());
+            }
+
+            return map;
+        }
+
+        @Override
+        void write(Object value, JsonPrinter printer) throws IOException {
+            if (value == null) {
+                printer.printNull();
+                return;
+            }
+
+            boolean first = true;
+            printer.beginObject();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                printer.printName(String.valueOf(entry.getKey()), first);
+                this.value.write(entry.getValue(), printer);
+                first = false;
+            }
+            printer.endObject(first);
+        }
+    }
+
+}
@@ -0,0 +1,113 @@
+package com.odinallfather.json.bind;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Perfect hash table from property names to property indices. The seed is searched once per type so that no two
+ * names share a slot, so a lookup is one hash over the raw characters of a name and one comparison, without creating
+ * a String. If no seed is found, e.g. for very many names, colliding names are probed linearly.
+ */
+final class FieldTable {
+
+    // How many times the smallest table may grow while searching a seed
+    private static final int MAX_GROWTH = 2;
+    private static final int MAX_SEED = 256;
+
+    private final int seed;
+    private final int mask;
+    private final boolean perfect;
+    private final char[][] names;
+    private final int[] indices;
+
+    private FieldTable(int seed, int size, boolean perfect) {
+        this.seed = seed;
+        this.mask = size - 1;
+        this.perfect = perfect;
+        this.names = new char[size][];
+        this.indices = new int[size];
+    }
+
+    static FieldTable of(String[] names) {
+        Set<String> distinct = new HashSet<>();
+        for (String name : names) {
+            if (!distinct.add(name)) {
+                throw new IllegalArgumentException("Duplicate property name " + name);
+            }
+        }
+
+        int minSize = Integer.highestOneBit(Math.max(names.length, 1) * 2 - 1) << 1;
+        for (int size = minSize; size <= minSize << MAX_GROWTH; size <<= 1) {
+            for (int seed = 1; seed < MAX_SEED; seed++) {
+                FieldTable table = tryBuild(names, seed, size);
+                if (table != null) {
+                    return table;
+                }
+            }
+        }
+
+        // At most half full, so the probe sequences are short
+        FieldTable table = new FieldTable(1, minSize, false);
+        for (int i = 0; i < names.length; i++) {
+            char[] name = names[i].toCharArray();
+            int slot = table.slot(name, name.length);
+            while (table.names[slot] != null) {
+                slot = slot + 1 & table.mask;
+            }
+            table.names[slot] = name;
+            table.indices[slot] = i;
+        }
+
+        return table;
+    }
+
+    private static FieldTable tryBuild(String[] names, int seed, int size) {
+        FieldTable table = new FieldTable(seed, size, true);
+
+        for (int i = 0; i < names.length; i++) {
+            char[] name = names[i].toCharArray();
+            int slot = table.slot(name, name.length);
+            if (table.names[slot] != null) {
+                return null;
+            }
+            table.names[slot] = name;
+            table.indices[slot] = i;
+        }
+
+        return table;
+    }
+
+    private int slot(char[] chars, int length) {
+        // The seed is mixed into every step, so that names colliding for one seed do not collide for all
+        int hash = seed;
+        for (int i = 0; i < length; i++) {
+            hash = (hash ^ chars[i]) * 0x01000193 + seed;
+        }
+        hash *= 0x9E3779B9;
+
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    /**
+     * @return the index of the property with the name or -1 if there is none
+     */
+    int find(char[] chars, int length) {
+        int slot = slot(chars, length);
+
+        for (; ; ) {
+            char[] name = names[slot];
+            if (name == null) {
+                return -1;
+            }
+            if (Arrays.equals(name, 0, name.length, chars, 0, length)) {
+                return indices[slot];
+            }
+            if (perfect) {
+                return -1;
+            }
+            slot = slot + 1 & mask;
+        }
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.odinallfather.json.bind;
+
+import com.odinallfather.json.JsonParser;
+import com.odinallfather.json.JsonPrinter;
+import com.odinallfather.json.JsonValue;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Binds Java objects to OdinJson values and back.
+ * <p>
+ * Classes are bound by their non-static, non-transient fields and need a no-arg constructor, records are bound by
+ * their components. Strings, primitives and their wrappers, {@link java.math.BigInteger}, {@link
+ * java.math.BigDecimal}, enums, arrays, collections, maps with string keys and the OdinJson types are supported as
+ * property types. The accessors of every type are created once as method handles and cached.
+ */
+public class JsonBinder {
+
+    private static final Map<Type, Codec> CODECS = new ConcurrentHashMap<>();
+
+    static Codec codecFor(Type type) {
+        Codec codec = CODECS.get(type);
+        if (codec == null) {
+            // Not computeIfAbsent: creating a codec may create the codecs of its element types
+            Codec created = Codecs.create(type);
+            codec = CODECS.putIfAbsent(type, created);
+            if (codec == null) {
+                codec = created;
+            }
+        }
+
+        return codec;
+    }
+
+    /**
+     * Converts an object into an OdinJson value
+     *
+     * @param value object to convert, may be null
+     */
+    public static JsonValue toJson(Object value) {
+        return value == null ? new JsonValue() : codecFor(value.getClass()).toJson(value);
+    }
+
+    /**
+     * Converts an OdinJson value into an object of the given type
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T fromJson(JsonValue json, Class<T> type) {
+        return (T) codecFor(type).fromJson(json);
+    }
+
+    /**
+     * Converts an OdinJson value into an object of the given generic type, e.g. a {@code List<Foo>}
+     */
+    public static Object fromJson(JsonValue json, Type type) {
+        return codecFor(type).fromJson(json);
+    }
+
+    /**
+     * Prints an object without converting it into an OdinJson value first
+     *
+     * @param value object to print, may be null
+     */
+    public static void write(Object value, JsonPrinter printer) throws IOException {
+        if (value == null) {
+            printer.printNull();
+        } else {
+            codecFor(value.getClass()).write(value, printer);
+        }
+    }
+
+    /**
+     * Reads the next value of the parser as an object of the given type. Objects are filled straight from the
+     * parser, property names are matched without creating Strings and unknown entries are skipped, so no
+     * intermediate OdinJson values are built.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T read(JsonParser parser, Class<T> type) throws IOException {
+        return (T) read(parser, (Type) type);
+    }
+
+    /**
+     * Reads the next value of the parser as an object of the given generic type
+     */
+    public static Object read(JsonParser parser, Type type) throws IOException {
+        return codecFor(type).read(parser);
+    }
+
+}
@@ -0,0 +1,394 @@
+package com.odinallfather.json.bind;
+
+import com.odinallfather.json.JsonObject;
+import com.odinallfather.json.JsonParser;
+import com.odinallfather.json.JsonPrinter;
+import com.odinallfather.json.JsonValue;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.*;
+import java.util.*;
+
+/**
+ * Binds classes by their instance fields and records by their components. The properties are resolved lazily on
+ * first use, so that types can refer to themselves.
+ */
+final class ObjectCodec extends Codec {
+
+    private final Class<?> type;
+    private final ParameterizedType parameterized;
+
+    private volatile Property[] properties;
+    private FieldTable fieldTable;
+
+    /**
+     * ()Object for classes, (Object[])Object taking the component values for records
+     */
+    private MethodHandle constructor;
+    private Object[] defaultArguments;
+
+    ObjectCodec(Class<?> type, ParameterizedType parameterized) {
+        this.type = type;
+        this.parameterized = parameterized;
+    }
+
+    Property[] properties() {
+        Property[] properties = this.properties;
+        if (properties == null) {
+            synchronized (this) {
+                if ((properties = this.properties) == null) {
+                    properties = type.isRecord() ? bindRecord() : bindClass();
+
+                    String[] names = new String[properties.length];
+                    for (int i = 0; i < names.length; i++) {
+                        names[i] = properties[i].name;
+                    }
+                    fieldTable = FieldTable.of(names);
+
+                    this.properties = properties;
+                }
+            }
+        }
+
+        return properties;
+    }
+
+    private Property[] bindClass() {
+        constructor = Codecs.findConstructor(type);
+
+        List<Field> fields = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            List<Field> declared = new ArrayList<>();
+            for (Field field : current.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                // A field hidden by a field of a sub class with the same name is not bound
+                if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers) && !field.isSynthetic()
+                        && names.add(field.getName())) {
+                    declared.add(field);
+                }
+            }
+            fields.addAll(0, declared); // Fields of the super class first
+        }
+
+        Property[] properties = new Property[fields.size()];
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+        for (int i = 0; i < properties.length; i++) {
+            Field field = fields.get(i);
+            try {
+                field.setAccessible(true);
+                properties[i] = new Property(field.getName(), field.getType(), codecFor(field.getGenericType()),
+                        lookup.unreflectGetter(field), lookup.unreflectSetter(field));
+            } catch (ReflectiveOperationException | RuntimeException exception) {
+                throw new IllegalArgumentException("Cannot bind field " + field, exception);
+            }
+        }
+
+        return properties;
+    }
+
+    private Property[] bindRecord() {
+        RecordComponent[] components = type.getRecordComponents();
+        Property[] properties = new Property[components.length];
+        Class<?>[] types = new Class<?>[components.length];
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+        defaultArguments = new Object[components.length];
+        for (int i = 0; i < components.length; i++) {
+            RecordComponent component = components[i];
+            types[i] = component.getType();
+            defaultArguments[i] = codecFor(component.getGenericType()).fromJson(null);
+
+            try {
+                Method accessor = component.getAccessor();
+                accessor.setAccessible(true);
+                properties[i] = new Property(component.getName(), component.getType(),
+                        codecFor(component.getGenericType()), lookup.unreflect(accessor), null);
+            } catch (ReflectiveOperationException | RuntimeException exception) {
+                throw new IllegalArgumentException("Cannot bind record component " + component, exception);
+            }
+        }
+
+        try {
+            Constructor<?> canonical = type.getDeclaredConstructor(types);
+            canonical.setAccessible(true);
+            constructor = lookup.unreflectConstructor(canonical)
+                    .asSpreader(Object[].class, types.length)
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+        } catch (ReflectiveOperationException | RuntimeException exception) {
+            throw new IllegalArgumentException("Cannot access the canonical constructor of " + type.getName(), exception);
+        }
+
+        return properties;
+    }
+
+    private Codec codecFor(Type propertyType) {
+        return JsonBinder.codecFor(parameterized == null ? propertyType : resolve(propertyType));
+    }
+
+    /**
+     * Replaces the type variables of the bound type with the actual type arguments
+     */
+    private Type resolve(Type propertyType) {
+        if (propertyType instanceof TypeVariable) {
+            TypeVariable<?>[] variables = type.getTypeParameters();
+            for (int i = 0; i < variables.length; i++) {
+                if (variables[i].equals(propertyType)) {
+                    return parameterized.getActualTypeArguments()[i];
+                }
+            }
+            return propertyType;
+        }
+
+        if (propertyType instanceof ParameterizedType) {
+            ParameterizedType parameterizedProperty = (ParameterizedType) propertyType;
+            Type[] arguments = parameterizedProperty.getActualTypeArguments().clone();
+            for (int i = 0; i < arguments.length; i++) {
+                arguments[i] = resolve(arguments[i]);
+            }
+            return new ResolvedType((Class<?>) parameterizedProperty.getRawType(), parameterizedProperty.getOwnerType(),
+                    arguments);
+        }
+
+        if (propertyType instanceof GenericArrayType) {
+            Type component = resolve(((GenericArrayType) propertyType).getGenericComponentType());
+            return component instanceof Class ? Array.newInstance((Class<?>) component, 0).getClass()
+                    : new ResolvedArrayType(component);
+        }
+
+        return propertyType;
+    }
+
+    Object newInstance() {
+        if (constructor == null) {
+            throw new IllegalArgumentException("Cannot instantiate " + type.getName() + " without a no-arg constructor");
+        }
+
+        try {
+            return (Object) constructor.invokeExact();
+        } catch (Throwable throwable) {
+            throw rethrow(throwable);
+        }
+    }
+
+    Object newRecord(Object[] arguments) {
+        try {
+            return (Object) constructor.invokeExact(arguments);
+        } catch (Throwable throwable) {
+            throw rethrow(throwable);
+        }
+    }
+
+    Object[] defaultArguments() {
+        return defaultArguments.clone();
+    }
+
+    boolean isRecord() {
+        return type.isRecord();
+    }
+
+    @Override
+    JsonValue toJson(Object value) {
+        if (value == null) {
+            return new JsonValue();
+        }
+        if (value.getClass() != type) {
+            return JsonBinder.codecFor(value.getClass()).toJson(value);
+        }
+
+        Property[] properties = properties();
+        JsonObject object = new JsonObject();
+        for (Property property : properties) {
+            object.put(property.name, property.toJson(value));
+        }
+
+        return new JsonValue(object);
+    }
+
+    @Override
+    Object fromJson(JsonValue json) {
+        if (json == null || json.isNull()) {
+            return null;
+        }
+
+        Property[] properties = properties();
+        JsonObject object = json.asObject();
+
+        if (isRecord()) {
+            Object[] arguments = defaultArguments();
+            for (int i = 0; i < properties.length; i++) {
+                JsonValue value = object.get(properties[i].name);
+                if (value != null && !(value.isNull() && properties[i].type.isPrimitive())) {
+                    arguments[i] = properties[i].codec.fromJson(value);
+                }
+            }
+            return newRecord(arguments);
+        }
+
+        Object instance = newInstance();
+        for (Property property : properties) {
+            property.set(instance, object.get(property.name));
+        }
+
+        return instance;
+    }
+
+    @Override
+    Object read(JsonParser parser) throws IOException {
+        if (parser.peek() == 'n') {
+            parser.readNull();
+            return null;
+        }
+
+        Property[] properties = properties();
+        FieldTable fieldTable = this.fieldTable;
+
+        if (isRecord()) {
+            Object[] arguments = defaultArguments();
+            if (parser.beginObject()) {
+                do {
+                    int length = parser.readRawName(); // Before getNameBuffer, reading may grow the buffer
+                    int index = fieldTable.find(parser.getNameBuffer(), length);
+                    if (index == -1) {
+                        parser.skipValue();
+                    } else if (properties[index].type.isPrimitive() && parser.peek() == 'n') {
+                        parser.readNull();
+                    } else {
+                        arguments[index] = properties[index].codec.read(parser);
+                    }
+                } while (parser.nextEntry());
+            }
+            return newRecord(arguments);
+        }
+
+        Object instance = newInstance();
+        if (parser.beginObject()) {
+            do {
+                int length = parser.readRawName();
+                int index = fieldTable.find(parser.getNameBuffer(), length);
+                if (index == -1) {
+                    parser.skipValue();
+                } else {
+                    properties[index].read(instance, parser);
+                }
+            } while (parser.nextEntry());
+        }
+
+        return instance;
+    }
+
+    @Override
+    void write(Object value, JsonPrinter printer) throws IOException {
+        if (value == null) {
+            printer.printNull();
+            return;
+        }
+        if (value.getClass() != type) {
+            JsonBinder.codecFor(value.getClass()).write(value, printer);
+            return;
+        }
+
+        Property[] properties = properties();
+        printer.beginObject();
+        for (int i = 0; i < properties.length; i++) {
+            printer.printName(properties[i].name, i == 0);
+            properties[i].write(value, printer);
+        }
+        printer.endObject(properties.length == 0);
+    }
+
+    /**
+     * Parameterized type with resolved type arguments, equal to the JDK implementation so that it can be used as a
+     * cache key
+     */
+    private static final class ResolvedType implements ParameterizedType {
+
+        private final Class<?> rawType;
+        private final Type ownerType;
+        private final Type[] arguments;
+
+        ResolvedType(Class<?> rawType, Type ownerType, Type[] arguments) {
+            this.rawType = rawType;
+            this.ownerType = ownerType;
+            this.arguments = arguments;
+        }
+
+        @Override
+        public Type[] getActualTypeArguments() {
+            return arguments.clone();
+        }
+
+        @Override
+        public Type getRawType() {
+            return rawType;
+        }
+
+        @Override
+        public Type getOwnerType() {
+            return ownerType;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof ParameterizedType)) {
+                return false;
+            }
+
+            ParameterizedType other = (ParameterizedType) obj;
+            return rawType.equals(other.getRawType()) && Objects.equals(ownerType, other.getOwnerType())
+                    && Arrays.equals(arguments, other.getActualTypeArguments());
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(arguments) ^ Objects.hashCode(ownerType) ^ rawType.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            StringJoiner joiner = new StringJoiner(", ", rawType.getTypeName() + "<", ">");
+            for (Type argument : arguments) {
+                joiner.add(argument.getTypeName());
+            }
+            return joiner.toString();
+        }
+    }
+
+    /**
+     * An array of a resolved generic component type, equal to the arrays of the JDK so that codecs are cached by it
+     */
+    private static final class ResolvedArrayType implements GenericArrayType {
+
+        private final Type component;
+
+        ResolvedArrayType(Type component) {
+            this.component = component;
+        }
+
+        @Override
+        public Type getGenericComponentType() {
+            return component;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof GenericArrayType
+                    && component.equals(((GenericArrayType) obj).getGenericComponentType());
+        }
+
+        @Override
+        public int hashCode() {
+            return component.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return component.getTypeName() + "[]";
+        }
+    }
+
+}
@@ -0,0 +1,192 @@
+package com.odinallfather.json.bind;
+
+import com.odinallfather.json.JsonParser;
+import com.odinallfather.json.JsonPrinter;
+import com.odinallfather.json.JsonValue;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * One bound field or record component. The accessors are method handles adapted once to an erased signature, so
+ * that they can be called with invokeExact and integral, floating point and boolean values are moved without
+ * boxing.
+ */
+final class Property {
+
+    static final byte KIND_OBJECT = 0;
+    static final byte KIND_LONG = 1;
+    static final byte KIND_DOUBLE = 2;
+    static final byte KIND_BOOLEAN = 3;
+
+    final String name;
+    final Class<?> type;
+    final Codec codec;
+    final byte kind;
+
+    /**
+     * (Object)Object, (Object)long, (Object)double or (Object)boolean depending on the kind
+     */
+    private final MethodHandle getter;
+
+    /**
+     * (Object, Object)void, (Object, long)void, (Object, double)void or (Object, boolean)void depending on the kind,
+     * null for record components
+     */
+    private final MethodHandle setter;
+
+    Property(String name, Class<?> type, Codec codec, MethodHandle getter, MethodHandle setter) {
+        this.name = name;
+        this.type = type;
+        this.codec = codec;
+        this.kind = kindOf(type);
+
+        Class<?> erased = erasedType(kind);
+        this.getter = MethodHandles.explicitCastArguments(getter, MethodType.methodType(erased, Object.class));
+        this.setter = setter == null ? null
+                : MethodHandles.explicitCastArguments(setter, MethodType.methodType(void.class, Object.class, erased));
+    }
+
+    private static byte kindOf(Class<?> type) {
+        if (type == long.class || type == int.class || type == short.class || type == byte.class) {
+            return KIND_LONG;
+        }
+        if (type == double.class) {
+            return KIND_DOUBLE;
+        }
+        if (type == boolean.class) {
+            return KIND_BOOLEAN;
+        }
+
+        return KIND_OBJECT;
+    }
+
+    private static Class<?> erasedType(byte kind) {
+        switch (kind) {
+            // @formatter:off
+            case KIND_LONG: return long.class;
+            case KIND_DOUBLE: return double.class;
+            case KIND_BOOLEAN: return boolean.class;
+            default: return Object.class;
+            // @formatter:on
+        }
+    }
+
+    Object get(Object instance) {
+        try {
+            switch (kind) {
+                // @formatter:off
+                case KIND_LONG: return narrow((long) getter.invokeExact(instance));
+                case KIND_DOUBLE: return (double) getter.invokeExact(instance);
+                case KIND_BOOLEAN: return (boolean) getter.invokeExact(instance);
+                default: return (Object) getter.invokeExact(instance);
+                // @formatter:on
+            }
+        } catch (Throwable throwable) {
+            throw Codec.rethrow(throwable);
+        }
+    }
+
+    JsonValue toJson(Object instance) {
+        return codec.toJson(get(instance));
+    }
+
+    void write(Object instance, JsonPrinter printer) throws IOException {
+        try {
+            switch (kind) {
+                case KIND_LONG:
+                    printer.print((long) getter.invokeExact(instance));
+                    break;
+                case KIND_DOUBLE:
+                    printer.print((double) getter.invokeExact(instance));
+                    break;
+                case KIND_BOOLEAN:
+                    printer.print((boolean) getter.invokeExact(instance));
+                    break;
+                default:
+                    codec.write((Object) getter.invokeExact(instance), printer);
+                    break;
+            }
+        } catch (IOException | RuntimeException | Error exception) {
+            throw exception;
+        } catch (Throwable throwable) {
+            throw Codec.rethrow(throwable);
+        }
+    }
+
+    /**
+     * Sets the property from an OdinJson value. A missing value or null leaves primitives untouched.
+     */
+    void set(Object instance, JsonValue json) {
+        if (json == null || (json.isNull() && type.isPrimitive())) {
+            return;
+        }
+
+        try {
+            switch (kind) {
+                case KIND_LONG:
+                    setter.invokeExact(instance, json.asLong());
+                    break;
+                case KIND_DOUBLE:
+                    setter.invokeExact(instance, json.asDouble());
+                    break;
+                case KIND_BOOLEAN:
+                    setter.invokeExact(instance, json.asBoolean());
+                    break;
+                default:
+                    setter.invokeExact(instance, codec.fromJson(json));
+                    break;
+            }
+        } catch (Throwable throwable) {
+            throw Codec.rethrow(throwable);
+        }
+    }
+
+    /**
+     * Reads the property straight from the parser. Null leaves primitives untouched.
+     */
+    void read(Object instance, JsonParser parser) throws IOException {
+        if (type.isPrimitive() && parser.peek() == 'n') {
+            parser.readNull();
+            return;
+        }
+
+        try {
+            switch (kind) {
+                case KIND_LONG:
+                    setter.invokeExact(instance, parser.readLong());
+                    break;
+                case KIND_DOUBLE:
+                    setter.invokeExact(instance, parser.readDouble());
+                    break;
+                case KIND_BOOLEAN:
+                    setter.invokeExact(instance, parser.readBoolean());
+                    break;
+                default:
+                    setter.invokeExact(instance, codec.read(parser));
+                    break;
+            }
+        } catch (IOException | RuntimeException | Error exception) {
+            throw exception;
+        } catch (Throwable throwable) {
+            throw Codec.rethrow(throwable);
+        }
+    }
+
+    private Object narrow(long value) {
+        if (type == int.class) {
+            return (int) value;
+        }
+        if (type == short.class) {
+            return (short) value;
+        }
+        if (type == byte.class) {
+            return (byte) value;
+        }
+
+        return value;
+    }
+
+}
@@ -0,0 +1,142 @@
+package com.odinallfather.json.columnar;
+
+/**
+ * The values of one field of the rows of a {@link ColumnBatch}, stored in a primitive array by their row index.
+ * <p>
+ * Rows without a value, because the field is missing or null, are marked in the validity bitmap and have the value 0.
+ * The arrays are returned without copying them and may be longer than the number of rows.
+ */
+public final class Column {
+
+    private final String name;
+    private final ColumnType type;
+    private final int rowCount;
+    private final long[] validity;
+    private final int nullCount;
+
+    private final long[] longs;
+    private final double[] doubles;
+    private final int[] codes;
+    // Shared by all batches of a reader, codes of this batch are below dictionarySize
+    private final String[] dictionary;
+    private final int dictionarySize;
+
+    Column(String name, ColumnType type, int rowCount, long[] validity, long[] longs, double[] doubles, int[] codes,
+           String[] dictionary, int dictionarySize) {
+        this.name = name;
+        this.type = type;
+        this.rowCount = rowCount;
+        this.validity = validity;
+        this.longs = longs;
+        this.doubles = doubles;
+        this.codes = codes;
+        this.dictionary = dictionary;
+        this.dictionarySize = dictionarySize;
+
+        int valid = 0;
+        for (int i = 0, words = (rowCount + 63) >>> 6; i < words; i++) {
+            valid += Long.bitCount(validity[i]);
+        }
+        nullCount = rowCount - valid;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public ColumnType getType() {
+        return type;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return the number of rows in which the field is missing or null
+     */
+    public int getNullCount() {
+        return nullCount;
+    }
+
+    /**
+     * @return false if the field is missing or null in the row
+     */
+    public boolean isValid(int row) {
+        checkRow(row);
+
+        return (validity[row >>> 6] & 1L << row) != 0;
+    }
+
+    /**
+     * @return the bitmap of the rows with a value, bit {@code row % 64} of word {@code row / 64} is set if the row has
+     * one
+     */
+    public long[] getValidity() {
+        return validity;
+    }
+
+    public long[] getLongs() {
+        checkType(ColumnType.LONG);
+
+        return longs;
+    }
+
+    public double[] getDoubles() {
+        checkType(ColumnType.DOUBLE);
+
+        return doubles;
+    }
+
+    /**
+     * @return the index of the string of each row in the {@link #getDictionaryValue(int) dictionary}
+     */
+    public int[] getCodes() {
+        checkType(ColumnType.STRING);
+
+        return codes;
+    }
+
+    /**
+     * @return the number of strings in the dictionary, which grows from batch to batch as new strings are read
+     */
+    public int getDictionarySize() {
+        checkType(ColumnType.STRING);
+
+        return dictionarySize;
+    }
+
+    /**
+     * @return the string with the code, codes are the same in all batches of a reader
+     */
+    public String getDictionaryValue(int code) {
+        checkType(ColumnType.STRING);
+        if (code < 0 || code >= dictionarySize) {
+            throw new IndexOutOfBoundsException("Code " + code + " out of bounds for dictionary size " + dictionarySize);
+        }
+
+        return dictionary[code];
+    }
+
+    /**
+     * @return the string in the row, null if the row has none
+     */
+    public String getString(int row) {
+        checkType(ColumnType.STRING);
+
+        return isValid(row) ? dictionary[codes[row]] : null;
+    }
+
+    private void checkType(ColumnType type) {
+        if (this.type != type) {
+            throw new IllegalStateException("Column " + name + " is of type " + this.type + ", not " + type);
+        }
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of bounds for row count " + rowCount);
+        }
+    }
+
+}
@@ -0,0 +1,42 @@
+package com.odinallfather.json.columnar;
+
+/**
+ * A number of rows read by a {@link ColumnarReader}, with one {@link Column} per column of the reader in the order
+ * they were added.
+ */
+public final class ColumnBatch {
+
+    private final Column[] columns;
+    private final int rowCount;
+
+    ColumnBatch(Column[] columns, int rowCount) {
+        this.columns = columns;
+        this.rowCount = rowCount;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    public Column getColumn(int index) {
+        return columns[index];
+    }
+
+    /**
+     * @return the column with the name, null if there is none
+     */
+    public Column getColumn(String name) {
+        for (Column column : columns) {
+            if (column.getName().equals(name)) {
+                return column;
+            }
+        }
+
+        return null;
+    }
+
+}
@@ -0,0 +1,21 @@
+package com.odinallfather.json.columnar;
+
+/**
+ * How the values of a {@link Column} are stored.
+ */
+public enum ColumnType {
+
+    /**
+     * Integers in a long[], other numbers and numbers out of the range of a long are rejected.
+     */
+    LONG,
+    /**
+     * Numbers in a double[].
+     */
+    DOUBLE,
+    /**
+     * Strings as codes in an int[], each code being the index of the string in the dictionary of the column.
+     */
+    STRING
+
+}
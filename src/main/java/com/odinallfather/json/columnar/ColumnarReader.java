@@ -0,0 +1,371 @@
+package com.odinallfather.json.columnar;
+
+import com.odinallfather.json.JsonException;
+import com.odinallfather.json.JsonParser;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Reads an array of objects into columns, e.g. for aggregations over all values of a field:
+ * <pre>{@code
+ * ColumnarReader reader = new ColumnarReader(new JsonParser(in))
+ *         .addColumn("ts", ColumnType.LONG)
+ *         .addColumn("host", ColumnType.STRING);
+ * for (ColumnBatch batch; (batch = reader.nextBatch()) != null; ) {
+ *     long[] ts = batch.getColumn(0).getLongs();
+ *     ...
+ * }
+ * }</pre>
+ * The values are read from the parser straight into primitive arrays, without creating an object per row or value.
+ * Strings are dictionary-encoded: each distinct string of a column is created once and rows refer to it by its code.
+ * Fields without a column are skipped, missing and null fields are marked in the validity bitmap of their column.
+ * <p>
+ * Arrays of any length are read in batches of a fixed number of rows, each batch with its own arrays.
+ */
+public class ColumnarReader {
+
+    private static final int DEFAULT_BATCH_SIZE = 1 << 16;
+
+    private final JsonParser parser;
+    private final List<ColumnBuffer> columns = new ArrayList<>();
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    private ColumnBuffer[] buffers;
+    // The rows read so far, for error messages
+    private long rows;
+    private boolean finished;
+
+    public ColumnarReader(JsonParser parser) {
+        this.parser = Objects.requireNonNull(parser, "parser may not be null");
+    }
+
+    /**
+     * Adds a column for the field with the name, which can only be done before the first read.
+     */
+    public ColumnarReader addColumn(String name, ColumnType type) {
+        Objects.requireNonNull(name, "name may not be null");
+        Objects.requireNonNull(type, "type may not be null");
+        if (buffers != null) {
+            throw new IllegalStateException("Columns cannot be added after reading");
+        }
+        for (ColumnBuffer column : columns) {
+            if (column.name.equals(name)) {
+                throw new IllegalArgumentException("Duplicate column " + name);
+            }
+        }
+
+        columns.add(new ColumnBuffer(name, type));
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of rows of the batches returned by {@link #nextBatch()}, defaults to 65536.
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        this.batchSize = batchSize;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Reads the next rows of the array, up to the {@link #setBatchSize(int) batch size}.
+     *
+     * @return the rows or null if the array has no more rows, or is null
+     */
+    public ColumnBatch nextBatch() throws IOException {
+        return read(batchSize, batchSize);
+    }
+
+    /**
+     * Reads all remaining rows of the array into one batch.
+     *
+     * @return the rows or null if the array has no more rows, or is null
+     */
+    public ColumnBatch readAll() throws IOException {
+        return read(Integer.MAX_VALUE, 1024);
+    }
+
+    private ColumnBatch read(int maxRows, int capacity) throws IOException {
+        if (buffers == null) {
+            buffers = columns.toArray(new ColumnBuffer[0]);
+            if (parser.peek() == 'n') {
+                parser.readNull();
+                finished = true;
+            } else {
+                finished = !parser.beginArray();
+            }
+        }
+        if (finished) {
+            return null;
+        }
+
+        ColumnBuffer[] buffers = this.buffers;
+        for (ColumnBuffer buffer : buffers) {
+            buffer.allocate(capacity);
+        }
+
+        int row = 0;
+        do {
+            if (row == capacity) {
+                capacity = (int) Math.min((long) capacity << 1, Integer.MAX_VALUE - 8);
+                for (ColumnBuffer buffer : buffers) {
+                    buffer.grow(capacity);
+                }
+            }
+
+            readRow(row++);
+            rows++;
+
+            if (!parser.nextElement()) {
+                finished = true;
+                break;
+            }
+        } while (row < maxRows);
+
+        Column[] columns = new Column[buffers.length];
+        for (int i = 0; i < buffers.length; i++) {
+            columns[i] = buffers[i].toColumn(row);
+        }
+
+        return new ColumnBatch(columns, row);
+    }
+
+    private void readRow(int row) throws IOException {
+        if (parser.peek() != '{') {
+            throw new JsonException("Expected an object in row " + rows);
+        }
+        if (!parser.beginObject()) {
+            return;
+        }
+
+        ColumnBuffer[] buffers = this.buffers;
+        // Fields are usually in the same order in all rows, so the column after the last one is tried first
+        int next = 0;
+        do {
+            int length = parser.readRawName(); // Before getNameBuffer, reading may grow the buffer
+            int index = find(parser.getNameBuffer(), length, next);
+            if (index == -1) {
+                parser.skipValue();
+            } else {
+                buffers[index].read(parser, row, rows);
+                next = index + 1;
+            }
+        } while (parser.nextEntry());
+    }
+
+    private int find(char[] chars, int length, int next) {
+        ColumnBuffer[] buffers = this.buffers;
+        if (next < buffers.length && buffers[next].matches(chars, length)) {
+            return next;
+        }
+
+        for (int i = 0; i < buffers.length; i++) {
+            if (buffers[i].matches(chars, length)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * The arrays of a column for the batch being read.
+     */
+    private static final class ColumnBuffer {
+
+        final String name;
+        private final char[] nameChars;
+        private final ColumnType type;
+        private final Dictionary dictionary;
+
+        private long[] validity;
+        private long[] longs;
+        private double[] doubles;
+        private int[] codes;
+
+        ColumnBuffer(String name, ColumnType type) {
+            this.name = name;
+            this.nameChars = name.toCharArray();
+            this.type = type;
+            this.dictionary = type == ColumnType.STRING ? new Dictionary() : null;
+        }
+
+        boolean matches(char[] chars, int length) {
+            return Arrays.equals(nameChars, 0, nameChars.length, chars, 0, length);
+        }
+
+        void allocate(int capacity) {
+            validity = new long[(capacity + 63) >>> 6];
+            // @formatter:off
+            switch (type) {
+                case LONG: longs = new long[capacity]; break;
+                case DOUBLE: doubles = new double[capacity]; break;
+                case STRING: codes = new int[capacity]; break;
+            }
+            // @formatter:on
+        }
+
+        void grow(int capacity) {
+            validity = Arrays.copyOf(validity, (capacity + 63) >>> 6);
+            // @formatter:off
+            switch (type) {
+                case LONG: longs = Arrays.copyOf(longs, capacity); break;
+                case DOUBLE: doubles = Arrays.copyOf(doubles, capacity); break;
+                case STRING: codes = Arrays.copyOf(codes, capacity); break;
+            }
+            // @formatter:on
+        }
+
+        /**
+         * @param rowNumber the number of the row in the whole array, for error messages
+         */
+        void read(JsonParser parser, int row, long rowNumber) throws IOException {
+            int chr = parser.peek();
+            if (chr == 'n') {
+                parser.readNull();
+                // A field may be repeated, the last value counts
+                validity[row >>> 6] &= ~(1L << row);
+                // @formatter:off
+                switch (type) {
+                    case LONG: longs[row] = 0; break;
+                    case DOUBLE: doubles[row] = 0; break;
+                    case STRING: codes[row] = 0; break;
+                }
+                // @formatter:on
+                return;
+            }
+
+            switch (type) {
+                case LONG:
+                    if (chr != '-' && (chr < '0' || chr > '9')) {
+                        throw new JsonException("Expected a number for " + name + " in row " + rowNumber);
+                    }
+                    try {
+                        longs[row] = parser.readExactLong();
+                    } catch (JsonException exception) {
+                        throw new JsonException(exception.getMessage() + " for " + name + " in row " + rowNumber,
+                                exception);
+                    }
+                    break;
+                case DOUBLE:
+                    if (chr != '-' && (chr < '0' || chr > '9')) {
+                        throw new JsonException("Expected a number for " + name + " in row " + rowNumber);
+                    }
+                    doubles[row] = parser.readDouble();
+                    break;
+                case STRING:
+                    if (chr != '\"') {
+                        throw new JsonException("Expected a string for " + name + " in row " + rowNumber);
+                    }
+                    int length = parser.readRawString(); // Before getNameBuffer, reading may grow the buffer
+                    codes[row] = dictionary.code(parser.getNameBuffer(), length);
+                    break;
+            }
+            validity[row >>> 6] |= 1L << row;
+        }
+
+        Column toColumn(int rowCount) {
+            Column column = new Column(name, type, rowCount, validity, longs, doubles, codes,
+                    dictionary == null ? null : dictionary.values, dictionary == null ? 0 : dictionary.size);
+            validity = null;
+            longs = null;
+            doubles = null;
+            codes = null;
+
+            return column;
+        }
+    }
+
+    /**
+     * The distinct strings of a column by their code. They are looked up by the raw characters read, so a string is
+     * only created the first time it is read. Strings are only added, so batches can share the array of values.
+     */
+    private static final class Dictionary {
+
+        String[] values = new String[16];
+        private int[] hashes = new int[16];
+        // The code plus one of the string in each slot, 0 for empty slots
+        private int[] slots = new int[32];
+        int size;
+
+        int code(char[] chars, int length) {
+            int hash = 0;
+            for (int i = 0; i < length; i++) {
+                hash = 31 * hash + chars[i];
+            }
+
+            int mask = slots.length - 1;
+            for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+                int code = slots[slot] - 1;
+                if (code == -1) {
+                    return add(new String(chars, 0, length), hash, slot);
+                }
+                if (hashes[code] == hash && equals(values[code], chars, length)) {
+                    return code;
+                }
+            }
+        }
+
+        private static boolean equals(String value, char[] chars, int length) {
+            if (value.length() != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (value.charAt(i) != chars[i]) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        private int add(String value, int hash, int slot) {
+            if (size == values.length) {
+                // A new array, so that the values of earlier batches are not changed
+                values = Arrays.copyOf(values, size << 1);
+                hashes = Arrays.copyOf(hashes, size << 1);
+            }
+
+            int code = size++;
+            values[code] = value;
+            hashes[code] = hash;
+            slots[slot] = code + 1;
+
+            if (size << 1 > slots.length) {
+                rehash();
+            }
+
+            return code;
+        }
+
+        private void rehash() {
+            int[] slots = new int[this.slots.length << 1];
+            int mask = slots.length - 1;
+            for (int code = 0; code < size; code++) {
+                int slot = mix(hashes[code]) & mask;
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = code + 1;
+            }
+
+            this.slots = slots;
+        }
+
+        private static int mix(int hash) {
+            hash *= 0x9E3779B9;
+
+            return hash ^ (hash >>> 16);
+        }
+    }
+
+}
@@ -0,0 +1,320 @@
+package com.odinallfather.json.gzip;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses output in the gzip format, e.g. for a {@link com.odinallfather.json.JsonPrinter}:
+ * <pre>{@code
+ * new JsonPrinter(new GzipSink(FileChannel.open(path, CREATE, WRITE, TRUNCATE_EXISTING), pool), StandardCharsets.UTF_8)
+ * }</pre>
+ * The output is collected in blocks in large direct buffers, which the deflater works on without copying them.
+ * <p>
+ * Given a pool, the blocks are compressed in parallel like pigz does it: every block is deflated on its own, primed
+ * with the last 32 KB of the previous block as dictionary, and ends on a byte boundary, so that the compressed blocks
+ * can be concatenated into a single gzip member. This compresses almost as well as a single deflater and any gzip
+ * reader can read it. Only a bounded number of blocks is compressed at a time.
+ * <p>
+ * {@link #flush()} does not end the current block, the output is complete once the sink is {@link #close() closed}.
+ */
+public class GzipSink extends OutputStream {
+
+    private static final int DEFAULT_BLOCK_SIZE = 128 << 10;
+    private static final int DICTIONARY_SIZE = 32 << 10;
+
+    private static final byte[] HEADER = {
+            0x1F, (byte) 0x8B, 8, 0, 0, 0, 0, 0, 0, (byte) 0xFF // Deflate, no flags, no time, unknown system
+    };
+
+    private final WritableByteChannel out;
+    // Compresses blocks in parallel, or null to compress them with a single deflater
+    private final ForkJoinPool pool;
+    private int blockSize = DEFAULT_BLOCK_SIZE;
+    private int level = Deflater.DEFAULT_COMPRESSION;
+
+    private final CRC32 crc = new CRC32();
+    private long size;
+    private ByteBuffer block;
+    private boolean started;
+    private boolean closed;
+
+    private Deflater deflater;
+    private ByteBuffer compressed;
+
+    private final ArrayDeque<Block> pending = new ArrayDeque<>();
+    private final ArrayDeque<ByteBuffer> freeBlocks = new ArrayDeque<>();
+    private final ArrayDeque<ByteBuffer> freeTargets = new ArrayDeque<>();
+    private byte[] dictionary;
+
+    public GzipSink(OutputStream out) {
+        this(Channels.newChannel(Objects.requireNonNull(out, "out may not be null")));
+    }
+
+    public GzipSink(OutputStream out, ForkJoinPool pool) {
+        this(Channels.newChannel(Objects.requireNonNull(out, "out may not be null")), pool);
+    }
+
+    public GzipSink(WritableByteChannel out) {
+        this.out = Objects.requireNonNull(out, "out may not be null");
+        this.pool = null;
+    }
+
+    /**
+     * Creates a sink that compresses blocks in parallel on the pool.
+     */
+    public GzipSink(WritableByteChannel out, ForkJoinPool pool) {
+        this.out = Objects.requireNonNull(out, "out may not be null");
+        this.pool = Objects.requireNonNull(pool, "pool may not be null");
+    }
+
+    /**
+     * Sets the compression level from 0 to 9, or -1 for the default level of the deflater.
+     */
+    public void setLevel(int level) {
+        if (level < -1 || level > 9) {
+            throw new IllegalArgumentException("level must be between -1 and 9");
+        }
+        this.level = level;
+        if (deflater != null) {
+            deflater.setLevel(level);
+        }
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Sets the number of bytes compressed at a time, defaults to 128 KB. It can only be changed before the first
+     * write.
+     */
+    public void setBlockSize(int blockSize) {
+        if (blockSize < DICTIONARY_SIZE) {
+            throw new IllegalArgumentException("blockSize must be at least 32 KB");
+        }
+        if (block != null) {
+            throw new IllegalStateException("The block size cannot be changed after writing");
+        }
+        this.blockSize = blockSize;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * @return the number of uncompressed bytes written so far
+     */
+    public long getSize() {
+        return size + (block == null ? 0 : block.position());
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ByteBuffer block = block();
+        block.put((byte) b);
+        if (!block.hasRemaining()) {
+            endBlock(false);
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+
+        while (len > 0) {
+            ByteBuffer block = block();
+            int n = Math.min(len, block.remaining());
+            block.put(b, off, n);
+            off += n;
+            len -= n;
+
+            if (!block.hasRemaining()) {
+                endBlock(false);
+            }
+        }
+    }
+
+    private ByteBuffer block() throws IOException {
+        if (closed) {
+            throw new IOException("The sink is closed");
+        }
+        if (block == null) {
+            block = ByteBuffer.allocateDirect(blockSize);
+        }
+
+        return block;
+    }
+
+    /**
+     * Compresses the current block, the last one is also written if the data is compressed in parallel.
+     */
+    private void endBlock(boolean last) throws IOException {
+        ByteBuffer data = block.flip();
+        crc.update(data.duplicate());
+        size += data.remaining();
+
+        if (pool == null) {
+            deflate(data, last);
+            block = data.clear();
+        } else {
+            submit(data, last);
+            block = freeBlocks.isEmpty() ? ByteBuffer.allocateDirect(blockSize) : freeBlocks.poll();
+        }
+    }
+
+    private void deflate(ByteBuffer data, boolean finish) throws IOException {
+        if (deflater == null) {
+            deflater = new Deflater(level, true);
+            compressed = ByteBuffer.allocateDirect(blockSize);
+        }
+
+        deflater.setInput(data);
+        if (finish) {
+            deflater.finish();
+        }
+
+        while (finish ? !deflater.finished() : !deflater.needsInput()) {
+            deflater.deflate(compressed);
+            write(compressed.flip());
+            compressed.clear();
+        }
+    }
+
+    private void submit(ByteBuffer data, boolean last) throws IOException {
+        if (pending.size() == pool.getParallelism() * 2) {
+            writeCompressed();
+        }
+
+        byte[] dictionary = this.dictionary;
+        this.dictionary = new byte[Math.min(data.remaining(), DICTIONARY_SIZE)];
+        data.get(data.limit() - this.dictionary.length, this.dictionary);
+
+        ByteBuffer target = freeTargets.isEmpty() ? ByteBuffer.allocateDirect(blockSize + (blockSize >> 3)) : freeTargets.poll();
+        Block block = new Block(data, dictionary, level, last, target);
+        pool.execute(block);
+        pending.add(block);
+    }
+
+    /**
+     * Waits for the oldest block and writes it.
+     */
+    private void writeCompressed() throws IOException {
+        Block block = pending.poll();
+        ByteBuffer target = block.join();
+
+        write(target);
+        freeTargets.add(target.clear());
+        freeBlocks.add(block.data.clear());
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        if (!started) {
+            started = true;
+            write(ByteBuffer.wrap(HEADER));
+        }
+
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    /**
+     * Does not flush the compressed output, as ending a block early makes the compression worse.
+     */
+    @Override
+    public void flush() {
+    }
+
+    /**
+     * Compresses the remaining data, writes the trailer and closes the underlying output.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        try {
+            block();
+            endBlock(true);
+            while (!pending.isEmpty()) {
+                writeCompressed();
+            }
+
+            ByteBuffer trailer = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+            trailer.putInt((int) crc.getValue());
+            trailer.putInt((int) size);
+            write(trailer.flip());
+        } finally {
+            closed = true;
+            if (deflater != null) {
+                deflater.end();
+            }
+            for (Block block : pending) {
+                block.cancel(false);
+            }
+            out.close();
+        }
+    }
+
+    /**
+     * Deflates a block on its own, ending on a byte boundary unless it is the last one.
+     */
+    @SuppressWarnings("serial")
+    private static final class Block extends RecursiveTask<ByteBuffer> {
+
+        final ByteBuffer data;
+        private final byte[] dictionary;
+        private final int level;
+        private final boolean last;
+        private ByteBuffer target;
+
+        Block(ByteBuffer data, byte[] dictionary, int level, boolean last, ByteBuffer target) {
+            this.data = data;
+            this.dictionary = dictionary;
+            this.level = level;
+            this.last = last;
+            this.target = target;
+        }
+
+        @Override
+        protected ByteBuffer compute() {
+            Deflater deflater = new Deflater(level, true);
+            try {
+                if (dictionary != null) {
+                    deflater.setDictionary(dictionary);
+                }
+                deflater.setInput(data.duplicate());
+                if (last) {
+                    deflater.finish();
+                }
+
+                for (; ; ) {
+                    deflater.deflate(target, last ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH);
+
+                    // A flush is complete once it leaves space in the output
+                    if (last ? deflater.finished() : deflater.needsInput() && target.hasRemaining()) {
+                        return target.flip();
+                    }
+                    if (!target.hasRemaining()) {
+                        target = ByteBuffer.allocateDirect(target.capacity() << 1).put(target.flip());
+                    }
+                }
+            } finally {
+                deflater.end();
+            }
+        }
+    }
+
+}
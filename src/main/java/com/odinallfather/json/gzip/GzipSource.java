@@ -0,0 +1,234 @@
+package com.odinallfather.json.gzip;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Objects;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Decompresses gzip input, e.g. for a {@link com.odinallfather.json.JsonParser}:
+ * <pre>{@code
+ * new JsonParser(new GzipSource(FileChannel.open(path)), StandardCharsets.UTF_8)
+ * }</pre>
+ * The compressed and decompressed data are held in large direct buffers, which the inflater works on without copying
+ * them. Concatenated gzip members, as written by {@link GzipSink} in parallel or by other tools, are read as one
+ * stream. The checksum and size of each member are verified.
+ */
+public class GzipSource extends InputStream {
+
+    private static final int DEFAULT_BUFFER_SIZE = 256 << 10;
+
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+
+    private final ReadableByteChannel in;
+    private final ByteBuffer input;
+    private final ByteBuffer output;
+    private final Inflater inflater = new Inflater(true);
+    private final CRC32 crc = new CRC32();
+
+    // Whether the header of the current member was read and the trailer was not
+    private boolean inMember;
+    private boolean eof;
+
+    public GzipSource(InputStream in) {
+        this(Channels.newChannel(Objects.requireNonNull(in, "in may not be null")));
+    }
+
+    public GzipSource(ReadableByteChannel in) {
+        this(in, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param bufferSize the size of both the compressed and the decompressed buffer
+     */
+    public GzipSource(ReadableByteChannel in, int bufferSize) {
+        if (bufferSize < 1024) {
+            throw new IllegalArgumentException("bufferSize must be at least 1024");
+        }
+
+        this.in = Objects.requireNonNull(in, "in may not be null");
+        this.input = ByteBuffer.allocateDirect(bufferSize).flip();
+        this.output = ByteBuffer.allocateDirect(bufferSize).flip();
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!output.hasRemaining() && !fill()) {
+            return -1;
+        }
+
+        return output.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        if (len == 0) {
+            return 0;
+        }
+        if (!output.hasRemaining() && !fill()) {
+            return -1;
+        }
+
+        int n = Math.min(len, output.remaining());
+        output.get(b, off, n);
+
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return output.remaining();
+    }
+
+    /**
+     * Inflates the next decompressed bytes into the output buffer.
+     *
+     * @return false at the end of the input
+     */
+    private boolean fill() throws IOException {
+        output.clear();
+
+        try {
+            while (output.position() == 0) {
+                if (!inMember) {
+                    if (!readHeader()) {
+                        output.flip();
+                        return false;
+                    }
+                    inflater.reset();
+                    inflater.setInput(input);
+                    crc.reset();
+                    inMember = true;
+                }
+
+                if (inflater.needsInput()) {
+                    if (!readInput()) {
+                        throw new EOFException("Unexpected end of gzip input");
+                    }
+                    inflater.setInput(input);
+                }
+
+                int start = output.position();
+                inflater.inflate(output);
+                crc.update(output.duplicate().flip().position(start));
+
+                if (inflater.finished()) {
+                    readTrailer();
+                    inMember = false;
+                } else if (inflater.needsDictionary()) {
+                    throw new ZipException("Invalid gzip input");
+                }
+            }
+        } catch (DataFormatException exception) {
+            throw new ZipException("Invalid gzip input: " + exception.getMessage());
+        }
+
+        output.flip();
+        return true;
+    }
+
+    /**
+     * Compacts the unread input and reads more of it.
+     *
+     * @return false if the input ended and nothing is left
+     */
+    private boolean readInput() throws IOException {
+        if (eof) {
+            return input.hasRemaining();
+        }
+
+        input.compact();
+        try {
+            int read;
+            do {
+                read = in.read(input);
+            } while (read == 0);
+            eof = read == -1;
+        } finally {
+            input.flip();
+        }
+
+        return input.hasRemaining();
+    }
+
+    private int readByte() throws IOException {
+        if (!input.hasRemaining() && !readInput()) {
+            throw new EOFException("Unexpected end of gzip input");
+        }
+
+        return input.get() & 0xFF;
+    }
+
+    private int readShort() throws IOException {
+        return readByte() | readByte() << 8;
+    }
+
+    private long readInt() throws IOException {
+        return readShort() | (long) readShort() << 16;
+    }
+
+    /**
+     * @return false if the input ended before another member
+     */
+    private boolean readHeader() throws IOException {
+        if (!input.hasRemaining() && !readInput()) {
+            return false;
+        }
+
+        if (readByte() != 0x1F || readByte() != 0x8B) {
+            throw new ZipException("Not in gzip format");
+        }
+        if (readByte() != 8) {
+            throw new ZipException("Unsupported compression method");
+        }
+
+        int flags = readByte();
+        for (int i = 0; i < 6; i++) { // Modification time, extra flags and operating system
+            readByte();
+        }
+
+        if ((flags & FEXTRA) != 0) {
+            for (int length = readShort(); length > 0; length--) {
+                readByte();
+            }
+        }
+        if ((flags & FNAME) != 0) {
+            while (readByte() != 0) ;
+        }
+        if ((flags & FCOMMENT) != 0) {
+            while (readByte() != 0) ;
+        }
+        if ((flags & FHCRC) != 0) {
+            readShort();
+        }
+
+        return true;
+    }
+
+    private void readTrailer() throws IOException {
+        if (readInt() != crc.getValue()) {
+            throw new ZipException("Corrupt gzip input, the checksum does not match");
+        }
+        if (readInt() != (inflater.getBytesWritten() & 0xFFFF_FFFFL)) {
+            throw new ZipException("Corrupt gzip input, the size does not match");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        inflater.end();
+        in.close();
+    }
+
+}
@@ -0,0 +1,116 @@
+package com.odinallfather.json.jfr;
+
+import com.odinallfather.json.JsonListener;
+import com.odinallfather.json.JsonMetrics;
+import com.odinallfather.json.JsonParser;
+import com.odinallfather.json.JsonPrinter;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Emits JDK Flight Recorder events for parsing and printing values of at least a given size.
+ * <p>
+ * The events are named {@code odinjson.Parse} and {@code odinjson.Print}. They are only created while the listener is
+ * installed, and only committed if a recording enables them, e.g. with {@code -XX:StartFlightRecording}.
+ */
+public final class JsonFlightRecorder implements JsonListener {
+
+    private final long minChars;
+
+    /**
+     * @param minChars the size of the smallest values that are recorded, in characters
+     */
+    public JsonFlightRecorder(long minChars) {
+        if (minChars < 0) {
+            throw new IllegalArgumentException("minChars may not be negative");
+        }
+        this.minChars = minChars;
+    }
+
+    /**
+     * Installs a recorder as the default listener of parsers and printers created afterwards, replacing any other
+     * default listener.
+     */
+    public static void enable(long minChars) {
+        JsonFlightRecorder recorder = new JsonFlightRecorder(minChars);
+        JsonParser.setDefaultListener(recorder);
+        JsonPrinter.setDefaultListener(recorder);
+    }
+
+    /**
+     * Removes the default listener of parsers and printers created afterwards.
+     */
+    public static void disable() {
+        JsonParser.setDefaultListener(null);
+        JsonPrinter.setDefaultListener(null);
+    }
+
+    public long getMinChars() {
+        return minChars;
+    }
+
+    @Override
+    public void started(JsonMetrics metrics) {
+        JsonEvent event = metrics.getOperation() == JsonMetrics.PARSE ? new ParseEvent() : new PrintEvent();
+        if (event.isEnabled()) {
+            event.begin();
+            metrics.setAttachment(event);
+        }
+    }
+
+    @Override
+    public void finished(JsonMetrics metrics) {
+        if (!(metrics.getAttachment() instanceof JsonEvent)) {
+            return;
+        }
+
+        JsonEvent event = (JsonEvent) metrics.getAttachment();
+        event.end();
+        if (metrics.getChars() >= minChars && event.shouldCommit()) {
+            event.chars = metrics.getChars();
+            event.tokens = metrics.getTokenCount();
+            event.maxDepth = metrics.getMaxDepth();
+            event.strings = metrics.getStringCount();
+            event.numbers = metrics.getNumberCount();
+            event.error = metrics.getError() == null ? null : metrics.getError().toString();
+            event.commit();
+        }
+    }
+
+    @Category("OdinJson")
+    abstract static class JsonEvent extends Event {
+
+        @Label("Characters")
+        long chars;
+
+        @Label("Tokens")
+        @Description("Values and names")
+        long tokens;
+
+        @Label("Max Depth")
+        int maxDepth;
+
+        @Label("Strings")
+        long strings;
+
+        @Label("Numbers")
+        long numbers;
+
+        @Label("Error")
+        String error;
+    }
+
+    @Name("odinjson.Parse")
+    @Label("JSON Parse")
+    static final class ParseEvent extends JsonEvent {
+    }
+
+    @Name("odinjson.Print")
+    @Label("JSON Print")
+    static final class PrintEvent extends JsonEvent {
+    }
+
+}
@@ -0,0 +1,121 @@
+package com.odinallfather.json.parallel;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * UTF-8 input addressed by long positions. Files are memory-mapped in segments, so they may be larger than 2 GB.
+ * All reads are absolute, so a source can be shared between threads.
+ */
+final class ByteSource {
+
+    private static final int SEGMENT_SHIFT = 30;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    private final ByteBuffer[] segments;
+    private final long size;
+
+    private ByteSource(ByteBuffer[] segments, long size) {
+        this.segments = segments;
+        this.size = size;
+    }
+
+    static ByteSource of(byte[] bytes) {
+        return of(ByteBuffer.wrap(bytes));
+    }
+
+    static ByteSource of(ByteBuffer buffer) {
+        return new ByteSource(new ByteBuffer[]{buffer.slice()}, buffer.remaining());
+    }
+
+    static ByteSource map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer[] segments = new ByteBuffer[(int) ((size + SEGMENT_MASK) >>> SEGMENT_SHIFT)];
+
+            for (int i = 0; i < segments.length; i++) {
+                long position = (long) i << SEGMENT_SHIFT;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(SEGMENT_SIZE, size - position));
+            }
+
+            return new ByteSource(segments, size);
+        }
+    }
+
+    long size() {
+        return size;
+    }
+
+    /**
+     * @return the end of the segment containing the position, ranges up to it can be read from one buffer
+     */
+    long segmentEnd(long position) {
+        return Math.min(size, ((position >>> SEGMENT_SHIFT) + 1) << SEGMENT_SHIFT);
+    }
+
+    ByteBuffer segment(long position) {
+        return segments[(int) (position >>> SEGMENT_SHIFT)];
+    }
+
+    static int segmentOffset(long position) {
+        return (int) (position & SEGMENT_MASK);
+    }
+
+    byte get(long position) {
+        return segments[(int) (position >>> SEGMENT_SHIFT)].get((int) (position & SEGMENT_MASK));
+    }
+
+    /**
+     * @return the position of the first occurrence of the byte in [from, to) or -1
+     */
+    long indexOf(byte value, long from, long to) {
+        for (long position = from; position < to; ) {
+            ByteBuffer segment = segments[(int) (position >>> SEGMENT_SHIFT)];
+            int start = (int) (position & SEGMENT_MASK);
+            int end = (int) Math.min(segment.limit(), start + (to - position));
+
+            for (int i = start; i < end; i++) {
+                if (segment.get(i) == value) {
+                    return position + (i - start);
+                }
+            }
+            position += end - start;
+        }
+
+        return -1;
+    }
+
+    /**
+     * @return the bytes in [from, to) as a buffer, which is a view if they lie in one segment and a copy otherwise
+     */
+    ByteBuffer slice(long from, long to) {
+        int length = Math.toIntExact(to - from);
+        int segment = (int) (from >>> SEGMENT_SHIFT);
+        int start = (int) (from & SEGMENT_MASK);
+
+        if (start + length <= segments[segment].limit()) {
+            return segments[segment].slice(start, length);
+        }
+
+        byte[] copy = new byte[length];
+        for (int i = 0; i < length; i++) {
+            copy[i] = get(from + i);
+        }
+
+        return ByteBuffer.wrap(copy);
+    }
+
+    /**
+     * Decodes the bytes in [from, to), malformed input is replaced
+     */
+    CharBuffer decode(long from, long to) {
+        return StandardCharsets.UTF_8.decode(slice(from, to));
+    }
+
+}
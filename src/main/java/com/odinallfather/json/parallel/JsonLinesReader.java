@@ -0,0 +1,229 @@
+package com.odinallfather.json.parallel;
+
+import com.odinallfather.json.JsonException;
+import com.odinallfather.json.JsonParser;
+import com.odinallfather.json.JsonValue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads newline-delimited JSON (JSON Lines) in parallel.
+ * <p>
+ * The input is split at newline boundaries into chunks, which are decoded and parsed independently, so the values
+ * can be consumed as a parallel {@link Stream}. The stream is ordered, call {@link Stream#unordered()} if the order
+ * of the values does not matter. It runs on the common fork-join pool unless its terminal operation is started from
+ * within another pool. Parse errors are thrown as {@link UncheckedIOException} with the byte offset of the line.
+ */
+public class JsonLinesReader {
+
+    private static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+    private final ByteSource source;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    public JsonLinesReader(byte[] in) {
+        this(ByteSource.of(in));
+    }
+
+    /**
+     * Reads the remaining bytes of the buffer, the position of the buffer is not changed.
+     */
+    public JsonLinesReader(ByteBuffer in) {
+        this(ByteSource.of(in));
+    }
+
+    /**
+     * Memory-maps the file, it may be larger than 2 GB.
+     */
+    public JsonLinesReader(Path in) throws IOException {
+        this(ByteSource.map(in));
+    }
+
+    private JsonLinesReader(ByteSource source) {
+        this.source = source;
+    }
+
+    /**
+     * Sets the size in bytes below which the input is not split any further, defaults to 1 MB.
+     */
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * @return a parallel stream of the values of all non-blank lines
+     */
+    public Stream<JsonValue> stream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    public Spliterator<JsonValue> spliterator() {
+        return new LineSpliterator(source, 0, source.size(), chunkSize);
+    }
+
+    public static Stream<JsonValue> stream(byte[] in) {
+        return new JsonLinesReader(in).stream();
+    }
+
+    public static Stream<JsonValue> stream(Path in) throws IOException {
+        return new JsonLinesReader(in).stream();
+    }
+
+    /**
+     * Covers the lines in [position, end), both are at the start of a line.
+     */
+    private static final class LineSpliterator implements Spliterator<JsonValue> {
+
+        private final ByteSource source;
+        private final int chunkSize;
+        private long position;
+        private final long end;
+
+        LineSpliterator(ByteSource source, long position, long end, int chunkSize) {
+            this.source = source;
+            this.position = position;
+            this.end = end;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        public Spliterator<JsonValue> trySplit() {
+            if (end - position <= chunkSize) {
+                return null;
+            }
+
+            long newline = source.indexOf((byte) '\n', position + (end - position) / 2, end);
+            if (newline == -1 || newline + 1 >= end) {
+                return null;
+            }
+
+            LineSpliterator prefix = new LineSpliterator(source, position, newline + 1, chunkSize);
+            position = newline + 1;
+
+            return prefix;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super JsonValue> action) {
+            while (position < end) {
+                long newline = source.indexOf((byte) '\n', position, end);
+                long lineEnd = newline == -1 ? end : newline;
+                long lineStart = position;
+                position = newline == -1 ? end : newline + 1;
+
+                CharBuffer line = source.decode(lineStart, lineEnd);
+                JsonValue value;
+                try {
+                    value = parseLine(line.array(), line.arrayOffset() + line.position(), line.remaining());
+                } catch (IOException exception) {
+                    throw lineError(lineStart, exception);
+                }
+                if (value != null) {
+                    action.accept(value);
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super JsonValue> action) {
+            // Decode windows of whole lines of about the chunk size, so that the chars of a range that is not split
+            // any further, like all of a sequential stream, are not held at once
+            while (position < end) {
+                long windowEnd = end;
+                if (end - position > chunkSize) {
+                    long newline = source.indexOf((byte) '\n', position + chunkSize - 1, end);
+                    if (newline != -1) {
+                        windowEnd = newline + 1;
+                    }
+                }
+
+                long windowStart = position;
+                position = windowEnd;
+                parseLines(windowStart, windowEnd, action);
+            }
+        }
+
+        /**
+         * Parses the lines in [rangeStart, rangeEnd) at once.
+         */
+        private void parseLines(long rangeStart, long rangeEnd, Consumer<? super JsonValue> action) {
+            CharBuffer range = source.decode(rangeStart, rangeEnd);
+
+            char[] chars = range.array();
+            int offset = range.arrayOffset() + range.position();
+            int limit = offset + range.remaining();
+
+            for (int lineStart = offset; lineStart < limit; ) {
+                int lineEnd = lineStart;
+                while (lineEnd < limit && chars[lineEnd] != '\n') {
+                    lineEnd++;
+                }
+
+                JsonValue value;
+                try {
+                    value = parseLine(chars, lineStart, lineEnd - lineStart);
+                } catch (IOException exception) {
+                    // The byte offset is only needed for the error, so it is not tracked while parsing
+                    long byteOffset = rangeStart + StandardCharsets.UTF_8.encode(CharBuffer.wrap(chars, offset, lineStart - offset)).remaining();
+                    throw lineError(byteOffset, exception);
+                }
+                if (value != null) {
+                    action.accept(value);
+                }
+
+                lineStart = lineEnd + 1;
+            }
+        }
+
+        /**
+         * @return the value of the line or null if it is blank
+         */
+        private static JsonValue parseLine(char[] chars, int offset, int length) throws IOException {
+            JsonParser parser = new JsonParser(chars, offset, length);
+            if (!parser.hasNextValue()) {
+                return null;
+            }
+
+            JsonValue value = parser.readValue();
+            if (value == null || parser.hasNextValue()) {
+                throw new JsonException("Expected exactly one value per line");
+            }
+
+            return value;
+        }
+
+        private static UncheckedIOException lineError(long byteOffset, IOException cause) {
+            return new UncheckedIOException(new JsonException("Invalid JSON in the line at byte offset " + byteOffset, cause));
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - position; // Bytes are an upper bound for the number of lines
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL | IMMUTABLE;
+        }
+    }
+
+}
@@ -0,0 +1,360 @@
+package com.odinallfather.json.parallel;
+
+import com.odinallfather.json.JsonArray;
+import com.odinallfather.json.JsonException;
+import com.odinallfather.json.JsonParser;
+import com.odinallfather.json.JsonValue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Parses a document consisting of one large top-level array in parallel.
+ * <p>
+ * A structural pre-scan finds the commas separating the top-level elements. It runs in parallel as well: every chunk
+ * is first scanned once assuming it starts outside of a string and once assuming it starts inside of one, then the
+ * real start states are resolved from chunk to chunk and the commas are collected. The elements are then decoded and
+ * parsed in batches on the common fork-join pool. Errors report the index and byte offset of the invalid element.
+ */
+public class ParallelArrayParser {
+
+    private static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+    private final ByteSource source;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    public ParallelArrayParser(byte[] in) {
+        this(ByteSource.of(in));
+    }
+
+    /**
+     * Reads the remaining bytes of the buffer, the position of the buffer is not changed.
+     */
+    public ParallelArrayParser(ByteBuffer in) {
+        this(ByteSource.of(in));
+    }
+
+    /**
+     * Memory-maps the file, it may be larger than 2 GB.
+     */
+    public ParallelArrayParser(Path in) throws IOException {
+        this(ByteSource.map(in));
+    }
+
+    private ParallelArrayParser(ByteSource source) {
+        this.source = source;
+    }
+
+    /**
+     * Sets the size in bytes of the chunks that are scanned and parsed by one task, defaults to 1 MB.
+     */
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public static JsonArray parse(byte[] in) throws IOException {
+        return new ParallelArrayParser(in).parse();
+    }
+
+    public static JsonArray parse(Path in) throws IOException {
+        return new ParallelArrayParser(in).parse();
+    }
+
+    public JsonArray parse() throws IOException {
+        long open = skipWhitespaces(0);
+        if (open == source.size() || source.get(open) != '[') {
+            throw new JsonException("Invalid array");
+        }
+
+        long[] separators = findSeparators(open);
+        int elements = separators.length - 1;
+
+        if (elements == 1 && skipWhitespaces(open + 1) == separators[1]) {
+            return new JsonArray(0);
+        }
+
+        JsonValue[] values = new JsonValue[elements];
+        int[] batches = batches(separators);
+        JsonException[] errors = new JsonException[batches.length - 1];
+
+        IntStream.range(0, errors.length).parallel().forEach(batch -> {
+            errors[batch] = parseBatch(separators, batches[batch], batches[batch + 1], values);
+        });
+
+        for (JsonException error : errors) {
+            if (error != null) {
+                throw error;
+            }
+        }
+
+        JsonArray array = new JsonArray(elements);
+        array.addAll(Arrays.asList(values));
+
+        return array;
+    }
+
+    /**
+     * @return the positions of the opening bracket, the top-level commas and the closing bracket
+     */
+    private long[] findSeparators(long open) throws JsonException {
+        List<long[]> chunks = chunks(open + 1);
+        int count = chunks.size();
+
+        // Scan every chunk under both assumptions about its start state
+        ScanResult[] outside = new ScanResult[count];
+        ScanResult[] inside = new ScanResult[count];
+        IntStream.range(0, count).parallel().forEach(i -> {
+            long[] chunk = chunks.get(i);
+            outside[i] = scan(chunk[0], chunk[1], false, false, 0, null);
+            inside[i] = scan(chunk[0], chunk[1], true, isEscaped(chunk[0]), 0, null);
+        });
+
+        // Resolve the actual start states
+        boolean[] inString = new boolean[count];
+        int[] depth = new int[count];
+        boolean string = false;
+        int level = 1;
+        for (int i = 0; i < count; i++) {
+            inString[i] = string;
+            depth[i] = level;
+
+            ScanResult result = string ? inside[i] : outside[i];
+            string = result.inString;
+            level += result.depth;
+        }
+
+        if (string) {
+            throw new JsonException("Unterminated string");
+        }
+        if (level > 0) {
+            throw new JsonException("Unterminated array");
+        }
+
+        // Collect the top-level commas and the closing bracket
+        LongList[] commas = new LongList[count];
+        ScanResult[] results = new ScanResult[count];
+        IntStream.range(0, count).parallel().forEach(i -> {
+            long[] chunk = chunks.get(i);
+            commas[i] = new LongList();
+            results[i] = scan(chunk[0], chunk[1], inString[i], inString[i] && isEscaped(chunk[0]), depth[i], commas[i]);
+        });
+
+        long close = -1;
+        for (ScanResult result : results) {
+            if (result.close != -1) {
+                close = result.close;
+                break;
+            }
+        }
+
+        // Brackets are only counted, the elements check their own but nothing checks the one closing the array
+        if (source.get(close) != ']') {
+            throw new JsonException("Expected right square bracket at byte offset " + close);
+        }
+        if (skipWhitespaces(close + 1) != source.size()) {
+            throw new JsonException("Unexpected content after the array at byte offset " + (close + 1));
+        }
+
+        LongList separators = new LongList();
+        separators.add(open);
+        for (LongList list : commas) {
+            separators.addAll(list);
+        }
+        separators.add(close);
+
+        return separators.toArray();
+    }
+
+    /**
+     * Splits [from, size) into chunks of at most {@link #chunkSize} bytes that do not cross segments.
+     */
+    private List<long[]> chunks(long from) {
+        List<long[]> chunks = new ArrayList<>();
+
+        for (long position = from; position < source.size(); ) {
+            long end = Math.min(source.segmentEnd(position), position + chunkSize);
+            chunks.add(new long[]{position, end});
+            position = end;
+        }
+
+        return chunks;
+    }
+
+    /**
+     * Scans [from, to) starting with the given state. Commas at depth 1 are added to the list if it is not null.
+     */
+    private ScanResult scan(long from, long to, boolean inString, boolean escaped, int depth, LongList commas) {
+        ByteBuffer segment = source.segment(from);
+        int start = ByteSource.segmentOffset(from);
+        int end = start + (int) (to - from);
+        long close = -1;
+        int initialDepth = depth;
+
+        for (int i = start; i < end; i++) {
+            byte b = segment.get(i);
+
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                } else if (b == '\\') {
+                    escaped = true;
+                } else if (b == '\"') {
+                    inString = false;
+                }
+                continue;
+            }
+
+            switch (b) {
+                // @formatter:off
+                case '\"': inString = true; break;
+                case '[': case '{': depth++; break;
+                // @formatter:on
+                case ']':
+                case '}':
+                    if (--depth == 0 && close == -1) {
+                        close = from + (i - start);
+                    }
+                    break;
+                case ',':
+                    if (depth == 1 && commas != null) {
+                        commas.add(from + (i - start));
+                    }
+                    break;
+            }
+        }
+
+        return new ScanResult(inString, depth - initialDepth, close);
+    }
+
+    /**
+     * @return true if the byte at the position is escaped, assuming it is inside of a string
+     */
+    private boolean isEscaped(long position) {
+        boolean escaped = false;
+
+        while (--position >= 0 && source.get(position) == '\\') {
+            escaped = !escaped;
+        }
+
+        return escaped;
+    }
+
+    private long skipWhitespaces(long position) {
+        for (; ; ) {
+            if (position == source.size()) {
+                return position;
+            }
+
+            byte b = source.get(position);
+            if (b != ' ' && b != '\t' && b != '\n' && b != '\r') {
+                return position;
+            }
+            position++;
+        }
+    }
+
+    /**
+     * Groups the elements into batches of about {@link #chunkSize} bytes.
+     *
+     * @return the index of the first element of each batch, followed by the number of elements
+     */
+    private int[] batches(long[] separators) {
+        int elements = separators.length - 1;
+        int[] batches = new int[elements + 1];
+        int count = 0;
+
+        for (int element = 0; element < elements; ) {
+            batches[count++] = element;
+
+            long start = separators[element];
+            do {
+                element++;
+            } while (element < elements && separators[element] - start < chunkSize);
+        }
+        batches[count++] = elements;
+
+        return Arrays.copyOf(batches, count);
+    }
+
+    /**
+     * Parses the elements [first, last) into the values.
+     *
+     * @return the error or null
+     */
+    private JsonException parseBatch(long[] separators, int first, int last, JsonValue[] values) {
+        CharBuffer chars = source.decode(separators[first] + 1, separators[last]);
+        JsonParser parser = new JsonParser(chars.array(), chars.arrayOffset() + chars.position(), chars.remaining());
+        int element = first;
+
+        try {
+            for (; element < last; element++) {
+                JsonValue value = parser.readValue();
+                if (value == null) {
+                    throw new JsonException("Expected value");
+                }
+                values[element] = value;
+
+                // The separators are known, so anything else after the value belongs to this element
+                if (element + 1 < last ? !parser.nextElement() : parser.hasNextValue()) {
+                    throw new JsonException("Expected right square bracket or comma");
+                }
+            }
+
+            return null;
+        } catch (IOException exception) {
+            return new JsonException("Invalid element " + element + " at byte offset " + (separators[element] + 1), exception);
+        }
+    }
+
+    private static final class ScanResult {
+
+        final boolean inString;
+        final int depth;
+        final long close;
+
+        ScanResult(boolean inString, int depth, long close) {
+            this.inString = inString;
+            this.depth = depth;
+            this.close = close;
+        }
+    }
+
+    private static final class LongList {
+
+        private long[] values = new long[16];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void addAll(LongList list) {
+            if (size + list.size > values.length) {
+                values = Arrays.copyOf(values, Math.max(size * 2, size + list.size));
+            }
+            System.arraycopy(list.values, 0, values, size, list.size);
+            size += list.size;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+}
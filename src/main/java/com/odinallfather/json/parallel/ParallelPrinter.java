@@ -0,0 +1,444 @@
+package com.odinallfather.json.parallel;
+
+import com.odinallfather.json.JsonArray;
+import com.odinallfather.json.JsonObject;
+import com.odinallfather.json.JsonPrinter;
+import com.odinallfather.json.JsonValue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+
+/**
+ * Prints large arrays and objects in parallel, with the same output as {@link JsonPrinter}.
+ * <p>
+ * Every array or object that contains at least {@link #setChunkSize(int) chunk size} values, counting nested values,
+ * is split into chunks of elements, which are printed into separate buffers on a fork-join pool and written in order.
+ * A small object wrapping a large array, like {@code {"items": [...]}}, is therefore split as well. Only a bounded
+ * number of buffers is held at a time, so the output may be much larger than the memory.
+ */
+public class ParallelPrinter {
+
+    private static final int DEFAULT_CHUNK_SIZE = 1024;
+    // Charsets that encode pieces independently to the same bytes as in one go
+    private static final Set<Charset> STATELESS_CHARSETS = Set.of(StandardCharsets.UTF_8, StandardCharsets.US_ASCII,
+            StandardCharsets.ISO_8859_1, StandardCharsets.UTF_16BE, StandardCharsets.UTF_16LE);
+
+    private final ForkJoinPool pool;
+    private boolean prettyPrint;
+    private boolean useTabs;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    public ParallelPrinter() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelPrinter(ForkJoinPool pool) {
+        this.pool = Objects.requireNonNull(pool, "pool may not be null");
+    }
+
+    public void setPrettyPrint(boolean prettyPrint) {
+        this.prettyPrint = prettyPrint;
+    }
+
+    public boolean isPrettyPrint() {
+        return prettyPrint;
+    }
+
+    public void setUseTabs() {
+        useTabs = true;
+    }
+
+    public void setUseSpaces() {
+        useTabs = false;
+    }
+
+    /**
+     * Sets the number of values printed by one task, counting nested values, defaults to 1024.
+     */
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void print(JsonValue json, Writer out) throws IOException {
+        print(json, Function.identity(), buffers -> {
+            for (CharsWriter buffer : buffers) {
+                out.write(buffer.chars, 0, buffer.length);
+            }
+        });
+        out.flush();
+    }
+
+    public void print(JsonValue json, OutputStream out, Charset charset) throws IOException {
+        print(json, charset, buffers -> {
+            for (ByteBuffer buffer : buffers) {
+                out.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            }
+        });
+        out.flush();
+    }
+
+    /**
+     * Writes at the current position of the channel, consecutive finished buffers are written with one gathering write.
+     */
+    public void print(JsonValue json, FileChannel out, Charset charset) throws IOException {
+        print(json, charset, buffers -> {
+            ByteBuffer[] array = buffers.toArray(new ByteBuffer[0]);
+            long remaining = 0;
+            for (ByteBuffer buffer : array) {
+                remaining += buffer.remaining();
+            }
+
+            while (remaining > 0) {
+                remaining -= out.write(array);
+            }
+        });
+    }
+
+    /**
+     * Encodes the pieces on the tasks if the charset is stateless. Otherwise they are encoded in order by one encoder,
+     * e.g. so that UTF-16 writes a single byte order mark.
+     */
+    private void print(JsonValue json, Charset charset, Sink<ByteBuffer> sink) throws IOException {
+        if (STATELESS_CHARSETS.contains(charset)) {
+            print(json, buffer -> buffer.encode(charset), sink);
+            return;
+        }
+
+        // Replaces like Charset.encode and OutputStreamWriter
+        CharsetEncoder encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        List<ByteBuffer> encoded = new ArrayList<>();
+        print(json, Function.identity(), buffers -> {
+            for (CharsWriter buffer : buffers) {
+                encoded.add(encode(encoder, CharBuffer.wrap(buffer.chars, 0, buffer.length), false));
+            }
+            sink.write(encoded);
+            encoded.clear();
+        });
+        sink.write(List.of(encode(encoder, CharBuffer.allocate(0), true)));
+    }
+
+    private static ByteBuffer encode(CharsetEncoder encoder, CharBuffer in, boolean endOfInput) {
+        ByteBuffer out = ByteBuffer.allocate((int) (in.remaining() * encoder.averageBytesPerChar()) + 16);
+
+        while (encoder.encode(in, out, endOfInput).isOverflow()) {
+            out = grow(out);
+        }
+        while (endOfInput && encoder.flush(out).isOverflow()) {
+            out = grow(out);
+        }
+
+        return out.flip();
+    }
+
+    private static ByteBuffer grow(ByteBuffer buffer) {
+        ByteBuffer grown = ByteBuffer.allocate(buffer.capacity() * 2);
+        return grown.put(buffer.flip());
+    }
+
+    private <T> void print(JsonValue json, Function<CharsWriter, T> encoder, Sink<T> sink) throws IOException {
+        List<Piece> pieces = new ArrayList<>();
+        plan(json, pieces);
+
+        int window = pool.getParallelism() * 4;
+        ArrayDeque<ForkJoinTask<T>> tasks = new ArrayDeque<>();
+        List<T> ready = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < pieces.size() || !tasks.isEmpty(); ) {
+                if (i < pieces.size() && tasks.size() < window) {
+                    Piece piece = pieces.get(i++);
+                    tasks.add(pool.submit(() -> encoder.apply(print(piece))));
+                    continue;
+                }
+
+                // Write the oldest buffer and all finished buffers following it
+                ready.add(tasks.poll().join());
+                while (!tasks.isEmpty() && tasks.peek().isDone()) {
+                    ready.add(tasks.poll().join());
+                }
+                sink.write(ready);
+                ready.clear();
+            }
+        } catch (UncheckedIOException exception) {
+            throw exception.getCause();
+        } finally {
+            for (ForkJoinTask<T> task : tasks) {
+                task.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Splits the value into pieces, which concatenated in order form the output. Nested values that are split are
+     * tracked on a stack, so the nesting is not limited by the call stack.
+     */
+    private void plan(JsonValue json, List<Piece> pieces) {
+        ArrayDeque<Split> splits = new ArrayDeque<>();
+        Split root = open(json, weight(json), 0, pieces);
+        if (root != null) {
+            splits.push(root);
+        }
+
+        while (!splits.isEmpty()) {
+            Split split = splits.peek();
+            if (split.index == split.size) {
+                split.add(split.start, split.size, pieces);
+                pieces.add(split.end());
+                splits.pop();
+                continue;
+            }
+
+            int i = split.index++;
+            JsonValue value = split.value(i);
+            int weight = weight(value);
+            if (weight < chunkSize) {
+                split.weight += 1 + weight;
+                if (split.weight < chunkSize) {
+                    continue;
+                }
+                split.add(split.start, i + 1, pieces);
+            } else {
+                split.add(split.start, i, pieces);
+                pieces.add(split.separator(i));
+                splits.push(open(value, weight, split.level + 1, pieces));
+            }
+            split.start = i + 1;
+            split.weight = 0;
+        }
+    }
+
+    /**
+     * Adds the value as one piece if it is small, otherwise its beginning.
+     *
+     * @return the split of the value, or null if it is small
+     */
+    private Split open(JsonValue json, int weight, int level, List<Piece> pieces) {
+        if (weight < chunkSize) {
+            pieces.add(new Piece(level, printer -> printer.print(json)));
+            return null;
+        }
+
+        if (json.isArray()) {
+            pieces.add(new Piece(level, JsonPrinter::beginArray));
+            return new Split(json.asArray(), null, level);
+        }
+        pieces.add(new Piece(level, JsonPrinter::beginObject));
+        return new Split(null, new ArrayList<>(json.asObject().entrySet()), level);
+    }
+
+    /**
+     * @return the number of values nested in the value, counted only up to the chunk size
+     */
+    private int weight(JsonValue value) {
+        if (!isContainer(value)) {
+            return 0;
+        }
+
+        int weight = 0;
+        ArrayDeque<Iterable<JsonValue>> pending = new ArrayDeque<>();
+        pending.push(children(value));
+        while (!pending.isEmpty()) {
+            for (JsonValue child : pending.pop()) {
+                if (++weight == chunkSize) {
+                    return weight;
+                }
+                if (isContainer(child)) {
+                    pending.push(children(child));
+                }
+            }
+        }
+
+        return weight;
+    }
+
+    private static boolean isContainer(JsonValue value) {
+        return value != null && (value.isArray() || value.isObject()) && value.getValue() != null;
+    }
+
+    private static Iterable<JsonValue> children(JsonValue value) {
+        return value.isArray() ? value.asArray() : value.asObject().values();
+    }
+
+    private CharsWriter print(Piece piece) {
+        CharsWriter buffer = new CharsWriter();
+        JsonPrinter printer = new JsonPrinter(buffer, prettyPrint);
+        if (useTabs) {
+            printer.setUseTabs();
+        }
+        if (prettyPrint) {
+            // Only pretty printing is indented, setting the level takes as long as the level is deep
+            printer.setIndentLevel(piece.level);
+        }
+
+        try {
+            piece.action.print(printer);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+
+        return buffer;
+    }
+
+    /**
+     * An array or object that is split into pieces, with the elements or entries that are not yet added.
+     */
+    private static final class Split {
+
+        final JsonArray array;
+        final List<Map.Entry<String, JsonValue>> entries;
+        final int level;
+        final int size;
+        // The next element or entry, the first one not added and the weight of the ones in between
+        int index;
+        int start;
+        int weight;
+
+        Split(JsonArray array, List<Map.Entry<String, JsonValue>> entries, int level) {
+            this.array = array;
+            this.entries = entries;
+            this.level = level;
+            this.size = array != null ? array.size() : entries.size();
+        }
+
+        JsonValue value(int index) {
+            return array != null ? array.get(index) : entries.get(index).getValue();
+        }
+
+        /**
+         * Adds the elements or entries [from, to) as one piece.
+         */
+        void add(int from, int to, List<Piece> pieces) {
+            if (from < to) {
+                pieces.add(new Piece(level + 1, printer -> {
+                    for (int i = from; i < to; i++) {
+                        if (array != null) {
+                            printer.printElementSeparator(i == 0);
+                            printer.print(array.get(i));
+                        } else {
+                            Map.Entry<String, JsonValue> entry = entries.get(i);
+                            printer.printName(entry.getKey(), i == 0);
+                            printer.print(entry.getValue());
+                        }
+                    }
+                }));
+            }
+        }
+
+        /**
+         * @return the piece preceding the element or entry at the index, which is split itself
+         */
+        Piece separator(int index) {
+            boolean first = index == 0;
+            if (array != null) {
+                return new Piece(level + 1, printer -> printer.printElementSeparator(first));
+            }
+            String name = entries.get(index).getKey();
+            return new Piece(level + 1, printer -> printer.printName(name, first));
+        }
+
+        Piece end() {
+            return array != null
+                    ? new Piece(level + 1, printer -> printer.endArray(false))
+                    : new Piece(level + 1, printer -> printer.endObject(false));
+        }
+    }
+
+    private static final class Piece {
+
+        final int level;
+        final PrintAction action;
+
+        Piece(int level, PrintAction action) {
+            this.level = level;
+            this.action = action;
+        }
+    }
+
+    private interface PrintAction {
+
+        void print(JsonPrinter printer) throws IOException;
+
+    }
+
+    private interface Sink<T> {
+
+        void write(List<T> buffers) throws IOException;
+
+    }
+
+    /**
+     * An unsynchronized in-memory writer.
+     */
+    private static final class CharsWriter extends Writer {
+
+        char[] chars = new char[256];
+        int length;
+
+        @Override
+        public void write(int c) {
+            ensureCapacity(1);
+            chars[length++] = (char) c;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            ensureCapacity(len);
+            System.arraycopy(cbuf, off, chars, length, len);
+            length += len;
+        }
+
+        @Override
+        public void write(String str, int off, int len) {
+            ensureCapacity(len);
+            str.getChars(off, off + len, chars, length);
+            length += len;
+        }
+
+        private void ensureCapacity(int additional) {
+            if (length + additional > chars.length) {
+                chars = Arrays.copyOf(chars, Math.max(chars.length * 2, length + additional));
+            }
+        }
+
+        ByteBuffer encode(Charset charset) {
+            return charset.encode(CharBuffer.wrap(chars, 0, length));
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+}
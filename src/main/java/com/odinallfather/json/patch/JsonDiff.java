@@ -0,0 +1,221 @@
+package com.odinallfather.json.patch;
+
+import com.odinallfather.json.JsonArray;
+import com.odinallfather.json.JsonObject;
+import com.odinallfather.json.JsonValue;
+import com.odinallfather.json.path.JsonPointer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes a {@link JsonPatch} that turns one document into another.
+ * <p>
+ * Objects are compared entry by entry and identical subtrees are skipped, by reference before they are compared, and
+ * the cached hash codes of objects and arrays let most differing subtrees be told apart without comparing them. For
+ * arrays, the common prefix and suffix are skipped, and the elements in between are aligned along their longest common
+ * subsequence, comparing hash codes before values. The alignment takes time proportional to the number of elements
+ * times the number of differences. Elements that changed in place are diffed recursively, so a change
+ * deep inside a large array results in a single operation.
+ */
+public final class JsonDiff {
+
+    // Arrays with more differences are not aligned, their differing elements are compared by position
+    private static final int MAX_DIFFERENCES = 1024;
+
+    private JsonDiff() {
+    }
+
+    /**
+     * @return the patch, which shares the added values with the target
+     */
+    public static JsonPatch diff(JsonValue source, JsonValue target) {
+        JsonPatch patch = new JsonPatch();
+        diff(JsonPointer.compile(""), source, target, patch);
+
+        return patch;
+    }
+
+    private static void diff(JsonPointer path, JsonValue source, JsonValue target, JsonPatch patch) {
+        if (source == target) {
+            return;
+        }
+
+        if (source.isObject() && target.isObject()) {
+            diff(path, source.asObject(), target.asObject(), patch);
+        } else if (source.isArray() && target.isArray()) {
+            diff(path, source.asArray(), target.asArray(), patch);
+        } else if (!source.equals(target)) {
+            patch.replace(path, target);
+        }
+    }
+
+    private static void diff(JsonPointer path, JsonObject source, JsonObject target, JsonPatch patch) {
+        for (Map.Entry<String, JsonValue> entry : source.entrySet()) {
+            JsonValue value = target.get(entry.getKey());
+            if (value == null) {
+                patch.remove(path.append(entry.getKey()));
+            } else {
+                diff(path.append(entry.getKey()), entry.getValue(), value, patch);
+            }
+        }
+
+        for (Map.Entry<String, JsonValue> entry : target.entrySet()) {
+            if (!source.containsKey(entry.getKey())) {
+                patch.add(path.append(entry.getKey()), entry.getValue());
+            }
+        }
+    }
+
+    private static void diff(JsonPointer path, JsonArray source, JsonArray target, JsonPatch patch) {
+        int start = 0;
+        int sourceEnd = source.size();
+        int targetEnd = target.size();
+
+        while (start < sourceEnd && start < targetEnd && source.get(start).equals(target.get(start))) {
+            start++;
+        }
+        while (sourceEnd > start && targetEnd > start
+                && source.get(sourceEnd - 1).equals(target.get(targetEnd - 1))) {
+            sourceEnd--;
+            targetEnd--;
+        }
+
+        int n = sourceEnd - start;
+        int m = targetEnd - start;
+        int[] matches = n == 0 || m == 0 ? null : align(source, target, start, n, m);
+        if (matches == null) {
+            changes(path, source, start, n, target, start, m, start, patch);
+            return;
+        }
+
+        // The elements between two common elements changed
+        int index = start;
+        int i = 0;
+        int j = 0;
+        for (int k = 0; k <= matches.length; k += 2) {
+            int i2 = k < matches.length ? matches[k] : n;
+            int j2 = k < matches.length ? matches[k + 1] : m;
+
+            changes(path, source, start + i, i2 - i, target, start + j, j2 - j, index, patch);
+            index += j2 - j + 1;
+            i = i2 + 1;
+            j = j2 + 1;
+        }
+    }
+
+    /**
+     * Finds a longest common subsequence of the elements with the algorithm of Myers, which takes time proportional to
+     * the number of elements times the number of differences.
+     *
+     * @return the indexes of the common elements as pairs of source and target index, or null if there are too many
+     * differences
+     */
+    private static int[] align(JsonArray source, JsonArray target, int start, int n, int m) {
+        int[] sourceHashes = hashes(source, start, n);
+        int[] targetHashes = hashes(target, start, m);
+        int max = n + m;
+        int[] v = new int[2 * max + 3];
+        List<int[]> trace = new ArrayList<>();
+
+        // v[max + 1 + k] is the furthest source index reached on diagonal k
+        int x = 0;
+        int y = 0;
+        for (int d = 0; ; d++) {
+            if (d > MAX_DIFFERENCES) {
+                return null;
+            }
+            trace.add(Arrays.copyOfRange(v, max - d, max + d + 3));
+
+            boolean done = false;
+            for (int k = -d; k <= d; k += 2) {
+                if (k == -d || (k != d && v[max + k] < v[max + k + 2])) {
+                    x = v[max + k + 2];
+                } else {
+                    x = v[max + k] + 1;
+                }
+                y = x - k;
+
+                while (x < n && y < m && sourceHashes[x] == targetHashes[y]
+                        && source.get(start + x).equals(target.get(start + y))) {
+                    x++;
+                    y++;
+                }
+                v[max + 1 + k] = x;
+
+                if (x >= n && y >= m) {
+                    done = true;
+                    break;
+                }
+            }
+            if (done) {
+                break;
+            }
+        }
+
+        // Walk back through the trace, collecting the common elements in reverse
+        int[] matches = new int[2 * Math.min(n, m)];
+        int count = 0;
+        x = n;
+        y = m;
+        for (int d = trace.size() - 1; d >= 0; d--) {
+            int[] previous = trace.get(d); // previous[d + 1 + k] is v[max + 1 + k]
+            int k = x - y;
+            int previousK = k == -d || (k != d && previous[d + k] < previous[d + k + 2]) ? k + 1 : k - 1;
+            int previousX = d == 0 ? 0 : previous[d + 1 + previousK];
+            int previousY = previousX - previousK;
+            if (d == 0) {
+                previousY = 0;
+            }
+
+            while (x > previousX && y > previousY) {
+                x--;
+                y--;
+                matches[count++] = y;
+                matches[count++] = x;
+            }
+            x = previousX;
+            y = previousY;
+        }
+
+        // Reverse into pairs of source and target index
+        int[] pairs = new int[count];
+        for (int i = 0; i < count; i += 2) {
+            pairs[i] = matches[count - 1 - i];
+            pairs[i + 1] = matches[count - 2 - i];
+        }
+
+        return pairs;
+    }
+
+    private static int[] hashes(JsonArray array, int start, int length) {
+        int[] hashes = new int[length];
+        for (int i = 0; i < length; i++) {
+            hashes[i] = array.get(start + i).hashCode();
+        }
+
+        return hashes;
+    }
+
+    /**
+     * Turns the removed elements into the added ones at the index of the patched array. As many elements as possible
+     * are changed in place, the rest is removed or added.
+     */
+    private static void changes(JsonPointer path, JsonArray source, int sourceStart, int removed,
+                                JsonArray target, int targetStart, int added, int index, JsonPatch patch) {
+        int changed = Math.min(removed, added);
+        for (int k = 0; k < changed; k++) {
+            diff(path.append(index + k), source.get(sourceStart + k), target.get(targetStart + k), patch);
+        }
+
+        for (int k = changed; k < removed; k++) {
+            patch.remove(path.append(index + changed));
+        }
+        for (int k = changed; k < added; k++) {
+            patch.add(path.append(index + k), target.get(targetStart + k));
+        }
+    }
+
+}
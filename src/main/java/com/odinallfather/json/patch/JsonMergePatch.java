@@ -0,0 +1,74 @@
+package com.odinallfather.json.patch;
+
+import com.odinallfather.json.JsonObject;
+import com.odinallfather.json.JsonValue;
+
+import java.util.Map;
+
+/**
+ * JSON Merge Patch as defined by RFC 7386. A merge patch is an object that mirrors the document: its entries replace
+ * those of the document, nested objects are merged recursively and null removes an entry.
+ */
+public final class JsonMergePatch {
+
+    private JsonMergePatch() {
+    }
+
+    /**
+     * Applies the merge patch to the target, objects of the target are changed in place.
+     *
+     * @return the merged document, which is a different value than the target if the patch is not an object or the
+     * target is not an object
+     */
+    public static JsonValue apply(JsonValue target, JsonValue patch) {
+        if (!patch.isObject()) {
+            return Values.copy(patch);
+        }
+
+        JsonObject object = target != null && target.isObject() ? target.asObject() : null;
+        JsonValue result = object != null ? target : new JsonValue(object = new JsonObject());
+
+        for (Map.Entry<String, JsonValue> entry : patch.asObject().entrySet()) {
+            if (entry.getValue().isNull()) {
+                object.remove(entry.getKey());
+            } else {
+                object.put(entry.getKey(), apply(object.get(entry.getKey()), entry.getValue()));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Computes the merge patch that turns the source into the target. Merge patches cannot set entries to null, so a
+     * null in the target is treated like a missing entry.
+     */
+    public static JsonValue diff(JsonValue source, JsonValue target) {
+        if (!source.isObject() || !target.isObject()) {
+            return Values.copy(target);
+        }
+
+        JsonObject sourceObject = source.asObject();
+        JsonObject targetObject = target.asObject();
+        JsonObject patch = new JsonObject();
+
+        for (String key : sourceObject.keySet()) {
+            JsonValue value = targetObject.get(key);
+            if (value == null || (value.isNull() && !sourceObject.get(key).isNull())) {
+                patch.put(key, new JsonValue());
+            }
+        }
+        for (Map.Entry<String, JsonValue> entry : targetObject.entrySet()) {
+            JsonValue value = entry.getValue();
+            JsonValue previous = sourceObject.get(entry.getKey());
+            if (value.isNull() || (previous != null && previous.equals(value))) {
+                continue;
+            }
+
+            patch.put(entry.getKey(), previous == null ? Values.copy(value) : diff(previous, value));
+        }
+
+        return new JsonValue(patch);
+    }
+
+}
@@ -0,0 +1,323 @@
+package com.odinallfather.json.patch;
+
+import com.odinallfather.json.JsonArray;
+import com.odinallfather.json.JsonException;
+import com.odinallfather.json.JsonObject;
+import com.odinallfather.json.JsonValue;
+import com.odinallfather.json.path.JsonPointer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A JSON Patch as defined by RFC 6902, a sequence of operations that change a document.
+ * <p>
+ * A patch is built with the operation methods, read {@link #fromJson(JsonArray) from its JSON form} or computed by
+ * {@link JsonDiff}. It is applied in place, only the values it adds are copied, so it can be applied any number of
+ * times.
+ */
+public final class JsonPatch {
+
+    private static final String[] NAMES = {"add", "remove", "replace", "move", "copy", "test"};
+
+    private static final int ADD = 0;
+    private static final int REMOVE = 1;
+    private static final int REPLACE = 2;
+    private static final int MOVE = 3;
+    private static final int COPY = 4;
+    private static final int TEST = 5;
+
+    private final List<Operation> operations = new ArrayList<>();
+
+    /**
+     * @throws JsonException if an operation is invalid
+     */
+    public static JsonPatch fromJson(JsonArray patch) throws JsonException {
+        JsonPatch result = new JsonPatch();
+
+        for (int i = 0; i < patch.size(); i++) {
+            JsonValue element = patch.get(i);
+            if (!element.isObject()) {
+                throw new JsonException("Operation " + i + " is not an object");
+            }
+
+            JsonObject operation = element.asObject();
+            int op = indexOf(member(operation, "op", i).asString());
+            if (op == -1) {
+                throw new JsonException("Unknown operation " + operation.get("op") + " at " + i);
+            }
+
+            JsonPointer path = pointer(operation, "path", i);
+            JsonPointer from = op == MOVE || op == COPY ? pointer(operation, "from", i) : null;
+            JsonValue value = op == ADD || op == REPLACE || op == TEST ? member(operation, "value", i) : null;
+
+            result.operations.add(new Operation(op, path, from, value));
+        }
+
+        return result;
+    }
+
+    private static int indexOf(String name) {
+        for (int i = 0; i < NAMES.length; i++) {
+            if (NAMES[i].equals(name)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private static JsonValue member(JsonObject operation, String name, int index) throws JsonException {
+        JsonValue value = operation.get(name);
+        if (value == null || (!name.equals("value") && !value.isString())) {
+            throw new JsonException("Missing or invalid member \"" + name + "\" in operation " + index);
+        }
+
+        return value;
+    }
+
+    private static JsonPointer pointer(JsonObject operation, String name, int index) throws JsonException {
+        try {
+            return JsonPointer.compile(member(operation, name, index).asString());
+        } catch (IllegalArgumentException exception) {
+            throw new JsonException("Invalid member \"" + name + "\" in operation " + index, exception);
+        }
+    }
+
+    public JsonPatch add(JsonPointer path, JsonValue value) {
+        return add(ADD, path, null, value);
+    }
+
+    public JsonPatch remove(JsonPointer path) {
+        return add(REMOVE, path, null, null);
+    }
+
+    public JsonPatch replace(JsonPointer path, JsonValue value) {
+        return add(REPLACE, path, null, value);
+    }
+
+    public JsonPatch move(JsonPointer from, JsonPointer path) {
+        return add(MOVE, path, from, null);
+    }
+
+    public JsonPatch copy(JsonPointer from, JsonPointer path) {
+        return add(COPY, path, from, null);
+    }
+
+    public JsonPatch test(JsonPointer path, JsonValue value) {
+        return add(TEST, path, null, value);
+    }
+
+    private JsonPatch add(int op, JsonPointer path, JsonPointer from, JsonValue value) {
+        operations.add(new Operation(op, path, from, value));
+        return this;
+    }
+
+    /**
+     * @return the number of operations
+     */
+    public int size() {
+        return operations.size();
+    }
+
+    public boolean isEmpty() {
+        return operations.isEmpty();
+    }
+
+    public JsonArray toJson() {
+        JsonArray patch = new JsonArray(operations.size());
+
+        for (Operation operation : operations) {
+            JsonObject object = new JsonObject();
+            object.put("op", NAMES[operation.op]);
+            if (operation.from != null) {
+                object.put("from", operation.from.toString());
+            }
+            object.put("path", operation.path.toString());
+            if (operation.value != null) {
+                object.put("value", operation.value);
+            }
+            patch.add(object);
+        }
+
+        return patch;
+    }
+
+    /**
+     * Applies the operations in order to the target, which is changed in place.
+     * <p>
+     * If an operation fails, the operations before it remain applied. Apply the patch to a copy if the target must
+     * stay unchanged in that case.
+     *
+     * @return the patched document, which is a different value than the target if the root was replaced
+     * @throws JsonException if an operation fails
+     */
+    public JsonValue apply(JsonValue target) throws JsonException {
+        JsonValue root = target;
+
+        for (int i = 0; i < operations.size(); i++) {
+            Operation operation = operations.get(i);
+            try {
+                root = apply(root, operation);
+            } catch (JsonException exception) {
+                throw new JsonException("Operation " + i + " (" + NAMES[operation.op] + " " + operation.path + ") failed",
+                        exception);
+            }
+        }
+
+        return root;
+    }
+
+    private static JsonValue apply(JsonValue root, Operation operation) throws JsonException {
+        switch (operation.op) {
+            case ADD:
+                return add(root, operation.path, Values.copy(operation.value));
+            case REMOVE:
+                remove(root, operation.path);
+                return root;
+            case REPLACE:
+                get(root, operation.path);
+                if (operation.path.isRoot()) {
+                    return Values.copy(operation.value);
+                }
+                return replace(root, operation.path, Values.copy(operation.value));
+            case MOVE:
+                if (operation.from.equals(operation.path)) {
+                    get(root, operation.from);
+                    return root;
+                }
+                if (isPrefix(operation.from, operation.path)) {
+                    throw new JsonException("Cannot move a value into one of its children");
+                }
+                return add(root, operation.path, remove(root, operation.from));
+            case COPY:
+                return add(root, operation.path, Values.copy(get(root, operation.from)));
+            default:
+                if (!get(root, operation.path).equals(operation.value)) {
+                    throw new JsonException("Test failed");
+                }
+                return root;
+        }
+    }
+
+    private static JsonValue get(JsonValue root, JsonPointer path) throws JsonException {
+        JsonValue value = path.get(root);
+        if (value == null) {
+            throw new JsonException("No value at " + path);
+        }
+
+        return value;
+    }
+
+    private static JsonValue parent(JsonValue root, JsonPointer path) throws JsonException {
+        JsonValue parent = get(root, path.parent());
+        if (!parent.isObject() && !parent.isArray()) {
+            throw new JsonException("The parent of " + path + " is neither an object nor an array");
+        }
+
+        return parent;
+    }
+
+    private static JsonValue add(JsonValue root, JsonPointer path, JsonValue value) throws JsonException {
+        if (path.isRoot()) {
+            return value;
+        }
+
+        JsonValue parent = parent(root, path);
+        int last = path.size() - 1;
+        if (parent.isObject()) {
+            parent.asObject().put(path.getToken(last), value);
+        } else {
+            JsonArray array = parent.asArray();
+            if (path.getToken(last).equals("-")) {
+                array.add(value);
+            } else {
+                array.add(index(path, array.size() + 1), value);
+            }
+        }
+
+        return root;
+    }
+
+    private static JsonValue replace(JsonValue root, JsonPointer path, JsonValue value) throws JsonException {
+        JsonValue parent = parent(root, path);
+        int last = path.size() - 1;
+        if (parent.isObject()) {
+            parent.asObject().put(path.getToken(last), value);
+        } else {
+            JsonArray array = parent.asArray();
+            array.set(index(path, array.size()), value);
+        }
+
+        return root;
+    }
+
+    /**
+     * @return the removed value
+     */
+    private static JsonValue remove(JsonValue root, JsonPointer path) throws JsonException {
+        if (path.isRoot()) {
+            throw new JsonException("Cannot remove the root");
+        }
+
+        JsonValue parent = parent(root, path);
+        int last = path.size() - 1;
+        if (parent.isObject()) {
+            JsonValue removed = parent.asObject().remove(path.getToken(last));
+            if (removed == null) {
+                throw new JsonException("No value at " + path);
+            }
+            return removed;
+        }
+
+        JsonArray array = parent.asArray();
+        return array.remove(index(path, array.size()));
+    }
+
+    /**
+     * @param bound the exclusive upper bound of the index
+     */
+    private static int index(JsonPointer path, int bound) throws JsonException {
+        int index = path.getIndex(path.size() - 1);
+        if (index < 0 || index >= bound) {
+            throw new JsonException("Invalid array index in " + path);
+        }
+
+        return index;
+    }
+
+    private static boolean isPrefix(JsonPointer prefix, JsonPointer path) {
+        if (prefix.size() >= path.size()) {
+            return false;
+        }
+
+        for (int i = 0; i < prefix.size(); i++) {
+            if (!prefix.getToken(i).equals(path.getToken(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return toJson().toString();
+    }
+
+    private static final class Operation {
+
+        final int op;
+        final JsonPointer path;
+        final JsonPointer from;
+        final JsonValue value;
+
+        Operation(int op, JsonPointer path, JsonPointer from, JsonValue value) {
+            this.op = op;
+            this.path = path;
+            this.from = from;
+            this.value = value;
+        }
+    }
+
+}
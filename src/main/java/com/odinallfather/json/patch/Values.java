@@ -0,0 +1,39 @@
+package com.odinallfather.json.patch;
+
+import com.odinallfather.json.JsonArray;
+import com.odinallfather.json.JsonObject;
+import com.odinallfather.json.JsonValue;
+
+import java.util.Map;
+
+/**
+ * Deep copies of values, so that patches never share their values with the documents they are applied to.
+ */
+final class Values {
+
+    private Values() {
+    }
+
+    /**
+     * @return a deep copy of the value, strings and numbers are shared as they are immutable
+     */
+    static JsonValue copy(JsonValue value) {
+        if (value.isObject()) {
+            JsonObject object = new JsonObject();
+            for (Map.Entry<String, JsonValue> entry : value.asObject().entrySet()) {
+                object.put(entry.getKey(), copy(entry.getValue()));
+            }
+            return new JsonValue(object);
+        }
+        if (value.isArray()) {
+            JsonArray array = new JsonArray(value.asArray().size());
+            for (JsonValue element : value.asArray()) {
+                array.add(copy(element));
+            }
+            return new JsonValue(array);
+        }
+
+        return value.isNull() ? new JsonValue() : new JsonValue(value.getValue());
+    }
+
+}
@@ -0,0 +1,362 @@
+package com.odinallfather.json.path;
+
+import com.odinallfather.json.JsonParser;
+import com.odinallfather.json.JsonValue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A compiled JSONPath expression.
+ * <p>
+ * Supported are the root {@code $}, fields {@code .name} and {@code ['name']}, array indexes {@code [0]}, negative
+ * ones counting from the end, wildcards {@code .*} and {@code [*]}, recursive descent {@code ..name}, {@code ..*} and
+ * {@code ..[0]}, and filters like {@code [?(@.price < 10 && @.stock)]}. A filter compares a field or index path
+ * relative to {@code @} with a number or a string, or tests that it exists, and comparisons can be combined with
+ * {@code &&} and {@code ||}. Numbers are compared as doubles, strings only with {@code ==} and {@code !=}.
+ * <p>
+ * The expression is parsed once into a chain of steps, a compiled path can be evaluated by any number of threads. It
+ * can also be evaluated {@link #select(JsonParser, Consumer) while parsing}, without building the document.
+ */
+public final class JsonPath {
+
+    private final String expression;
+    final Step[] steps;
+
+    private JsonPath(String expression, Step[] steps) {
+        this.expression = expression;
+        this.steps = steps;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the expression is invalid
+     */
+    public static JsonPath compile(String expression) {
+        return new JsonPath(expression, new Parser(expression).parsePath());
+    }
+
+    /**
+     * @return the selected values
+     */
+    public List<JsonValue> select(JsonValue root) {
+        if (steps.length == 0) {
+            return Collections.singletonList(root);
+        }
+
+        List<JsonValue> out = new ArrayList<>();
+        steps[0].select(root, out);
+
+        return out;
+    }
+
+    /**
+     * Reads the next value from the parser and passes the selected values to the consumer as soon as they are read.
+     * <p>
+     * Only the selected values are built, the rest of the document is skipped. Filters build each value they test,
+     * and negative indexes build the whole array. Call it repeatedly to evaluate a sequence of values.
+     * <p>
+     * The values are the same as those of {@link #select(JsonValue)}, but if a selected value contains other selected
+     * values, e.g. with recursive descent, they may be passed in a different order.
+     */
+    public void select(JsonParser parser, Consumer<JsonValue> consumer) throws IOException {
+        new StreamingEvaluator(parser, consumer).evaluate(steps.length == 0 ? null : steps[0]);
+    }
+
+    /**
+     * @return the first selected value or null
+     */
+    public JsonValue selectFirst(JsonValue root) {
+        if (isDefinite()) {
+            JsonValue value = root;
+            for (int i = 0; i < steps.length && value != null; i++) {
+                value = ((Step.Singular) steps[i]).selectOne(value);
+            }
+
+            return value;
+        }
+
+        List<JsonValue> values = select(root);
+        return values.isEmpty() ? null : values.get(0);
+    }
+
+    /**
+     * @return true if the path selects at most one value, as it consists only of fields and indexes
+     */
+    public boolean isDefinite() {
+        for (Step step : steps) {
+            if (!(step instanceof Step.Singular)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    private static final class Parser {
+
+        private final String expression;
+        private int position;
+
+        Parser(String expression) {
+            this.expression = expression;
+        }
+
+        Step[] parsePath() {
+            skipWhitespaces();
+            expect('$');
+
+            List<Step> steps = new ArrayList<>();
+            while (position < expression.length()) {
+                steps.add(parseStep(false));
+            }
+
+            return link(steps);
+        }
+
+        private static Step[] link(List<Step> list) {
+            Step[] steps = list.toArray(new Step[0]);
+
+            for (int i = 0; i < steps.length - 1; i++) {
+                steps[i].next = steps[i + 1];
+            }
+            for (Step step : steps) {
+                if (step instanceof Step.Descendant) {
+                    ((Step.Descendant) step).selector.next = step.next;
+                }
+            }
+
+            return steps;
+        }
+
+        /**
+         * @param relative true in filters, where only fields and indexes are allowed
+         */
+        private Step parseStep(boolean relative) {
+            char chr = expression.charAt(position);
+
+            if (chr == '.') {
+                position++;
+                if (peek() == '.') {
+                    if (relative) {
+                        throw error("Recursive descent is not allowed in filters");
+                    }
+                    position++;
+                    return new Step.Descendant(peek() == '[' ? parseBracket(false) : parseDotSelector(false));
+                }
+                return parseDotSelector(relative);
+            }
+            if (chr == '[') {
+                return parseBracket(relative);
+            }
+
+            throw error("Expected '.' or '['");
+        }
+
+        private Step parseDotSelector(boolean relative) {
+            if (peek() == '*') {
+                if (relative) {
+                    throw error("Wildcards are not allowed in filters");
+                }
+                position++;
+                return new Step.Wildcard();
+            }
+
+            int start = position;
+            while (position < expression.length() && isNameChar(expression.charAt(position))) {
+                position++;
+            }
+            if (start == position) {
+                throw error("Expected a name");
+            }
+
+            return new Step.Field(expression.substring(start, position));
+        }
+
+        private static boolean isNameChar(char chr) {
+            return Character.isLetterOrDigit(chr) || chr == '_' || chr == '$' || chr == '-';
+        }
+
+        private Step parseBracket(boolean relative) {
+            expect('[');
+            skipWhitespaces();
+
+            Step step;
+            char chr = peek();
+            if (chr == '\'' || chr == '\"') {
+                step = new Step.Field(parseString());
+            } else if (chr == '*') {
+                if (relative) {
+                    throw error("Wildcards are not allowed in filters");
+                }
+                position++;
+                step = new Step.Wildcard();
+            } else if (chr == '?') {
+                if (relative) {
+                    throw error("Nested filters are not supported");
+                }
+                position++;
+                skipWhitespaces();
+                expect('(');
+                step = new Step.Filter(parsePredicate());
+                skipWhitespaces();
+                expect(')');
+            } else {
+                step = new Step.Index(parseIndex());
+            }
+
+            skipWhitespaces();
+            expect(']');
+
+            return step;
+        }
+
+        private int parseIndex() {
+            int start = position;
+            if (peek() == '-') {
+                position++;
+            }
+            while (position < expression.length() && Character.isDigit(expression.charAt(position))) {
+                position++;
+            }
+
+            try {
+                return Integer.parseInt(expression.substring(start, position));
+            } catch (NumberFormatException exception) {
+                position = start;
+                throw error("Expected an index, a quoted name, '*' or a filter");
+            }
+        }
+
+        private String parseString() {
+            char quote = expression.charAt(position++);
+            StringBuilder string = new StringBuilder();
+
+            for (; ; ) {
+                if (position >= expression.length()) {
+                    throw error("Unterminated string");
+                }
+
+                char chr = expression.charAt(position++);
+                if (chr == quote) {
+                    return string.toString();
+                }
+                if (chr == '\\') {
+                    if (position >= expression.length()) {
+                        throw error("Unterminated string");
+                    }
+                    chr = expression.charAt(position++);
+                }
+                string.append(chr);
+            }
+        }
+
+        private Step.Predicate parsePredicate() {
+            List<Step.Comparison[]> alternatives = new ArrayList<>();
+            List<Step.Comparison> conjunction = new ArrayList<>();
+
+            for (; ; ) {
+                conjunction.add(parseComparison());
+                skipWhitespaces();
+
+                if (expression.startsWith("&&", position)) {
+                    position += 2;
+                } else if (expression.startsWith("||", position)) {
+                    position += 2;
+                    alternatives.add(conjunction.toArray(new Step.Comparison[0]));
+                    conjunction.clear();
+                } else {
+                    alternatives.add(conjunction.toArray(new Step.Comparison[0]));
+                    return new Step.Predicate(alternatives.toArray(new Step.Comparison[0][]));
+                }
+            }
+        }
+
+        private Step.Comparison parseComparison() {
+            skipWhitespaces();
+            expect('@');
+
+            // Relative steps are only fields and indexes
+            List<Step.Singular> path = new ArrayList<>();
+            while (peek() == '.' || peek() == '[') {
+                path.add((Step.Singular) parseStep(true));
+            }
+            Step.Singular[] steps = path.toArray(new Step.Singular[0]);
+
+            skipWhitespaces();
+            int operator = parseOperator();
+            if (operator == Step.Comparison.EXISTS) {
+                return new Step.Comparison(steps, operator, null);
+            }
+
+            skipWhitespaces();
+            char chr = peek();
+            if (chr == '\'' || chr == '\"') {
+                if (operator != Step.Comparison.EQUAL && operator != Step.Comparison.NOT_EQUAL) {
+                    throw error("Strings can only be compared with == and !=");
+                }
+                return new Step.Comparison(steps, operator, parseString());
+            }
+
+            return new Step.Comparison(steps, operator, parseNumber());
+        }
+
+        private int parseOperator() {
+            String[] operators = {"==", "!=", "<=", ">=", "<", ">"};
+            int[] values = {Step.Comparison.EQUAL, Step.Comparison.NOT_EQUAL, Step.Comparison.LESS_OR_EQUAL,
+                    Step.Comparison.GREATER_OR_EQUAL, Step.Comparison.LESS, Step.Comparison.GREATER};
+
+            for (int i = 0; i < operators.length; i++) {
+                if (expression.startsWith(operators[i], position)) {
+                    position += operators[i].length();
+                    return values[i];
+                }
+            }
+
+            return Step.Comparison.EXISTS;
+        }
+
+        private Double parseNumber() {
+            int start = position;
+            while (position < expression.length() && "+-.eE0123456789".indexOf(expression.charAt(position)) != -1) {
+                position++;
+            }
+
+            try {
+                return Double.valueOf(expression.substring(start, position));
+            } catch (NumberFormatException exception) {
+                position = start;
+                throw error("Expected a number or a string");
+            }
+        }
+
+        private char peek() {
+            return position < expression.length() ? expression.charAt(position) : 0;
+        }
+
+        private void expect(char chr) {
+            if (peek() != chr) {
+                throw error("Expected '" + chr + "'");
+            }
+            position++;
+        }
+
+        private void skipWhitespaces() {
+            while (position < expression.length() && Character.isWhitespace(expression.charAt(position))) {
+                position++;
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + position + " in " + expression);
+        }
+    }
+
+}
@@ -0,0 +1,220 @@
+package com.odinallfather.json.path;
+
+import com.odinallfather.json.JsonArray;
+import com.odinallfather.json.JsonValue;
+
+import java.util.Arrays;
+
+/**
+ * A JSON Pointer as defined by RFC 6901, e.g. {@code /users/0/name}.
+ * <p>
+ * The pointer is split and unescaped once when it is compiled, and array indexes are parsed in advance.
+ */
+public final class JsonPointer {
+
+    private static final JsonPointer ROOT = new JsonPointer(new String[0]);
+
+    private final String[] tokens;
+    private final int[] indexes;
+
+    private JsonPointer(String[] tokens) {
+        this.tokens = tokens;
+        this.indexes = new int[tokens.length];
+
+        for (int i = 0; i < tokens.length; i++) {
+            indexes[i] = parseIndex(tokens[i]);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the pointer is invalid
+     */
+    public static JsonPointer compile(String pointer) {
+        if (pointer.isEmpty()) {
+            return ROOT;
+        }
+        if (pointer.charAt(0) != '/') {
+            throw new IllegalArgumentException("A JSON Pointer must be empty or start with a slash: " + pointer);
+        }
+
+        String[] tokens = new String[count(pointer, '/')];
+        int start = 1;
+        for (int i = 0; i < tokens.length; i++) {
+            int end = pointer.indexOf('/', start);
+            if (end == -1) {
+                end = pointer.length();
+            }
+
+            tokens[i] = unescape(pointer, start, end);
+            start = end + 1;
+        }
+
+        return new JsonPointer(tokens);
+    }
+
+    public static JsonPointer of(String... tokens) {
+        return tokens.length == 0 ? ROOT : new JsonPointer(tokens.clone());
+    }
+
+    private static int count(String string, char chr) {
+        int count = 0;
+
+        for (int i = 0; i < string.length(); i++) {
+            if (string.charAt(i) == chr) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    private static String unescape(String pointer, int start, int end) {
+        int tilde = pointer.indexOf('~', start);
+        if (tilde == -1 || tilde >= end) {
+            return pointer.substring(start, end);
+        }
+
+        StringBuilder token = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            char chr = pointer.charAt(i);
+
+            if (chr == '~') {
+                char escaped = ++i < end ? pointer.charAt(i) : 0;
+                if (escaped == '0') {
+                    chr = '~';
+                } else if (escaped == '1') {
+                    chr = '/';
+                } else {
+                    throw new IllegalArgumentException("Invalid escape sequence at position " + (i - 1) + ": " + pointer);
+                }
+            }
+            token.append(chr);
+        }
+
+        return token.toString();
+    }
+
+    /**
+     * @return the array index of the token or -1 if it is none
+     */
+    private static int parseIndex(String token) {
+        int length = token.length();
+        if (length == 0 || length > 10 || (token.charAt(0) == '0' && length > 1)) {
+            return -1;
+        }
+
+        long index = 0;
+        for (int i = 0; i < length; i++) {
+            char chr = token.charAt(i);
+            if (chr < '0' || chr > '9') {
+                return -1;
+            }
+            index = index * 10 + chr - '0';
+        }
+
+        return index > Integer.MAX_VALUE ? -1 : (int) index;
+    }
+
+    /**
+     * @return the value the pointer refers to or null if there is none
+     */
+    public JsonValue get(JsonValue root) {
+        JsonValue value = root;
+
+        for (int i = 0; i < tokens.length && value != null; i++) {
+            value = child(value, i);
+        }
+
+        return value;
+    }
+
+    /**
+     * @return the child of the value referred to by the token at the given position or null
+     */
+    JsonValue child(JsonValue value, int position) {
+        if (value.isObject()) {
+            return value.asObject().get(tokens[position]);
+        }
+        if (value.isArray()) {
+            JsonArray array = value.asArray();
+            int index = indexes[position];
+
+            return index >= 0 && index < array.size() ? array.get(index) : null;
+        }
+
+        return null;
+    }
+
+    public boolean isRoot() {
+        return tokens.length == 0;
+    }
+
+    /**
+     * @return the number of reference tokens
+     */
+    public int size() {
+        return tokens.length;
+    }
+
+    /**
+     * @return the unescaped reference token at the position
+     */
+    public String getToken(int position) {
+        return tokens[position];
+    }
+
+    /**
+     * @return the token at the position as an array index, -1 if it is not one
+     */
+    public int getIndex(int position) {
+        return indexes[position];
+    }
+
+    /**
+     * @return the pointer without the last token
+     * @throws IllegalStateException if this is the root pointer
+     */
+    public JsonPointer parent() {
+        if (tokens.length == 0) {
+            throw new IllegalStateException("The root has no parent");
+        }
+
+        return tokens.length == 1 ? ROOT : new JsonPointer(Arrays.copyOf(tokens, tokens.length - 1));
+    }
+
+    /**
+     * @return the pointer to the child with the given unescaped token
+     */
+    public JsonPointer append(String token) {
+        String[] tokens = Arrays.copyOf(this.tokens, this.tokens.length + 1);
+        tokens[this.tokens.length] = token;
+
+        return new JsonPointer(tokens);
+    }
+
+    public JsonPointer append(int index) {
+        return append(Integer.toString(index));
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof JsonPointer && Arrays.equals(tokens, ((JsonPointer) obj).tokens);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(tokens);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder pointer = new StringBuilder();
+
+        for (String token : tokens) {
+            pointer.append('/').append(token.replace("~", "~0").replace("/", "~1"));
+        }
+
+        return pointer.toString();
+    }
+
+}
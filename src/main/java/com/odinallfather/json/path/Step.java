@@ -0,0 +1,271 @@
+package com.odinallfather.json.path;
+
+import com.odinallfather.json.JsonArray;
+import com.odinallfather.json.JsonValue;
+
+import java.util.List;
+
+/**
+ * A step of a compiled {@link JsonPath}. Each step selects children of a value and passes them to the next step, the
+ * values selected by the last step are the result.
+ */
+abstract class Step {
+
+    Step next;
+
+    abstract void select(JsonValue value, List<JsonValue> out);
+
+    final void emit(JsonValue value, List<JsonValue> out) {
+        if (next == null) {
+            out.add(value);
+        } else {
+            next.select(value, out);
+        }
+    }
+
+    /**
+     * A step that selects at most one child.
+     */
+    abstract static class Singular extends Step {
+
+        /**
+         * @return the child the step selects or null
+         */
+        abstract JsonValue selectOne(JsonValue value);
+
+        @Override
+        final void select(JsonValue value, List<JsonValue> out) {
+            JsonValue child = selectOne(value);
+            if (child != null) {
+                emit(child, out);
+            }
+        }
+    }
+
+    static final class Field extends Singular {
+
+        final String name;
+
+        Field(String name) {
+            this.name = name;
+        }
+
+        boolean matches(char[] name, int length) {
+            if (this.name.length() != length) {
+                return false;
+            }
+
+            for (int i = 0; i < length; i++) {
+                if (this.name.charAt(i) != name[i]) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        @Override
+        JsonValue selectOne(JsonValue value) {
+            return value.isObject() ? value.asObject().get(name) : null;
+        }
+    }
+
+    static final class Index extends Singular {
+
+        // Negative indexes count from the end
+        final int index;
+
+        Index(int index) {
+            this.index = index;
+        }
+
+        @Override
+        JsonValue selectOne(JsonValue value) {
+            if (!value.isArray()) {
+                return null;
+            }
+
+            JsonArray array = value.asArray();
+            int i = index < 0 ? array.size() + index : index;
+
+            return i >= 0 && i < array.size() ? array.get(i) : null;
+        }
+    }
+
+    static final class Wildcard extends Step {
+
+        @Override
+        void select(JsonValue value, List<JsonValue> out) {
+            if (value.isObject()) {
+                for (JsonValue child : value.asObject().values()) {
+                    emit(child, out);
+                }
+            } else if (value.isArray()) {
+                for (JsonValue child : value.asArray()) {
+                    emit(child, out);
+                }
+            }
+        }
+    }
+
+    static final class Filter extends Step {
+
+        final Predicate predicate;
+        final Test test = new Test(this);
+
+        Filter(Predicate predicate) {
+            this.predicate = predicate;
+        }
+
+        @Override
+        void select(JsonValue value, List<JsonValue> out) {
+            if (value.isObject()) {
+                for (JsonValue child : value.asObject().values()) {
+                    test.select(child, out);
+                }
+            } else if (value.isArray()) {
+                for (JsonValue child : value.asArray()) {
+                    test.select(child, out);
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests the predicate of a filter on the value itself instead of its children, it is passed on if it matches.
+     */
+    static final class Test extends Step {
+
+        final Filter filter;
+
+        Test(Filter filter) {
+            this.filter = filter;
+        }
+
+        @Override
+        void select(JsonValue value, List<JsonValue> out) {
+            if (filter.predicate.test(value)) {
+                filter.emit(value, out);
+            }
+        }
+    }
+
+    /**
+     * Applies the selector to the value and all of its descendants, the value before its descendants.
+     */
+    static final class Descendant extends Step {
+
+        final Step selector;
+
+        Descendant(Step selector) {
+            this.selector = selector;
+        }
+
+        @Override
+        void select(JsonValue value, List<JsonValue> out) {
+            descend(value, out);
+        }
+
+        private void descend(JsonValue value, List<JsonValue> out) {
+            selector.select(value, out);
+
+            if (value.isObject()) {
+                for (JsonValue child : value.asObject().values()) {
+                    descend(child, out);
+                }
+            } else if (value.isArray()) {
+                for (JsonValue child : value.asArray()) {
+                    descend(child, out);
+                }
+            }
+        }
+    }
+
+    /**
+     * A filter expression, a disjunction of conjunctions of comparisons.
+     */
+    static final class Predicate {
+
+        final Comparison[][] alternatives;
+
+        Predicate(Comparison[][] alternatives) {
+            this.alternatives = alternatives;
+        }
+
+        boolean test(JsonValue value) {
+            for (Comparison[] conjunction : alternatives) {
+                boolean matches = true;
+
+                for (Comparison comparison : conjunction) {
+                    if (!comparison.test(value)) {
+                        matches = false;
+                        break;
+                    }
+                }
+
+                if (matches) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+    }
+
+    static final class Comparison {
+
+        static final int EXISTS = 0;
+        static final int EQUAL = 1;
+        static final int NOT_EQUAL = 2;
+        static final int LESS = 3;
+        static final int LESS_OR_EQUAL = 4;
+        static final int GREATER = 5;
+        static final int GREATER_OR_EQUAL = 6;
+
+        // The path relative to the tested value
+        final Singular[] path;
+        final int operator;
+        // A Double or a String
+        final Object operand;
+
+        Comparison(Singular[] path, int operator, Object operand) {
+            this.path = path;
+            this.operator = operator;
+            this.operand = operand;
+        }
+
+        boolean test(JsonValue value) {
+            for (Singular step : path) {
+                if ((value = step.selectOne(value)) == null) {
+                    return false;
+                }
+            }
+
+            if (operator == EXISTS) {
+                return true;
+            }
+
+            if (operand instanceof String) {
+                boolean equal = value.isString() && operand.equals(value.asString());
+                return operator == EQUAL ? equal : operator == NOT_EQUAL && !equal;
+            }
+            if (!value.isNumber()) {
+                return operator == NOT_EQUAL;
+            }
+
+            double number = ((Number) value.getValue()).doubleValue();
+            double operand = (Double) this.operand;
+            switch (operator) {
+                // @formatter:off
+                case EQUAL: return number == operand;
+                case NOT_EQUAL: return number != operand;
+                case LESS: return number < operand;
+                case LESS_OR_EQUAL: return number <= operand;
+                case GREATER: return number > operand;
+                default: return number >= operand;
+                // @formatter:on
+            }
+        }
+    }
+
+}
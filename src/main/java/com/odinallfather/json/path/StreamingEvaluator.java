@@ -0,0 +1,152 @@
+package com.odinallfather.json.path;
+
+import com.odinallfather.json.JsonException;
+import com.odinallfather.json.JsonParser;
+import com.odinallfather.json.JsonValue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Evaluates a path while a value is parsed.
+ * <p>
+ * Each value is visited with the steps that apply to it, its states, and the states of its children are derived from
+ * the names and indexes of the children. A value without states is skipped. A value is only built once it matches or a
+ * state needs it as a whole, which is a filter testing it or a negative index counting from the end of it, and the
+ * remaining steps are then evaluated on it.
+ */
+final class StreamingEvaluator {
+
+    private final JsonParser parser;
+    private final Consumer<JsonValue> consumer;
+    // The states of each depth, reused for all values at that depth
+    private final List<List<Step>> levels = new ArrayList<>();
+    private final List<JsonValue> results = new ArrayList<>();
+
+    StreamingEvaluator(JsonParser parser, Consumer<JsonValue> consumer) {
+        this.parser = parser;
+        this.consumer = consumer;
+    }
+
+    /**
+     * @param first the first step or null if the value itself matches
+     */
+    void evaluate(Step first) throws IOException {
+        List<Step> states = level(0);
+        states.add(first);
+
+        evaluate(states, 0);
+        states.clear();
+    }
+
+    private void evaluate(List<Step> states, int depth) throws IOException {
+        if (states.isEmpty()) {
+            parser.skipValue();
+            return;
+        }
+
+        if (needsValue(states)) {
+            JsonValue value = parser.readValue();
+            if (value == null) {
+                throw new JsonException("Invalid value");
+            }
+
+            for (Step state : states) {
+                if (state == null) {
+                    consumer.accept(value);
+                } else {
+                    state.select(value, results);
+                    for (JsonValue result : results) {
+                        consumer.accept(result);
+                    }
+                    results.clear();
+                }
+            }
+            return;
+        }
+
+        int chr = parser.peek();
+        if (chr == '{') {
+            if (parser.beginObject()) {
+                List<Step> children = level(depth + 1);
+                do {
+                    int length = parser.readRawName();
+                    char[] name = parser.getNameBuffer(); // Only valid until the child is read
+                    for (Step state : states) {
+                        transition(state, name, length, -1, children);
+                    }
+
+                    evaluate(children, depth + 1);
+                    children.clear();
+                } while (parser.nextEntry());
+            }
+        } else if (chr == '[') {
+            if (parser.beginArray()) {
+                List<Step> children = level(depth + 1);
+                int index = 0;
+                do {
+                    for (Step state : states) {
+                        transition(state, null, 0, index, children);
+                    }
+                    index++;
+
+                    evaluate(children, depth + 1);
+                    children.clear();
+                } while (parser.nextElement());
+            }
+        } else {
+            parser.skipValue(); // Scalars have no children
+        }
+    }
+
+    private static boolean needsValue(List<Step> states) {
+        for (Step state : states) {
+            if (state == null || state instanceof Step.Test || isNegativeIndex(state)
+                    || (state instanceof Step.Descendant && isNegativeIndex(((Step.Descendant) state).selector))) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean isNegativeIndex(Step step) {
+        return step instanceof Step.Index && ((Step.Index) step).index < 0;
+    }
+
+    /**
+     * Adds the states of the child with the given name or index.
+     *
+     * @param name  the name of an object entry or null for an array element
+     * @param index the index of an array element, not used for object entries
+     */
+    private static void transition(Step state, char[] name, int length, int index, List<Step> children) {
+        if (state instanceof Step.Field) {
+            if (name != null && ((Step.Field) state).matches(name, length)) {
+                children.add(state.next);
+            }
+        } else if (state instanceof Step.Index) {
+            if (name == null && ((Step.Index) state).index == index) {
+                children.add(state.next);
+            }
+        } else if (state instanceof Step.Wildcard) {
+            children.add(state.next);
+        } else if (state instanceof Step.Filter) {
+            children.add(((Step.Filter) state).test);
+        } else if (state instanceof Step.Descendant) {
+            children.add(state);
+            transition(((Step.Descendant) state).selector, name, length, index, children);
+        }
+    }
+
+    private List<Step> level(int depth) {
+        if (depth == levels.size()) {
+            levels.add(new ArrayList<>());
+        }
+
+        return levels.get(depth);
+    }
+
+}
@@ -0,0 +1,284 @@
+package com.odinallfather.json.snapshot;
+
+import com.odinallfather.json.JsonException;
+import com.odinallfather.json.JsonValue;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Stores documents outside of the heap, in the snapshot format in large direct buffers called slabs.
+ * <p>
+ * The garbage collector only sees the slabs, no matter how many documents are stored. {@link #put(JsonValue)} returns a
+ * handle, which {@link #get(long)} turns into read-only views like those of a {@link Snapshot}. A slab is released
+ * once all documents in it were {@link #remove(long) removed}, and {@link #close()} releases all of them. Views of
+ * removed documents or a closed store throw an {@link IllegalStateException} when accessed. The memory of a released
+ * slab is freed when the garbage collector collects it, so views that are still referenced never read freed memory.
+ * Freeing it right away is not safe, as views check that their document is stored without locking, so a view that
+ * passed the check could read the memory while it is freed.
+ * <p>
+ * All methods are thread-safe, {@link #get(long)} does not lock.
+ */
+public class OffHeapStore implements Closeable {
+
+    private static final int DEFAULT_SLAB_SIZE = 64 << 20;
+    // Each document is preceded by its length and a flag that is cleared when it is removed
+    private static final int DOCUMENT_HEADER_SIZE = 5;
+    private static final int MAX_DOCUMENT_SIZE = Integer.MAX_VALUE - 16 - DOCUMENT_HEADER_SIZE;
+
+    private final int slabSize;
+    private volatile ByteBuffer[] slabs = new ByteBuffer[0];
+    private int[] documentCounts = new int[0];
+    private int current = -1;
+    private long usedBytes;
+    private long allocatedBytes;
+    private int documentCount;
+    private volatile boolean closed;
+    private DocumentBuffer buffer;
+
+    public OffHeapStore() {
+        this(DEFAULT_SLAB_SIZE);
+    }
+
+    /**
+     * @param slabSize the size of the slabs in bytes, larger documents get a slab of their own
+     */
+    public OffHeapStore(int slabSize) {
+        if (slabSize < 1024) {
+            throw new IllegalArgumentException("slabSize must be at least 1024");
+        }
+        this.slabSize = slabSize;
+    }
+
+    /**
+     * Copies the value into the store.
+     *
+     * @return the handle of the document
+     */
+    public synchronized long put(JsonValue value) throws JsonException {
+        checkOpen();
+
+        // Serialized once into the heap and copied in bulk, as the length is needed before a slab is chosen
+        if (buffer == null) {
+            buffer = new DocumentBuffer();
+        }
+        buffer.length = 0;
+        try {
+            SnapshotWriter.write(value, buffer);
+        } catch (JsonException exception) {
+            throw exception;
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception); // Cannot happen for an in-memory stream
+        }
+
+        int documentLength = buffer.length;
+        int length = documentLength + DOCUMENT_HEADER_SIZE;
+
+        ByteBuffer slab = current == -1 ? null : slabs[current];
+        if (slab == null || slab.remaining() < length) {
+            slab = allocate(length);
+        }
+
+        int offset = slab.position();
+        slab.putInt(documentLength);
+        slab.put((byte) 1);
+        slab.put(buffer.bytes, 0, documentLength);
+
+        // Do not keep the buffer of a large document
+        if (documentLength > slabSize) {
+            buffer = null;
+        }
+
+        documentCounts[current]++;
+        documentCount++;
+        usedBytes += length;
+
+        return (long) current << 32 | offset;
+    }
+
+    private ByteBuffer allocate(int length) {
+        // Release the current slab if it became empty while being filled
+        if (current != -1 && documentCounts[current] == 0) {
+            release(current);
+        }
+
+        ByteBuffer slab = ByteBuffer.allocateDirect(Math.max(length, slabSize));
+
+        // Indexes of released slabs are not reused, so stale handles never point to other documents
+        int index = slabs.length;
+        ByteBuffer[] newSlabs = Arrays.copyOf(slabs, index + 1);
+        documentCounts = Arrays.copyOf(documentCounts, index + 1);
+
+        newSlabs[index] = slab;
+        slabs = newSlabs;
+        current = index;
+        allocatedBytes += slab.capacity();
+
+        return slab;
+    }
+
+    private void release(int index) {
+        ByteBuffer[] newSlabs = slabs.clone();
+        allocatedBytes -= newSlabs[index].capacity();
+        usedBytes -= newSlabs[index].position();
+        newSlabs[index] = null;
+        slabs = newSlabs;
+
+        if (index == current) {
+            current = -1;
+        }
+    }
+
+    /**
+     * @return a read-only view of the document
+     * @throws IllegalStateException if the document was removed or the store is closed
+     */
+    public JsonValue get(long handle) {
+        return document(handle).getRoot();
+    }
+
+    private StoredDocument document(long handle) {
+        checkOpen();
+
+        int index = (int) (handle >>> 32);
+        int offset = (int) handle;
+        ByteBuffer[] slabs = this.slabs;
+        ByteBuffer slab = index < slabs.length ? slabs[index] : null;
+
+        if (slab == null || offset < 0 || offset > slab.capacity() - DOCUMENT_HEADER_SIZE || slab.get(offset + 4) == 0) {
+            throw new IllegalStateException("No document for handle " + Long.toHexString(handle));
+        }
+
+        try {
+            return new StoredDocument(slab, offset);
+        } catch (JsonException exception) {
+            throw new IllegalStateException("No document for handle " + Long.toHexString(handle), exception);
+        }
+    }
+
+    /**
+     * Removes the document, its memory is released with its slab once all documents in the slab were removed.
+     *
+     * @return false if the document was already removed
+     */
+    public synchronized boolean remove(long handle) {
+        StoredDocument document;
+        try {
+            document = document(handle);
+        } catch (IllegalStateException exception) {
+            if (closed) {
+                throw exception;
+            }
+            return false;
+        }
+
+        document.slab.put(document.offset + 4, (byte) 0);
+        documentCount--;
+
+        int index = (int) (handle >>> 32);
+        if (--documentCounts[index] == 0 && index != current) {
+            release(index);
+        }
+
+        return true;
+    }
+
+    public synchronized int getDocumentCount() {
+        return documentCount;
+    }
+
+    /**
+     * @return the bytes occupied by documents in slabs that were not released, including removed documents
+     */
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * @return the total size of the slabs
+     */
+    public synchronized long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("The store is closed");
+        }
+    }
+
+    /**
+     * Releases all slabs. Views of the documents can no longer be accessed.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        slabs = new ByteBuffer[0];
+        documentCounts = new int[0];
+        current = -1;
+        usedBytes = 0;
+        allocatedBytes = 0;
+        documentCount = 0;
+        buffer = null;
+    }
+
+    /**
+     * A document in a slab, which checks that it is still stored before each access.
+     */
+    private final class StoredDocument extends Snapshot {
+
+        private final ByteBuffer slab;
+        private final int offset;
+
+        StoredDocument(ByteBuffer slab, int offset) throws JsonException {
+            super(slab.slice(offset + DOCUMENT_HEADER_SIZE, slab.getInt(offset)));
+            this.slab = slab;
+            this.offset = offset;
+        }
+
+        @Override
+        ByteBuffer data() {
+            if (closed || slab.get(offset + 4) == 0) {
+                throw new IllegalStateException("The document was removed or the store is closed");
+            }
+
+            return super.data();
+        }
+    }
+
+    /**
+     * The reused buffer documents are serialized into.
+     */
+    private static final class DocumentBuffer extends OutputStream {
+
+        byte[] bytes = new byte[8192];
+        int length;
+
+        @Override
+        public void write(int b) throws JsonException {
+            ensureCapacity(1);
+            bytes[length++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws JsonException {
+            ensureCapacity(len);
+            System.arraycopy(b, off, bytes, length, len);
+            length += len;
+        }
+
+        private void ensureCapacity(int additional) throws JsonException {
+            if (additional > MAX_DOCUMENT_SIZE - length) {
+                throw new JsonException("Documents are limited to 2 GB");
+            }
+            if (length + additional > bytes.length) {
+                bytes = Arrays.copyOf(bytes, (int) Math.min(Math.max(bytes.length * 2L, length + additional), MAX_DOCUMENT_SIZE));
+            }
+        }
+    }
+
+}
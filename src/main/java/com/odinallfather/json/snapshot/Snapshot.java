@@ -0,0 +1,147 @@
+package com.odinallfather.json.snapshot;
+
+import com.odinallfather.json.JsonException;
+import com.odinallfather.json.JsonValue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static com.odinallfather.json.snapshot.SnapshotFormat.*;
+
+/**
+ * A snapshot written by {@link SnapshotWriter}, which is read in place.
+ * <p>
+ * Objects and arrays are read-only {@link com.odinallfather.json.JsonObject JsonObject} and
+ * {@link com.odinallfather.json.JsonArray JsonArray} views, that locate their children through offset tables. Keys are
+ * found by binary search, so navigating to a value only reads the data on the way to it. Values are decoded on every
+ * access and not cached. A snapshot can be read by any number of threads.
+ */
+public class Snapshot {
+
+    private final ByteBuffer data;
+    private final int rootSlot;
+
+    Snapshot(ByteBuffer data) throws JsonException {
+        this.data = data.slice().order(ByteOrder.LITTLE_ENDIAN);
+
+        if (this.data.limit() < HEADER_SIZE + SLOT_SIZE) {
+            throw new JsonException("Not a snapshot");
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (this.data.get(i) != MAGIC[i]) {
+                throw new JsonException("Not a snapshot");
+            }
+        }
+        if (this.data.get(MAGIC.length) != VERSION) {
+            throw new JsonException("Unsupported snapshot version " + this.data.get(MAGIC.length));
+        }
+
+        rootSlot = this.data.limit() - SLOT_SIZE;
+    }
+
+    /**
+     * Memory-maps the snapshot file, which may be up to 2 GB.
+     */
+    public static Snapshot map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new JsonException("Snapshots are limited to 2 GB");
+            }
+
+            return new Snapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Reads the remaining bytes of the buffer, which must not be modified while the snapshot is used.
+     */
+    public static Snapshot wrap(ByteBuffer data) throws JsonException {
+        return new Snapshot(data);
+    }
+
+    public static Snapshot wrap(byte[] data) throws JsonException {
+        return new Snapshot(ByteBuffer.wrap(data));
+    }
+
+    public JsonValue getRoot() {
+        return value(rootSlot);
+    }
+
+    /**
+     * @return the data, subclasses may check here that it can still be accessed
+     */
+    ByteBuffer data() {
+        return data;
+    }
+
+    JsonValue value(int slot) {
+        ByteBuffer data = data();
+        byte tag = data.get(slot);
+        long payload = data.getLong(slot + 1);
+
+        switch (tag) {
+            // @formatter:off
+            case NULL: return new JsonValue();
+            case FALSE: return new JsonValue(false);
+            case TRUE: return new JsonValue(true);
+            case STRING: return new JsonValue(string((int) payload));
+            case OBJECT: return new JsonValue(new SnapshotObject(this, (int) payload));
+            case ARRAY: return new JsonValue(new SnapshotArray(this, (int) payload));
+            case LONG: return new JsonValue(payload);
+            case INTEGER: return new JsonValue((int) payload);
+            case SHORT: return new JsonValue((short) payload);
+            case BYTE: return new JsonValue((byte) payload);
+            case FLOAT: return new JsonValue(Float.intBitsToFloat((int) payload));
+            case DOUBLE: return new JsonValue(Double.longBitsToDouble(payload));
+            case BIG_INTEGER: return new JsonValue(new BigInteger(bytes((int) payload)));
+            case BIG_DECIMAL: return new JsonValue(new BigDecimal(new BigInteger(bytes((int) payload + 4)), data.getInt((int) payload)));
+            // @formatter:on
+            default:
+                throw new IllegalStateException("Corrupt snapshot, invalid tag " + tag + " at offset " + slot);
+        }
+    }
+
+    String string(int offset) {
+        ByteBuffer data = data();
+
+        if (data.hasArray()) {
+            return new String(data.array(), data.arrayOffset() + offset + 4, data.getInt(offset), StandardCharsets.UTF_8);
+        }
+
+        return new String(bytes(offset), StandardCharsets.UTF_8);
+    }
+
+    private byte[] bytes(int offset) {
+        ByteBuffer data = data();
+        byte[] bytes = new byte[data.getInt(offset)];
+        data.get(offset + 4, bytes);
+
+        return bytes;
+    }
+
+    /**
+     * Compares the UTF-8 bytes of the string at the offset with the key, like {@link java.util.Arrays#compareUnsigned(byte[], byte[])}.
+     */
+    int compare(int offset, byte[] key) {
+        ByteBuffer data = data();
+        int length = data.getInt(offset);
+        int common = Math.min(length, key.length);
+
+        for (int i = 0; i < common; i++) {
+            int difference = (data.get(offset + 4 + i) & 0xFF) - (key[i] & 0xFF);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+
+        return length - key.length;
+    }
+
+}
@@ -0,0 +1,47 @@
+package com.odinallfather.json.snapshot;
+
+import com.odinallfather.json.JsonArray;
+import com.odinallfather.json.JsonValue;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+import static com.odinallfather.json.snapshot.SnapshotFormat.*;
+
+/**
+ * A read-only view of an array in a snapshot.
+ */
+final class SnapshotArray extends JsonArray {
+
+    SnapshotArray(Snapshot snapshot, int offset) {
+        super(new Elements(snapshot, offset));
+    }
+
+    private static final class Elements extends AbstractList<JsonValue> implements RandomAccess {
+
+        private final Snapshot snapshot;
+        private final int offset;
+        private final int size;
+
+        Elements(Snapshot snapshot, int offset) {
+            this.snapshot = snapshot;
+            this.offset = offset;
+            this.size = snapshot.data().getInt(offset);
+        }
+
+        @Override
+        public JsonValue get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+            }
+
+            return snapshot.value(offset + 4 + index * SLOT_SIZE);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+}
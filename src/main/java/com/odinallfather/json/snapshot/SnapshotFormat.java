@@ -0,0 +1,38 @@
+package com.odinallfather.json.snapshot;
+
+/**
+ * The layout of snapshots. All numbers are little endian.
+ * <p>
+ * A snapshot starts with the magic bytes "OJS" and the format version and ends with the slot of the root value. A
+ * slot is a tag byte followed by 8 bytes, which hold the value of scalars and the offset of the data of everything
+ * else. Strings are stored as their length and their UTF-8 bytes, arrays as their size followed by the slots of their
+ * elements. Objects are stored as their size, the entries in their original order, each being the offset of the key
+ * followed by the slot of the value, and the indexes of the entries sorted by the UTF-8 bytes of their keys. Children
+ * are written before their parents, so a snapshot can be written in one pass.
+ */
+final class SnapshotFormat {
+
+    static final byte[] MAGIC = {'O', 'J', 'S'};
+    static final byte VERSION = 1;
+    static final int HEADER_SIZE = 4;
+
+    static final int SLOT_SIZE = 9;
+    static final int ENTRY_SIZE = 4 + SLOT_SIZE;
+
+    static final byte NULL = 0;
+    static final byte FALSE = 1;
+    static final byte TRUE = 2;
+    static final byte STRING = 3;
+    static final byte OBJECT = 4;
+    static final byte ARRAY = 5;
+    static final byte LONG = 6;
+    static final byte INTEGER = 7;
+    static final byte SHORT = 8;
+    static final byte BYTE = 9;
+    static final byte FLOAT = 10;
+    static final byte DOUBLE = 11;
+    // Stored as the length and the two's complement bytes, decimals are preceded by their scale
+    static final byte BIG_INTEGER = 12;
+    static final byte BIG_DECIMAL = 13;
+
+}
@@ -0,0 +1,120 @@
+package com.odinallfather.json.snapshot;
+
+import com.odinallfather.json.JsonObject;
+import com.odinallfather.json.JsonValue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static com.odinallfather.json.snapshot.SnapshotFormat.*;
+
+/**
+ * A read-only view of an object in a snapshot.
+ */
+final class SnapshotObject extends JsonObject {
+
+    SnapshotObject(Snapshot snapshot, int offset) {
+        super(new Entries(snapshot, offset));
+    }
+
+    private static final class Entries extends AbstractMap<String, JsonValue> {
+
+        private final Snapshot snapshot;
+        private final int offset;
+        private final int size;
+
+        Entries(Snapshot snapshot, int offset) {
+            this.snapshot = snapshot;
+            this.offset = offset;
+            this.size = snapshot.data().getInt(offset);
+        }
+
+        private int entry(int index) {
+            return offset + 4 + index * ENTRY_SIZE;
+        }
+
+        /**
+         * @return the index of the entry or -1
+         */
+        private int find(Object key) {
+            if (!(key instanceof String)) {
+                return -1;
+            }
+
+            byte[] name = ((String) key).getBytes(StandardCharsets.UTF_8);
+            int sorted = entry(size);
+            int low = 0;
+            int high = size - 1;
+
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int index = snapshot.data().getInt(sorted + middle * 4);
+                int comparison = snapshot.compare(snapshot.data().getInt(entry(index)), name);
+
+                if (comparison < 0) {
+                    low = middle + 1;
+                } else if (comparison > 0) {
+                    high = middle - 1;
+                } else {
+                    return index;
+                }
+            }
+
+            return -1;
+        }
+
+        @Override
+        public JsonValue get(Object key) {
+            int index = find(key);
+            return index == -1 ? null : snapshot.value(entry(index) + 4);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return find(key) != -1;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Set<Entry<String, JsonValue>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, JsonValue>> iterator() {
+                    return new Iterator<>() {
+                        private int index;
+
+                        @Override
+                        public boolean hasNext() {
+                            return index < size;
+                        }
+
+                        @Override
+                        public Entry<String, JsonValue> next() {
+                            if (index == size) {
+                                throw new NoSuchElementException();
+                            }
+
+                            int entry = entry(index++);
+                            return Map.entry(snapshot.string(snapshot.data().getInt(entry)), snapshot.value(entry + 4));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+    }
+
+}
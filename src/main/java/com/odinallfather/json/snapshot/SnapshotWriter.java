@@ -0,0 +1,265 @@
+package com.odinallfather.json.snapshot;
+
+import com.odinallfather.json.JsonArray;
+import com.odinallfather.json.JsonException;
+import com.odinallfather.json.JsonObject;
+import com.odinallfather.json.JsonValue;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.odinallfather.json.snapshot.SnapshotFormat.*;
+
+/**
+ * Writes {@link JsonValue}s as snapshots, which can be read with {@link Snapshot}.
+ */
+public class SnapshotWriter {
+
+    private static final int BUFFER_SIZE = 8192;
+    // Equal strings up to this length share their data
+    private static final int MAX_SHARED_LENGTH = 64;
+    private static final int MAX_SHARED_STRINGS = 1 << 20;
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private long offset;
+
+    private final Map<String, Integer> keys = new HashMap<>();
+    private final Map<String, Integer> strings = new HashMap<>();
+
+    // The tag of the last value written, its payload is returned
+    private byte tag;
+
+    private SnapshotWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    public static void write(JsonValue json, OutputStream out) throws IOException {
+        new SnapshotWriter(out).writeSnapshot(json);
+        out.flush();
+    }
+
+    public static void write(JsonValue json, Path out) throws IOException {
+        try (OutputStream stream = new BufferedOutputStream(Files.newOutputStream(out), BUFFER_SIZE)) {
+            write(json, stream);
+        }
+    }
+
+    public static byte[] toBytes(JsonValue json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try {
+            write(json, out);
+        } catch (IOException exception) {
+            throw new AssertionError(exception); // Cannot happen for a ByteArrayOutputStream
+        }
+
+        return out.toByteArray();
+    }
+
+    private void writeSnapshot(JsonValue json) throws IOException {
+        writeBytes(MAGIC);
+        writeByte(VERSION);
+
+        long root = writeValue(json);
+        writeSlot(tag, root);
+        flushBuffer();
+    }
+
+    /**
+     * Writes the data of the value.
+     *
+     * @return the payload of its slot, the tag is stored in {@link #tag}
+     */
+    private long writeValue(JsonValue value) throws IOException {
+        switch (value.getType()) {
+            // @formatter:off
+            case JsonValue.TYPE_NULL: tag = NULL; return 0;
+            case JsonValue.TYPE_BOOLEAN: tag = (Boolean) value.getValue() ? TRUE : FALSE; return 0;
+            case JsonValue.TYPE_STRING: tag = STRING; return writeString((String) value.getValue(), strings);
+            case JsonValue.TYPE_OBJECT: return writeObject((JsonObject) value.getValue());
+            case JsonValue.TYPE_ARRAY: return writeArray((JsonArray) value.getValue());
+            default: return writeNumber((Number) value.getValue());
+            // @formatter:on
+        }
+    }
+
+    private long writeNumber(Number number) throws IOException {
+        if (number instanceof Long) {
+            tag = LONG;
+            return number.longValue();
+        } else if (number instanceof Double) {
+            tag = DOUBLE;
+            return Double.doubleToRawLongBits(number.doubleValue());
+        } else if (number instanceof Integer) {
+            tag = INTEGER;
+            return number.intValue();
+        } else if (number instanceof Float) {
+            tag = FLOAT;
+            return Float.floatToRawIntBits(number.floatValue());
+        } else if (number instanceof Short) {
+            tag = SHORT;
+            return number.shortValue();
+        } else if (number instanceof Byte) {
+            tag = BYTE;
+            return number.byteValue();
+        } else if (number instanceof BigInteger) {
+            long data = currentOffset();
+            writeBlob(((BigInteger) number).toByteArray());
+            tag = BIG_INTEGER;
+            return data;
+        }
+
+        // Other types are kept as their text
+        BigDecimal decimal = number instanceof BigDecimal ? (BigDecimal) number : new BigDecimal(number.toString());
+        long data = currentOffset();
+        writeInt(decimal.scale());
+        writeBlob(decimal.unscaledValue().toByteArray());
+        tag = BIG_DECIMAL;
+        return data;
+    }
+
+    private int writeString(String string, Map<String, Integer> shared) throws IOException {
+        boolean share = string.length() <= MAX_SHARED_LENGTH;
+        if (share) {
+            Integer data = shared.get(string);
+            if (data != null) {
+                return data;
+            }
+        }
+
+        int data = currentOffset();
+        writeBlob(string.getBytes(StandardCharsets.UTF_8));
+        if (share && shared.size() < MAX_SHARED_STRINGS) {
+            shared.put(string, data);
+        }
+
+        return data;
+    }
+
+    private long writeArray(JsonArray array) throws IOException {
+        int size = array.size();
+        byte[] tags = new byte[size];
+        long[] payloads = new long[size];
+
+        for (int i = 0; i < size; i++) {
+            payloads[i] = writeValue(array.get(i));
+            tags[i] = tag;
+        }
+
+        int data = currentOffset();
+        writeInt(size);
+        for (int i = 0; i < size; i++) {
+            writeSlot(tags[i], payloads[i]);
+        }
+
+        tag = ARRAY;
+        return data;
+    }
+
+    private long writeObject(JsonObject object) throws IOException {
+        int size = object.size();
+        byte[][] names = new byte[size][];
+        int[] keyOffsets = new int[size];
+        byte[] tags = new byte[size];
+        long[] payloads = new long[size];
+
+        int i = 0;
+        for (Map.Entry<String, JsonValue> entry : object.entrySet()) {
+            String key = entry.getKey();
+            names[i] = key.getBytes(StandardCharsets.UTF_8);
+            keyOffsets[i] = writeString(key, keys);
+            payloads[i] = writeValue(entry.getValue());
+            tags[i] = tag;
+            i++;
+        }
+
+        Integer[] sorted = new Integer[size];
+        Arrays.setAll(sorted, index -> index);
+        Arrays.sort(sorted, (a, b) -> Arrays.compareUnsigned(names[a], names[b]));
+
+        int data = currentOffset();
+        writeInt(size);
+        for (i = 0; i < size; i++) {
+            writeInt(keyOffsets[i]);
+            writeSlot(tags[i], payloads[i]);
+        }
+        for (Integer index : sorted) {
+            writeInt(index);
+        }
+
+        tag = OBJECT;
+        return data;
+    }
+
+    /**
+     * @return the offset the next data is written at
+     */
+    private int currentOffset() throws JsonException {
+        if (offset + position > Integer.MAX_VALUE) {
+            throw new JsonException("Snapshots are limited to 2 GB");
+        }
+
+        return (int) (offset + position);
+    }
+
+    private void writeBlob(byte[] bytes) throws IOException {
+        writeInt(bytes.length);
+        writeBytes(bytes);
+    }
+
+    private void writeSlot(byte tag, long payload) throws IOException {
+        writeByte(tag);
+        writeInt((int) payload);
+        writeInt((int) (payload >>> 32));
+    }
+
+    private void writeInt(int value) throws IOException {
+        ensure(4);
+        buffer[position++] = (byte) value;
+        buffer[position++] = (byte) (value >>> 8);
+        buffer[position++] = (byte) (value >>> 16);
+        buffer[position++] = (byte) (value >>> 24);
+    }
+
+    private void writeByte(byte value) throws IOException {
+        ensure(1);
+        buffer[position++] = value;
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        if (bytes.length > BUFFER_SIZE) {
+            flushBuffer();
+            out.write(bytes);
+            offset += bytes.length;
+        } else {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+    }
+
+    private void ensure(int length) throws IOException {
+        if (position + length > BUFFER_SIZE) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        out.write(buffer, 0, position);
+        offset += position;
+        position = 0;
+    }
+
+}
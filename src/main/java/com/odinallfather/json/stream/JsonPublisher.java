@@ -0,0 +1,180 @@
+package com.odinallfather.json.stream;
+
+import com.odinallfather.json.JsonValue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the values of a {@link JsonValueIterator} to one subscriber. Values are only read when the subscriber has
+ * requested them, on the given executor, and the iterator is closed when the values end, fail or are cancelled.
+ */
+public class JsonPublisher implements Flow.Publisher<JsonValue> {
+
+    private final JsonValueIterator source;
+    private final Executor executor;
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    public JsonPublisher(JsonValueIterator source) {
+        this(source, ForkJoinPool.commonPool());
+    }
+
+    public JsonPublisher(JsonValueIterator source, Executor executor) {
+        this.source = Objects.requireNonNull(source, "source may not be null");
+        this.executor = Objects.requireNonNull(executor, "executor may not be null");
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super JsonValue> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber may not be null");
+
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("Only one subscriber is supported"));
+            return;
+        }
+
+        new ValueSubscription(subscriber).start();
+    }
+
+    private final class ValueSubscription implements Flow.Subscription, Runnable {
+
+        private final Flow.Subscriber<? super JsonValue> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        // Counts the pending drain requests, the subscriber is only signaled by the thread that raised it from zero
+        private final AtomicInteger work = new AtomicInteger(1);
+        private volatile boolean cancelled;
+        private volatile Throwable invalidRequest;
+        private boolean done;
+
+        ValueSubscription(Flow.Subscriber<? super JsonValue> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        void start() {
+            subscriber.onSubscribe(this);
+            if (work.decrementAndGet() != 0) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("Requested " + n + " values, must be positive");
+            } else {
+                demand.getAndAccumulate(n, (current, add) -> current + add < 0 ? Long.MAX_VALUE : current + add);
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (work.getAndIncrement() == 0) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+
+            for (; ; ) {
+                drain();
+
+                missed = work.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        private void drain() {
+            if (done) {
+                return;
+            }
+            if (cancelled) {
+                finish(null);
+                return;
+            }
+            if (invalidRequest != null) {
+                finish(invalidRequest);
+                return;
+            }
+
+            long requested = demand.get();
+            long emitted = 0;
+
+            try {
+                while (emitted != requested) {
+                    if (cancelled) {
+                        finish(null);
+                        return;
+                    }
+                    if (!source.hasNext()) {
+                        finish(null);
+                        return;
+                    }
+
+                    subscriber.onNext(source.next());
+                    emitted++;
+                }
+            } catch (UncheckedIOException exception) {
+                finish(exception.getCause());
+                return;
+            } catch (RuntimeException exception) {
+                finish(exception);
+                return;
+            }
+
+            if (requested != Long.MAX_VALUE) {
+                demand.addAndGet(-emitted);
+            }
+        }
+
+        /**
+         * Closes the source and signals the error or the completion unless cancelled.
+         */
+        private void finish(Throwable error) {
+            done = true;
+
+            try {
+                source.close();
+            } catch (IOException exception) {
+                if (error == null) {
+                    error = exception;
+                }
+            }
+
+            if (cancelled) {
+                return;
+            }
+            if (error != null) {
+                subscriber.onError(error);
+            } else {
+                subscriber.onComplete();
+            }
+        }
+    }
+
+}
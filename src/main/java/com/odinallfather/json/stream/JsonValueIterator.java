@@ -0,0 +1,98 @@
+package com.odinallfather.json.stream;
+
+import com.odinallfather.json.JsonException;
+import com.odinallfather.json.JsonParser;
+import com.odinallfather.json.JsonValue;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates the elements of a top-level array or a sequence of whitespace separated values like JSON Lines, reading
+ * each value only when it is requested. Blocks while reading, which is cheap on virtual threads.
+ * <p>
+ * Parse errors are thrown as {@link UncheckedIOException}.
+ */
+public class JsonValueIterator implements Iterator<JsonValue>, Closeable {
+
+    private final JsonParser parser;
+    private final boolean array;
+    private boolean started;
+    private boolean finished;
+    private boolean hasNext;
+
+    private JsonValueIterator(JsonParser parser, boolean array) {
+        this.parser = parser;
+        this.array = array;
+    }
+
+    /**
+     * @return an iterator over the elements of the array the parser is positioned at
+     */
+    public static JsonValueIterator elements(JsonParser parser) {
+        return new JsonValueIterator(parser, true);
+    }
+
+    /**
+     * @return an iterator over the values until the end of the input
+     */
+    public static JsonValueIterator values(JsonParser parser) {
+        return new JsonValueIterator(parser, false);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (hasNext) {
+            return true;
+        }
+        if (finished) {
+            return false;
+        }
+
+        try {
+            if (array) {
+                hasNext = started ? parser.nextElement() : parser.beginArray();
+            } else {
+                hasNext = parser.hasNextValue();
+            }
+            started = true;
+        } catch (IOException exception) {
+            finished = true;
+            throw new UncheckedIOException(exception);
+        }
+
+        finished = !hasNext;
+        return hasNext;
+    }
+
+    @Override
+    public JsonValue next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        hasNext = false;
+
+        try {
+            JsonValue value = parser.readValue();
+            if (value == null) {
+                throw new JsonException("Invalid value");
+            }
+
+            return value;
+        } catch (IOException exception) {
+            finished = true;
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        finished = true;
+        hasNext = false;
+        parser.close();
+    }
+
+}
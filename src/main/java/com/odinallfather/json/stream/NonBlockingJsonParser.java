@@ -0,0 +1,591 @@
+package com.odinallfather.json.stream;
+
+import com.odinallfather.json.JsonArray;
+import com.odinallfather.json.JsonException;
+import com.odinallfather.json.JsonObject;
+import com.odinallfather.json.JsonValue;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A parser for UTF-8 input that is pushed in chunks, for use on threads that must not block.
+ * <p>
+ * Input is passed with {@link #feed(ByteBuffer)}. {@link #nextToken()} then returns tokens until the input is used
+ * up, which is signaled by {@link #NEED_MORE_INPUT}. Tokens may be split across chunks anywhere, the parser resumes
+ * exactly where it stopped. {@link #endOfInput()} marks the end of the input, after which {@link #END_OF_INPUT} is
+ * returned once the last token has been read. The input may contain several whitespace separated top-level values.
+ */
+public class NonBlockingJsonParser {
+
+    public static final byte NEED_MORE_INPUT = 0;
+    public static final byte END_OF_INPUT = 1;
+    public static final byte START_OBJECT = 2;
+    public static final byte END_OBJECT = 3;
+    public static final byte START_ARRAY = 4;
+    public static final byte END_ARRAY = 5;
+    public static final byte NAME = 6;
+    public static final byte STRING = 7;
+    public static final byte NUMBER = 8;
+    public static final byte TRUE = 9;
+    public static final byte FALSE = 10;
+    public static final byte NULL = 11;
+
+    private static final byte[] TRUE_BYTES = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE_BYTES = {'f', 'a', 'l', 's', 'e'};
+    private static final byte[] NULL_BYTES = {'n', 'u', 'l', 'l'};
+
+    // What is expected next
+    private static final int EXPECT_ROOT = 0;
+    private static final int EXPECT_VALUE = 1;
+    private static final int EXPECT_VALUE_OR_END = 2;
+    private static final int EXPECT_NAME = 3;
+    private static final int EXPECT_NAME_OR_END = 4;
+    private static final int EXPECT_COLON = 5;
+    private static final int EXPECT_SEPARATOR = 6;
+
+    // The token that is partially read
+    private static final int LEX_NONE = 0;
+    private static final int LEX_STRING = 1;
+    private static final int LEX_NUMBER = 2;
+    private static final int LEX_LITERAL = 3;
+
+    // Number states, the states after which a number may end are negative
+    private static final int NUMBER_MINUS = 1;
+    private static final int NUMBER_DOT = 2;
+    private static final int NUMBER_E = 3;
+    private static final int NUMBER_E_SIGN = 4;
+    private static final int NUMBER_ZERO = -1;
+    private static final int NUMBER_INTEGER = -2;
+    private static final int NUMBER_FRACTION = -3;
+    private static final int NUMBER_EXPONENT = -4;
+
+    private ByteBuffer input;
+    private boolean endOfInput;
+    private long offset;
+    private int inputStart;
+
+    private boolean[] objects = new boolean[16];
+    private int depth;
+    private int expect = EXPECT_ROOT;
+    private byte currentToken = NEED_MORE_INPUT;
+
+    private int lexState = LEX_NONE;
+    private char[] text = new char[64];
+    private int textLength;
+    private boolean name;
+    private boolean escape;
+    private int unicodeDigits;
+    private int unicodeValue;
+    private int utf8Remaining;
+    private int codePoint;
+    // The smallest code point of the sequence being decoded, smaller ones are overlong encodings
+    private int minCodePoint;
+    private int numberState;
+    private boolean floating;
+    private byte[] literal;
+    private int literalIndex;
+
+    private String string;
+    private Number number;
+    // The name of the entry whose value is read by nextValue, if the name was read by nextValue as well
+    private String pendingName;
+    private String valueName;
+
+    private final List<Object> containers = new ArrayList<>();
+    private final List<String> names = new ArrayList<>();
+
+    /**
+     * Passes the next chunk of input. The parser reads from the buffer until {@link #NEED_MORE_INPUT} is returned, so
+     * it may not be modified before that.
+     *
+     * @throws IllegalStateException if the previous input was not read completely or the end of input was marked
+     */
+    public void feed(ByteBuffer in) {
+        if (endOfInput) {
+            throw new IllegalStateException("End of input was already marked");
+        }
+        if (input != null && input.hasRemaining()) {
+            throw new IllegalStateException("The previous input was not read completely");
+        }
+
+        if (input != null) {
+            offset += input.position() - inputStart;
+        }
+        input = in;
+        inputStart = in.position();
+    }
+
+    public void feed(byte[] in, int offset, int length) {
+        feed(ByteBuffer.wrap(in, offset, length));
+    }
+
+    public void feed(byte[] in) {
+        feed(ByteBuffer.wrap(in));
+    }
+
+    /**
+     * Marks the end of the input, no more input can be fed after this.
+     */
+    public void endOfInput() {
+        endOfInput = true;
+    }
+
+    /**
+     * @return true if all input was read and more is needed to continue
+     */
+    public boolean needsInput() {
+        return !endOfInput && (input == null || !input.hasRemaining());
+    }
+
+    public byte getCurrentToken() {
+        return currentToken;
+    }
+
+    /**
+     * @return the name or string of the current token
+     */
+    public String getString() {
+        return string;
+    }
+
+    /**
+     * @return the number of the current token, a Long if it is an integer in range and a Double otherwise
+     */
+    public Number getNumber() {
+        return number;
+    }
+
+    /**
+     * @return the name of the entry whose value was returned by {@link #nextValue()}, or null if the value is not in an
+     * object or its name was read by {@link #nextToken()}
+     */
+    public String getValueName() {
+        return valueName;
+    }
+
+    /**
+     * @return the number of arrays and objects the parser is in
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @return the number of bytes read so far
+     */
+    public long getOffset() {
+        return offset + (input == null ? 0 : input.position() - inputStart);
+    }
+
+    public byte nextToken() throws JsonException {
+        return currentToken = readToken();
+    }
+
+    /**
+     * Reads the next complete value. The parts of the value read so far are kept if the input runs out, so the call can
+     * be repeated after more input was fed. This may be mixed with {@link #nextToken()} at value boundaries, e.g. to read
+     * the elements of a top-level array one by one. In an object opened by {@link #nextToken()}, the next entry is read
+     * and its value is returned, the name is available from {@link #getValueName()}.
+     *
+     * @return the value, or null if more input is needed, the input ended or the enclosing array or object ended, see
+     * {@link #getCurrentToken()}
+     */
+    public JsonValue nextValue() throws JsonException {
+        for (; ; ) {
+            JsonValue value;
+
+            switch (nextToken()) {
+                // @formatter:off
+                case NEED_MORE_INPUT: case END_OF_INPUT: return null;
+                case STRING: value = new JsonValue(string); break;
+                case NUMBER: value = new JsonValue(number); break;
+                case TRUE: value = new JsonValue(true); break;
+                case FALSE: value = new JsonValue(false); break;
+                case NULL: value = new JsonValue(); break;
+                // @formatter:on
+                case NAME:
+                    if (containers.isEmpty()) {
+                        pendingName = string; // The object was opened by nextToken
+                    } else {
+                        names.set(names.size() - 1, string);
+                    }
+                    continue;
+                case START_OBJECT:
+                    containers.add(new JsonObject());
+                    names.add(null);
+                    continue;
+                case START_ARRAY:
+                    containers.add(new JsonArray());
+                    names.add(null);
+                    continue;
+                default:
+                    if (containers.isEmpty()) {
+                        valueName = null;
+                        return null; // The enclosing container ended
+                    }
+
+                    names.remove(names.size() - 1);
+                    Object container = containers.remove(containers.size() - 1);
+                    value = container instanceof JsonObject ? new JsonValue((JsonObject) container) : new JsonValue((JsonArray) container);
+            }
+
+            if (containers.isEmpty()) {
+                valueName = pendingName;
+                pendingName = null;
+                return value;
+            }
+
+            Object container = containers.get(containers.size() - 1);
+            if (container instanceof JsonObject) {
+                ((JsonObject) container).put(names.get(names.size() - 1), value);
+            } else {
+                ((JsonArray) container).add(value);
+            }
+        }
+    }
+
+    private byte readToken() throws JsonException {
+        if (lexState != LEX_NONE) {
+            return continueToken();
+        }
+
+        for (; ; ) {
+            if (input == null || !input.hasRemaining()) {
+                return endOfInputToken();
+            }
+
+            byte b = input.get();
+            if (b == ' ' || b == '\n' || b == '\r' || b == '\t') {
+                continue;
+            }
+
+            switch (expect) {
+                case EXPECT_SEPARATOR:
+                    if (b == ',') {
+                        expect = objects[depth - 1] ? EXPECT_NAME : EXPECT_VALUE;
+                        continue;
+                    }
+                    return endContainer(b);
+                case EXPECT_COLON:
+                    if (b != ':') {
+                        throw error("Missing colon");
+                    }
+                    expect = EXPECT_VALUE;
+                    continue;
+                case EXPECT_NAME_OR_END:
+                case EXPECT_NAME:
+                    if (b == '}' && expect == EXPECT_NAME_OR_END) {
+                        return endContainer(b);
+                    }
+                    if (b != '\"') {
+                        throw error("Invalid string");
+                    }
+                    return startString(true);
+                case EXPECT_VALUE_OR_END:
+                default:
+                    if (b == ']' && expect == EXPECT_VALUE_OR_END) {
+                        return endContainer(b);
+                    }
+                    return startValue(b);
+            }
+        }
+    }
+
+    private byte endOfInputToken() throws JsonException {
+        if (!endOfInput) {
+            return NEED_MORE_INPUT;
+        }
+        if (depth > 0) {
+            throw error("Unexpected end of input", getOffset());
+        }
+
+        return END_OF_INPUT;
+    }
+
+    private byte startValue(byte b) throws JsonException {
+        switch (b) {
+            // @formatter:off
+            case '{': push(true); return START_OBJECT;
+            case '[': push(false); return START_ARRAY;
+            case '\"': return startString(false);
+            case 't': return startLiteral(TRUE_BYTES);
+            case 'f': return startLiteral(FALSE_BYTES);
+            case 'n': return startLiteral(NULL_BYTES);
+            // @formatter:on
+        }
+
+        if (b == '-' || (b >= '0' && b <= '9')) {
+            lexState = LEX_NUMBER;
+            textLength = 0;
+            floating = false;
+            numberState = NUMBER_MINUS;
+            input.position(input.position() - 1);
+            return continueToken();
+        }
+
+        throw error("Invalid value");
+    }
+
+    private void push(boolean object) {
+        if (depth == objects.length) {
+            objects = Arrays.copyOf(objects, depth * 2);
+        }
+        objects[depth++] = object;
+        expect = object ? EXPECT_NAME_OR_END : EXPECT_VALUE_OR_END;
+    }
+
+    private byte endContainer(byte b) throws JsonException {
+        boolean object = objects[depth - 1];
+        if (b != (object ? '}' : ']')) {
+            throw error(object ? "Expected right curly bracket or comma" : "Expected right square bracket or comma");
+        }
+
+        depth--;
+        endValue();
+
+        return object ? END_OBJECT : END_ARRAY;
+    }
+
+    private void endValue() {
+        expect = depth == 0 ? EXPECT_ROOT : EXPECT_SEPARATOR;
+    }
+
+    private byte startString(boolean name) throws JsonException {
+        lexState = LEX_STRING;
+        textLength = 0;
+        this.name = name;
+
+        return continueToken();
+    }
+
+    private byte startLiteral(byte[] literal) throws JsonException {
+        lexState = LEX_LITERAL;
+        this.literal = literal;
+        literalIndex = 1;
+
+        return continueToken();
+    }
+
+    private byte continueToken() throws JsonException {
+        switch (lexState) {
+            // @formatter:off
+            case LEX_STRING: return continueString();
+            case LEX_NUMBER: return continueNumber();
+            default: return continueLiteral();
+            // @formatter:on
+        }
+    }
+
+    private byte continueString() throws JsonException {
+        for (; ; ) {
+            if (input == null || !input.hasRemaining()) {
+                if (endOfInput) {
+                    throw error("Unterminated string", getOffset());
+                }
+                return NEED_MORE_INPUT;
+            }
+
+            int b = input.get();
+
+            if (utf8Remaining > 0) {
+                if ((b & 0xC0) != 0x80) {
+                    throw error("Invalid UTF-8 sequence");
+                }
+                codePoint = codePoint << 6 | (b & 0x3F);
+                if (--utf8Remaining == 0) {
+                    if (codePoint < minCodePoint || codePoint > Character.MAX_CODE_POINT
+                            || (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE)) {
+                        throw error("Invalid UTF-8 sequence");
+                    }
+                    // Like JsonParser, which rejects them after decoding
+                    if (Character.isISOControl(codePoint)) {
+                        throw error("Invalid character");
+                    }
+                    if (Character.isBmpCodePoint(codePoint)) {
+                        append((char) codePoint);
+                    } else {
+                        append(Character.highSurrogate(codePoint));
+                        append(Character.lowSurrogate(codePoint));
+                    }
+                }
+            } else if (unicodeDigits > 0) {
+                int digit = Character.digit(b, 16);
+                if (digit == -1) {
+                    throw error("Invalid unicode escape");
+                }
+                unicodeValue = unicodeValue << 4 | digit;
+                if (--unicodeDigits == 0) {
+                    append((char) unicodeValue);
+                }
+            } else if (escape) {
+                escape = false;
+                switch (b) {
+                    // @formatter:off
+                    case '\"': case '\\': case '/': append((char) b); break;
+                    case 'b': append('\b'); break;
+                    case 'f': append('\f'); break;
+                    case 'n': append('\n'); break;
+                    case 'r': append('\r'); break;
+                    case 't': append('\t'); break;
+                    case 'u': unicodeDigits = 4; unicodeValue = 0; break;
+                    default: throw error("Invalid escape character");
+                    // @formatter:on
+                }
+            } else if (b == '\"') {
+                lexState = LEX_NONE;
+                string = new String(text, 0, textLength);
+                if (name) {
+                    expect = EXPECT_COLON;
+                    return NAME;
+                }
+                endValue();
+                return STRING;
+            } else if (b == '\\') {
+                escape = true;
+            } else if (b >= 0) {
+                if (Character.isISOControl(b)) {
+                    throw error("Invalid character");
+                }
+                append((char) b);
+            } else if ((b & 0xE0) == 0xC0) {
+                utf8Remaining = 1;
+                codePoint = b & 0x1F;
+                minCodePoint = 0x80;
+            } else if ((b & 0xF0) == 0xE0) {
+                utf8Remaining = 2;
+                codePoint = b & 0x0F;
+                minCodePoint = 0x800;
+            } else if ((b & 0xF8) == 0xF0) {
+                utf8Remaining = 3;
+                codePoint = b & 0x07;
+                minCodePoint = 0x10000;
+            } else {
+                throw error("Invalid UTF-8 sequence");
+            }
+        }
+    }
+
+    private byte continueNumber() throws JsonException {
+        for (; ; ) {
+            if (input == null || !input.hasRemaining()) {
+                if (!endOfInput) {
+                    return NEED_MORE_INPUT; // The number may continue in the next chunk
+                }
+                return endNumber();
+            }
+
+            byte b = input.get();
+            int state = numberState;
+
+            if (b >= '0' && b <= '9') {
+                switch (state) {
+                    // @formatter:off
+                    case NUMBER_MINUS: state = b == '0' ? NUMBER_ZERO : NUMBER_INTEGER; break;
+                    case NUMBER_ZERO: throw error("Invalid number");
+                    case NUMBER_DOT: state = NUMBER_FRACTION; break;
+                    case NUMBER_E: case NUMBER_E_SIGN: state = NUMBER_EXPONENT; break;
+                    // @formatter:on
+                }
+            } else if (b == '-' && state == NUMBER_MINUS && textLength == 0) {
+                // The sign, the state stays the same
+            } else if ((b == '-' || b == '+') && state == NUMBER_E) {
+                state = NUMBER_E_SIGN;
+            } else if (b == '.' && (state == NUMBER_ZERO || state == NUMBER_INTEGER)) {
+                state = NUMBER_DOT;
+                floating = true;
+            } else if ((b == 'e' || b == 'E') && (state == NUMBER_ZERO || state == NUMBER_INTEGER || state == NUMBER_FRACTION)) {
+                state = NUMBER_E;
+                floating = true;
+            } else {
+                input.position(input.position() - 1);
+                return endNumber();
+            }
+
+            numberState = state;
+            append((char) b);
+        }
+    }
+
+    private byte endNumber() throws JsonException {
+        if (numberState > 0) {
+            throw error("Invalid number", getOffset()); // The byte after the number was not read
+        }
+
+        lexState = LEX_NONE;
+        number = floating ? null : parseLong();
+        if (number == null) {
+            number = Double.parseDouble(new String(text, 0, textLength));
+        }
+        endValue();
+
+        return NUMBER;
+    }
+
+    /**
+     * @return the integer or null if it does not fit into a long
+     */
+    private Long parseLong() {
+        boolean negative = text[0] == '-';
+        long value = 0;
+
+        for (int i = negative ? 1 : 0; i < textLength; i++) {
+            int digit = text[i] - '0';
+            if (value < (Long.MIN_VALUE + digit) / 10) {
+                return null;
+            }
+            value = value * 10 - digit;
+        }
+
+        if (!negative) {
+            if (value == Long.MIN_VALUE) {
+                return null;
+            }
+            value = -value;
+        }
+
+        return value;
+    }
+
+    private byte continueLiteral() throws JsonException {
+        for (; ; ) {
+            if (literalIndex == literal.length) {
+                lexState = LEX_NONE;
+                endValue();
+                return literal == TRUE_BYTES ? TRUE : literal == FALSE_BYTES ? FALSE : NULL;
+            }
+
+            if (input == null || !input.hasRemaining()) {
+                if (endOfInput) {
+                    throw error("Unexpected end of input", getOffset());
+                }
+                return NEED_MORE_INPUT;
+            }
+
+            if (input.get() != literal[literalIndex++]) {
+                throw error("Invalid value");
+            }
+        }
+    }
+
+    private void append(char chr) {
+        if (textLength == text.length) {
+            text = Arrays.copyOf(text, textLength * 2);
+        }
+        text[textLength++] = chr;
+    }
+
+    /**
+     * @return an error for the last byte read
+     */
+    private JsonException error(String message) {
+        return error(message, getOffset() - 1);
+    }
+
+    private JsonException error(String message, long offset) {
+        return new JsonException(message + " at byte offset " + offset);
+    }
+
+}
@@ -0,0 +1,66 @@
+package com.odinallfather.json.version;
+
+/**
+ * Dispatch table from a version to the coders of a type. Implementations are usually generated from
+ * {@link JsonVersion} annotations.
+ *
+ * @param <T> Type the coders can decode or encode
+ */
+public interface CoderRegistry<T> {
+
+    /**
+     * Gets the serializer according to the version
+     *
+     * @param version Version the serializer can serialize
+     * @return serializer based on the version or null if there is none
+     */
+    Serializer<T> getSerializer(String version);
+
+    /**
+     * Gets the deserializer according to the version
+     *
+     * @param version Version the deserializer can deserialize
+     * @return deserializer based on the version or null if there is none
+     */
+    Deserializer<T> getDeserializer(String version);
+
+    /**
+     * Gets the OdinJson object serializer according to the version
+     *
+     * @param version Version the serializer can serialize
+     * @return serializer based on the version or null if there is none
+     */
+    default ObjectSerializer<T> getObjectSerializer(String version) {
+        return null;
+    }
+
+    /**
+     * Gets the OdinJson object deserializer according to the version
+     *
+     * @param version Version the deserializer can deserialize
+     * @return deserializer based on the version or null if there is none
+     */
+    default ObjectDeserializer<T> getObjectDeserializer(String version) {
+        return null;
+    }
+
+    /**
+     * Gets the streaming serializer according to the version
+     *
+     * @param version Version the serializer can serialize
+     * @return serializer based on the version or null if there is none
+     */
+    default StreamSerializer<T> getStreamSerializer(String version) {
+        return null;
+    }
+
+    /**
+     * Gets the streaming deserializer according to the version
+     *
+     * @param version Version the deserializer can deserialize
+     * @return deserializer based on the version or null if there is none
+     */
+    default StreamDeserializer<T> getStreamDeserializer(String version) {
+        return null;
+    }
+}
@@ -1,8 +1,9 @@
 package com.odinallfather.json.version;
 
-abstract class JsonCoder {
+abstract class JsonCoder<T> {
 
     protected String pathToDeserializer;
+    protected CoderRegistry<T> registry;
 
     /**
      * @param pathToDeserializer Path to where the deserializer is located
@@ -10,4 +11,59 @@ abstract class JsonCoder {
     JsonCoder(String pathToDeserializer) {
         this.pathToDeserializer = pathToDeserializer;
     }
+
+    /**
+     * @param registry Registry the coders are looked up in
+     */
+    JsonCoder(CoderRegistry<T> registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Gets the serializer according to the version, either from the registry or by reflection
+     *
+     * @param version Version the serializer can serialize
+     * @return serializer based on the version or null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    Serializer<T> getSerializer(String version) {
+        if (registry != null) {
+            return registry.getSerializer(version);
+        }
+
+        return JsonReflection.getSerializer(pathToDeserializer, toPathVersion(version));
+    }
+
+    /**
+     * Gets the deserializer according to the version, either from the registry or by reflection
+     *
+     * @param version Version the deserializer can deserialize
+     * @return deserializer based on the version or null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    Deserializer<T> getDeserializer(String version) {
+        if (registry != null) {
+            return registry.getDeserializer(version);
+        }
+
+        return JsonReflection.getDeserializer(pathToDeserializer, toPathVersion(version));
+    }
+
+    /**
+     * Gets any coder according to the version by reflection
+     *
+     * @param version Version the coder can decode or encode
+     * @return coder based on the version or null if there is none
+     */
+    Coder getReflectedCoder(String version) {
+        return JsonReflection.getCoder(pathToDeserializer, toPathVersion(version));
+    }
+
+    /**
+     * @param version Version like "1.2"
+     * @return the version as it is used in a path template, like "v1_2"
+     */
+    static String toPathVersion(String version) {
+        return "v" + version.replace(".", "_");
+    }
 }
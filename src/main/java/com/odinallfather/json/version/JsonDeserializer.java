@@ -4,17 +4,29 @@ import com.google.gson.*;
 
 import java.lang.reflect.Type;
 
-public class JsonDeserializer<T> extends JsonCoder implements com.google.gson.JsonDeserializer {
+public class JsonDeserializer<T> extends JsonCoder<T> implements com.google.gson.JsonDeserializer<T> {
 
     public JsonDeserializer(String pathToDeserializer) {
         super(pathToDeserializer);
     }
 
+    /**
+     * @param registry Registry the deserializers are looked up in
+     */
+    public JsonDeserializer(CoderRegistry<T> registry) {
+        super(registry);
+    }
+
     @Override
     public T deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
         JsonObject jsonObject = json.getAsJsonObject();
-        String version = "v" + jsonObject.get("version").getAsString().replace(".", "_");
+        String version = jsonObject.get("version").getAsString();
+
+        Deserializer<T> deserializer = getDeserializer(version);
+        if (deserializer == null) {
+            throw new JsonParseException("No deserializer for version " + version);
+        }
 
-        return (T) JsonReflection.getDeserializer(pathToDeserializer, version).deserialize(jsonObject);
+        return deserializer.deserialize(jsonObject);
     }
 }
@@ -31,11 +31,11 @@ public class JsonReflection {
      * @param version Version the coder can decode or encode
      * @return coder based on the version
      */
-    private static Coder getCoder(String pathToCoder, String version) {
+    static Coder getCoder(String pathToCoder, String version) {
         Coder coder;
 
         try {
-            coder = Class.forName(pathToCoder.replace("{version}", version)).asSubclass(Deserializer.class).newInstance();
+            coder = Class.forName(pathToCoder.replace("{version}", version)).asSubclass(Coder.class).newInstance();
         } catch (Exception exception) {
             exception.printStackTrace();
 
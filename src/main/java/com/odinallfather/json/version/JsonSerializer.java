@@ -1,11 +1,12 @@
 package com.odinallfather.json.version;
 
 import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
 import com.google.gson.JsonSerializationContext;
 
 import java.lang.reflect.Type;
 
-public class JsonSerializer<T extends Versionable> extends JsonCoder implements com.google.gson.JsonSerializer<T> {
+public class JsonSerializer<T extends Versionable> extends JsonCoder<T> implements com.google.gson.JsonSerializer<T> {
 
     /**
      * @param pathToDeserializer Path to where the deserializer is located
@@ -14,8 +15,20 @@ public class JsonSerializer<T extends Versionable> extends JsonCoder implements
         super(pathToDeserializer);
     }
 
+    /**
+     * @param registry Registry the serializers are looked up in
+     */
+    public JsonSerializer(CoderRegistry<T> registry) {
+        super(registry);
+    }
+
     @Override
     public JsonElement serialize(T src, Type typeOfSrc, JsonSerializationContext context) {
-        return JsonReflection.getSerializer(pathToDeserializer, src.getVersion()).serialize(src);
+        Serializer<T> serializer = getSerializer(src.getVersion());
+        if (serializer == null) {
+            throw new JsonParseException("No serializer for version " + src.getVersion());
+        }
+
+        return serializer.serialize(src);
     }
 }
@@ -0,0 +1,27 @@
+package com.odinallfather.json.version;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a {@link Serializer}, {@link Deserializer} or one of their OdinJson counterparts as the coder for one
+ * version of its type.
+ * <p>
+ * The {@code JsonVersionProcessor} collects all annotated coders of a type at compile time and generates a
+ * {@link CoderRegistry} named {@code <Type>Coders} in the package of the type, which can be passed to
+ * {@link JsonSerializer}, {@link JsonDeserializer}, {@link NativeSerializer} and {@link NativeDeserializer} instead
+ * of a path template.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface JsonVersion {
+
+    /**
+     * @return Version the coder can decode or encode, e.g. "1.2"
+     */
+    String value();
+}
@@ -0,0 +1,100 @@
+package com.odinallfather.json.version;
+
+import com.odinallfather.json.JsonException;
+import com.odinallfather.json.JsonObject;
+import com.odinallfather.json.JsonParser;
+import com.odinallfather.json.JsonValue;
+
+import java.io.IOException;
+
+/**
+ * Deserializes versioned data from OdinJson objects or directly from a {@link JsonParser}, without a detour through
+ * a Gson tree. Coders are {@link StreamDeserializer}s or {@link ObjectDeserializer}s.
+ */
+public class NativeDeserializer<T> extends JsonCoder<T> {
+
+    /**
+     * @param pathToDeserializer Path to where the deserializer is located
+     */
+    public NativeDeserializer(String pathToDeserializer) {
+        super(pathToDeserializer);
+    }
+
+    /**
+     * @param registry Registry the deserializers are looked up in
+     */
+    public NativeDeserializer(CoderRegistry<T> registry) {
+        super(registry);
+    }
+
+    /**
+     * Deserializes an object read from the parser. If "version" is the first entry and there is a
+     * {@link StreamDeserializer} for it, the object is read without building a tree, otherwise it is read into a
+     * {@link JsonObject} first.
+     *
+     * @param parser parser positioned before the object
+     */
+    @SuppressWarnings("unchecked")
+    public T deserialize(JsonParser parser) throws IOException {
+        if (!parser.beginObject()) {
+            throw new JsonException("Missing version");
+        }
+
+        String name = parser.readName();
+        JsonValue value = parser.readValue();
+        if (value == null) {
+            throw new JsonException("Invalid value");
+        }
+
+        if (name.equals("version")) {
+            String version = versionOf(value);
+            Coder coder = registry != null ? registry.getStreamDeserializer(version) : getReflectedCoder(version);
+            if (coder instanceof StreamDeserializer) {
+                return ((StreamDeserializer<T>) coder).deserialize(parser);
+            }
+        }
+
+        // No streaming deserializer or the version is not the first entry, so read the object into a tree
+        JsonObject jsonObject = new JsonObject();
+        jsonObject.put(name, value);
+        readRemainingEntries(parser, jsonObject);
+
+        return deserialize(jsonObject);
+    }
+
+    /**
+     * Deserializes an OdinJson object with the {@link ObjectDeserializer} for its version
+     *
+     * @param jsonObject JsonObject to deserialize
+     */
+    @SuppressWarnings("unchecked")
+    public T deserialize(JsonObject jsonObject) throws JsonException {
+        JsonValue value = jsonObject.get("version");
+        if (value == null) {
+            throw new JsonException("Missing version");
+        }
+
+        String version = versionOf(value);
+        Coder coder = registry != null ? registry.getObjectDeserializer(version) : getReflectedCoder(version);
+        if (!(coder instanceof ObjectDeserializer)) {
+            throw new JsonException("No object deserializer for version " + version);
+        }
+
+        return ((ObjectDeserializer<T>) coder).deserialize(jsonObject);
+    }
+
+    private static void readRemainingEntries(JsonParser parser, JsonObject jsonObject) throws IOException {
+        while (parser.nextEntry()) {
+            String name = parser.readName();
+            JsonValue value = parser.readValue();
+            if (value == null) {
+                throw new JsonException("Invalid value");
+            }
+            jsonObject.put(name, value);
+        }
+    }
+
+    private static String versionOf(JsonValue value) {
+        return value.isString() ? value.asString() : String.valueOf(value.getValue());
+    }
+}
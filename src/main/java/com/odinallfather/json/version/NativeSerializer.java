@@ -0,0 +1,72 @@
+package com.odinallfather.json.version;
+
+import com.odinallfather.json.JsonException;
+import com.odinallfather.json.JsonObject;
+import com.odinallfather.json.JsonPrinter;
+
+import java.io.IOException;
+
+/**
+ * Serializes versioned data into OdinJson objects or directly into a {@link JsonPrinter}, without a detour through
+ * a Gson tree. Coders are {@link StreamSerializer}s or {@link ObjectSerializer}s.
+ */
+public class NativeSerializer<T extends Versionable> extends JsonCoder<T> {
+
+    /**
+     * @param pathToSerializer Path to where the serializer is located
+     */
+    public NativeSerializer(String pathToSerializer) {
+        super(pathToSerializer);
+    }
+
+    /**
+     * @param registry Registry the serializers are looked up in
+     */
+    public NativeSerializer(CoderRegistry<T> registry) {
+        super(registry);
+    }
+
+    /**
+     * Serializes the source with the {@link ObjectSerializer} for its version
+     *
+     * @param src type to serialize
+     */
+    @SuppressWarnings("unchecked")
+    public JsonObject serialize(T src) throws JsonException {
+        String version = src.getVersion();
+        Coder coder = registry != null ? registry.getObjectSerializer(version) : getReflectedCoder(version);
+        if (!(coder instanceof ObjectSerializer)) {
+            throw new JsonException("No object serializer for version " + version);
+        }
+
+        return ((ObjectSerializer<T>) coder).serialize(src);
+    }
+
+    /**
+     * Prints the source with the {@link StreamSerializer} for its version. Falls back to printing the object of the
+     * {@link ObjectSerializer} if there is no streaming serializer.
+     *
+     * @param src     type to serialize
+     * @param printer printer to write the object to
+     */
+    @SuppressWarnings("unchecked")
+    public void serialize(T src, JsonPrinter printer) throws IOException {
+        String version = src.getVersion();
+        Coder coder = registry != null ? registry.getStreamSerializer(version) : getReflectedCoder(version);
+        if (coder == null && registry != null) {
+            coder = registry.getObjectSerializer(version);
+        }
+
+        if (coder instanceof StreamSerializer) {
+            printer.beginObject();
+            printer.printName("version", true);
+            printer.print(version);
+            ((StreamSerializer<T>) coder).serialize(src, printer);
+            printer.endObject(false);
+        } else if (coder instanceof ObjectSerializer) {
+            printer.print(((ObjectSerializer<T>) coder).serialize(src));
+        } else {
+            throw new JsonException("No serializer for version " + version);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.odinallfather.json.version;
+
+import com.odinallfather.json.JsonObject;
+
+public interface ObjectDeserializer<T> extends Coder {
+
+    /**
+     * Deserialize a type T from an OdinJson object
+     *
+     * @param jsonObject JsonObject to deserialize
+     */
+    T deserialize(JsonObject jsonObject);
+}
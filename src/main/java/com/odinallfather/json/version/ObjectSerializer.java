@@ -0,0 +1,14 @@
+package com.odinallfather.json.version;
+
+import com.odinallfather.json.JsonObject;
+
+public interface ObjectSerializer<T> extends Coder {
+
+    /**
+     * Serializes a type T into an OdinJson object. The "version" should be the first entry, so that the object can
+     * later be read with a {@link StreamDeserializer}.
+     *
+     * @param type type to serialize
+     */
+    JsonObject serialize(T type);
+}
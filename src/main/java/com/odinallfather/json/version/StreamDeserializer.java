@@ -0,0 +1,17 @@
+package com.odinallfather.json.version;
+
+import com.odinallfather.json.JsonParser;
+
+import java.io.IOException;
+
+public interface StreamDeserializer<T> extends Coder {
+
+    /**
+     * Deserialize a type T directly from a parser. The parser is positioned after the value of the "version" entry,
+     * so the remaining entries are read with {@code while (parser.nextEntry())}, {@link JsonParser#readName()} and
+     * a value. The object has to be read until its closing bracket.
+     *
+     * @param parser parser to read the remaining entries from
+     */
+    T deserialize(JsonParser parser) throws IOException;
+}
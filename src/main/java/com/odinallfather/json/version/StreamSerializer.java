@@ -0,0 +1,17 @@
+package com.odinallfather.json.version;
+
+import com.odinallfather.json.JsonPrinter;
+
+import java.io.IOException;
+
+public interface StreamSerializer<T> extends Coder {
+
+    /**
+     * Serializes a type T directly into a printer. The object and its "version" entry are already written, so the
+     * remaining entries are written with {@code printer.printName(name, false)} followed by their values.
+     *
+     * @param type    type to serialize
+     * @param printer printer to write the remaining entries to
+     */
+    void serialize(T type, JsonPrinter printer) throws IOException;
+}
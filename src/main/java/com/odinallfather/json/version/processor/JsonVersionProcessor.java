@@ -0,0 +1,239 @@
+package com.odinallfather.json.version.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.*;
+
+/**
+ * Generates a {@code CoderRegistry} for every type that has coders annotated with {@code @JsonVersion}, so that
+ * the versioned coders can be dispatched with a switch instead of {@code Class.forName}.
+ */
+@SupportedAnnotationTypes(JsonVersionProcessor.ANNOTATION)
+public class JsonVersionProcessor extends AbstractProcessor {
+
+    static final String PACKAGE = "com.odinallfather.json.version";
+    static final String ANNOTATION = PACKAGE + ".JsonVersion";
+
+    /**
+     * Coder interfaces and the registry methods that return them, in the order they are generated
+     */
+    private static final String[][] KINDS = {
+            {"Serializer", "getSerializer"},
+            {"Deserializer", "getDeserializer"},
+            {"ObjectSerializer", "getObjectSerializer"},
+            {"ObjectDeserializer", "getObjectDeserializer"},
+            {"StreamSerializer", "getStreamSerializer"},
+            {"StreamDeserializer", "getStreamDeserializer"}
+    };
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        TypeElement annotation = processingEnv.getElementUtils().getTypeElement(ANNOTATION);
+        if (annotation == null) {
+            return false;
+        }
+
+        Map<String, Registry> registries = new LinkedHashMap<>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+            collect(element, registries);
+        }
+
+        for (Registry registry : registries.values()) {
+            try {
+                write(registry);
+            } catch (IOException exception) {
+                error(registry.coders.get(0), "Could not write " + registry.qualifiedName + ": " + exception.getMessage());
+            }
+        }
+
+        return true;
+    }
+
+    private void collect(Element element, Map<String, Registry> registries) {
+        if (element.getKind() != ElementKind.CLASS) {
+            error(element, "@JsonVersion can only be used on classes");
+            return;
+        }
+
+        TypeElement coder = (TypeElement) element;
+        Set<Modifier> modifiers = coder.getModifiers();
+        if (!modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.ABSTRACT)
+                || (coder.getNestingKind() == NestingKind.MEMBER && !modifiers.contains(Modifier.STATIC))) {
+            error(coder, "A coder annotated with @JsonVersion must be a public, concrete and static class");
+            return;
+        }
+        if (!hasPublicNoArgConstructor(coder)) {
+            error(coder, "A coder annotated with @JsonVersion needs a public no-arg constructor");
+            return;
+        }
+
+        String version = getVersion(coder);
+        boolean found = false;
+
+        for (int kind = 0; kind < KINDS.length; kind++) {
+            TypeElement coderInterface = processingEnv.getElementUtils().getTypeElement(PACKAGE + '.' + KINDS[kind][0]);
+            if (coderInterface == null) {
+                continue;
+            }
+
+            TypeMirror target = findTypeArgument(coder.asType(), coderInterface, new HashSet<>());
+            if (target == null) {
+                continue;
+            }
+            if (target.getKind() != TypeKind.DECLARED) {
+                error(coder, "The type argument of " + KINDS[kind][0] + " must be a class");
+                return;
+            }
+
+            TypeElement targetElement = (TypeElement) ((DeclaredType) target).asElement();
+            Registry registry = registries.computeIfAbsent(targetElement.getQualifiedName().toString(),
+                    key -> new Registry(targetElement, processingEnv.getElementUtils()));
+
+            if (registry.versions.get(kind).putIfAbsent(version, coder) != null) {
+                error(coder, "There is already a " + KINDS[kind][0] + " for " + targetElement.getSimpleName()
+                        + " version " + version);
+                return;
+            }
+            registry.coders.add(coder);
+            found = true;
+        }
+
+        if (!found) {
+            error(coder, "A coder annotated with @JsonVersion must implement one of the coder interfaces");
+        }
+    }
+
+    private static boolean hasPublicNoArgConstructor(TypeElement type) {
+        List<ExecutableElement> constructors = ElementFilter.constructorsIn(type.getEnclosedElements());
+
+        for (ExecutableElement constructor : constructors) {
+            if (constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PUBLIC)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static String getVersion(TypeElement coder) {
+        for (AnnotationMirror mirror : coder.getAnnotationMirrors()) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(ANNOTATION)) {
+                for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : mirror.getElementValues().entrySet()) {
+                    if (entry.getKey().getSimpleName().contentEquals("value")) {
+                        return (String) entry.getValue().getValue();
+                    }
+                }
+            }
+        }
+
+        throw new IllegalStateException("Missing @JsonVersion on " + coder);
+    }
+
+    /**
+     * Walks the supertypes of a type and returns the type argument the coder interface is implemented with
+     */
+    private TypeMirror findTypeArgument(TypeMirror type, TypeElement coderInterface, Set<String> visited) {
+        Types types = processingEnv.getTypeUtils();
+
+        for (TypeMirror supertype : types.directSupertypes(type)) {
+            if (!visited.add(supertype.toString())) {
+                continue;
+            }
+
+            if (supertype.getKind() == TypeKind.DECLARED && types.isSameType(types.erasure(supertype), types.erasure(coderInterface.asType()))) {
+                List<? extends TypeMirror> arguments = ((DeclaredType) supertype).getTypeArguments();
+                return arguments.isEmpty() ? types.getNoType(TypeKind.NONE) : arguments.get(0);
+            }
+
+            TypeMirror argument = findTypeArgument(supertype, coderInterface, visited);
+            if (argument != null) {
+                return argument;
+            }
+        }
+
+        return null;
+    }
+
+    private void write(Registry registry) throws IOException {
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(registry.qualifiedName,
+                registry.coders.toArray(new Element[0]));
+
+        try (PrintWriter out = new PrintWriter(file.openWriter())) {
+            if (!registry.packageName.isEmpty()) {
+                out.println("package " + registry.packageName + ";");
+                out.println();
+            }
+            out.println("@javax.annotation.processing.Generated(\"" + JsonVersionProcessor.class.getName() + "\")");
+            out.println("public final class " + registry.simpleName + " implements " + PACKAGE + ".CoderRegistry<" + registry.target + "> {");
+            out.println();
+            out.println("    public static final " + registry.simpleName + " INSTANCE = new " + registry.simpleName + "();");
+            out.println();
+            out.println("    private " + registry.simpleName + "() { }");
+
+            for (int kind = 0; kind < KINDS.length; kind++) {
+                out.println();
+                out.println("    @Override");
+                out.println("    public " + PACKAGE + '.' + KINDS[kind][0] + "<" + registry.target + "> " + KINDS[kind][1] + "(String version) {");
+                out.println("        switch (version) {");
+                for (Map.Entry<String, TypeElement> entry : registry.versions.get(kind).entrySet()) {
+                    out.println("            case " + processingEnv.getElementUtils().getConstantExpression(entry.getKey()) + ":");
+                    out.println("                return new " + entry.getValue().getQualifiedName() + "();");
+                }
+                out.println("            default:");
+                out.println("                return null;");
+                out.println("        }");
+                out.println("    }");
+            }
+
+            out.println();
+            out.println("}");
+        }
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    private static final class Registry {
+
+        private final String target;
+        private final String packageName;
+        private final String simpleName;
+        private final String qualifiedName;
+        private final List<Map<String, TypeElement>> versions = new ArrayList<>(KINDS.length);
+        private final List<Element> coders = new ArrayList<>();
+
+        private Registry(TypeElement target, Elements elements) {
+            this.target = target.getQualifiedName().toString();
+            this.packageName = elements.getPackageOf(target).getQualifiedName().toString();
+
+            // Nested types are flattened, e.g. Outer.Inner -> Outer_InnerCoders
+            String name = packageName.isEmpty() ? this.target : this.target.substring(packageName.length() + 1);
+            this.simpleName = name.replace('.', '_') + "Coders";
+            this.qualifiedName = packageName.isEmpty() ? simpleName : packageName + '.' + simpleName;
+
+            for (int kind = 0; kind < KINDS.length; kind++) {
+                versions.add(new TreeMap<>());
+            }
+        }
+    }
+
+}